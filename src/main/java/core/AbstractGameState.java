@@ -8,6 +8,7 @@ import evaluation.listeners.IGameListener;
 import evaluation.metrics.Event;
 import games.GameType;
 import utilities.ElapsedCpuChessTimer;
+import utilities.Pair;
 
 import java.util.*;
 import java.util.function.*;
@@ -44,9 +45,11 @@ public abstract class AbstractGameState {
     // Timers for all players
     protected ElapsedCpuChessTimer[] playerTimer;
 
-    // A record of all actions taken to reach this game state
-    private List<AbstractAction> history = new ArrayList<>();
-    private List<String> historyText = new ArrayList<>();
+    // A record of all actions taken to reach this game state, and of logged events, newest first.
+    // Entries are immutable and shared with copies, so copying the history is O(1)
+    private HistoryEntry history;
+    // Set when something (a GUI) will read the history text of this state; not copied
+    private boolean recordHistoryText;
 
     // Status of the game, and status for each player (in cooperative games, the game status is also each player's status)
     protected CoreConstants.GameResult gameStatus;
@@ -57,6 +60,8 @@ public abstract class AbstractGameState {
     protected Stack<IExtendedSequence> actionsInProgress = new Stack<>();
     CoreParameters coreGameParameters;
     private int gameID;
+    // Zobrist-style hash of the state, for games that maintain one (see getStateHash())
+    protected long stateHash;
 
     /**
      * @param gameParameters - game parameters.
@@ -77,14 +82,14 @@ public abstract class AbstractGameState {
         gameStatus = GAME_ONGOING;
         playerResults = new CoreConstants.GameResult[getNPlayers()];
         Arrays.fill(playerResults, GAME_ONGOING);
-        history = new ArrayList<>();
-        historyText = new ArrayList<>();
+        history = null;
         playerTimer = new ElapsedCpuChessTimer[getNPlayers()];
         tick = 0;
         turnOwner = 0;
         turnCounter = 0;
         roundCounter = 0;
         firstPlayer = 0;
+        stateHash = 0;
         actionsInProgress.clear();
     }
 
@@ -124,9 +129,47 @@ public abstract class AbstractGameState {
     /**
      * @return All actions that have been executed on this state since reset()/initialisation
      */
-    public List<AbstractAction> getHistory() { return new ArrayList<>(history);}
+    public List<AbstractAction> getHistory() {
+        List<AbstractAction> retValue = new ArrayList<>();
+        for (HistoryEntry e = history; e != null; e = e.previous) {
+            if (e.action != null) retValue.add(e.action);
+        }
+        Collections.reverse(retValue);
+        return retValue;
+    }
+    /**
+     * @return All actions that have been executed on this state since reset()/initialisation, each with the
+     * player who took it
+     */
+    public List<Pair<Integer, AbstractAction>> getHistoryWithPlayers() {
+        List<Pair<Integer, AbstractAction>> retValue = new ArrayList<>();
+        for (HistoryEntry e = history; e != null; e = e.previous) {
+            if (e.action != null) retValue.add(new Pair<>(e.player, e.action));
+        }
+        Collections.reverse(retValue);
+        return retValue;
+    }
+    /**
+     * @return The last action executed on this state, or null if there is none
+     */
+    public AbstractAction getLastAction() {
+        for (HistoryEntry e = history; e != null; e = e.previous) {
+            if (e.action != null) return e.action;
+        }
+        return null;
+    }
+    /**
+     * The text of an action is generated against the state it was taken in, when it is recorded, but only if
+     * something can read it (see recordAction()). Actions recorded without text are given as their toString().
+     * @return All actions and logged events, as text
+     */
     public List<String> getHistoryAsText() {
-        return new ArrayList<>(historyText);
+        List<String> retValue = new ArrayList<>();
+        for (HistoryEntry e = history; e != null; e = e.previous) {
+            retValue.add(e.getText());
+        }
+        Collections.reverse(retValue);
+        return retValue;
     }
     public int getGameID() {
         return gameID;
@@ -143,6 +186,25 @@ public abstract class AbstractGameState {
     public int getTurnOwner() {return turnOwner;}
     public int getFirstPlayer() {return firstPlayer;}
 
+    /**
+     * @return true if this game maintains getStateHash() as the state changes
+     */
+    public boolean hasStateHash() {return false;}
+
+    /**
+     * A 64-bit hash of the game position, for use as a key by search algorithms (e.g. transposition tables in MCTS).
+     * Unlike hashCode() this is not computed on demand: games that support it (see hasStateHash()) update it
+     * incrementally (Zobrist-style) in the forward model as components change, and carry it across in _copy(), so
+     * reading it is free. Two states with the same position have the same hash, however they were reached.
+     *
+     * @return the hash of the current position
+     */
+    public long getStateHash() {
+        if (!hasStateHash())
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " does not maintain a state hash");
+        return stateHash;
+    }
+
     // Setters
     void setCoreGameParameters(CoreParameters coreGameParameters) {
         this.coreGameParameters = coreGameParameters;
@@ -255,8 +317,7 @@ public abstract class AbstractGameState {
         s.firstPlayer = firstPlayer;
 
         if (!coreGameParameters.competitionMode) {
-            s.history = new ArrayList<>(history);
-            s.historyText = new ArrayList<>(historyText);
+            s.history = history;
             // we do not copy individual actions in history, as these are now dead and should not change
             // History is for debugging and spectation of games. There is a risk that History might contain information
             // formally hidden to some participants. For this reason, in COMPETITION_MODE we explicitly do not copy
@@ -280,14 +341,58 @@ public abstract class AbstractGameState {
         return s;
     }
 
+    /**
+     * @return true if this game supports redeterminise()
+     */
+    public boolean canRedeterminise() {return false;}
+
+    /**
+     * Re-samples, in place, everything in this state that the player cannot observe, with the same result (in
+     * distribution) as copy(playerId). A search that needs a new determinisation on every iteration can then
+     * take a plain copy() of the state and redeterminise only its hidden components, rather than have the game
+     * rebuild them from scratch as part of each copy.
+     * Does nothing if the game is not partially observable, or playerId is -1.
+     *
+     * @param playerId - player observing the state
+     * @param rnd      - random number generator to sample the hidden components with
+     */
+    public final void redeterminise(int playerId, Random rnd) {
+        if (!canRedeterminise())
+            throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support redeterminise()");
+        if (coreGameParameters.partialObservable && playerId != -1)
+            _redeterminise(playerId, rnd);
+    }
+
+    /**
+     * Implement redeterminise() for games that support it (see canRedeterminise()); typically by passing the
+     * decks that hide cards from the player to DeterminisationUtilities.reshuffle().
+     *
+     * @param playerId - player observing the state, never -1
+     * @param rnd      - random number generator to sample the hidden components with
+     */
+    protected void _redeterminise(int playerId, Random rnd) {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not support redeterminise()");
+    }
+
     /**
      * Used by ForwardModel.next() to log history (very useful for debugging)
      *
      * @param action The action that has just been applied (or is about to be applied) to the game state
      */
     protected final void recordAction(AbstractAction action, int player) {
-        history.add(action);
-        historyText.add("Player " + player + " : " + action.getString(this));
+        // the text is only built if it can be read, so that copies used in search skip the string work
+        String text = null;
+        if (recordHistoryText || !listeners.isEmpty() || coreGameParameters.recordEventHistory)
+            text = "Player " + player + " : " + action.getString(this);
+        history = new HistoryEntry(history, action, player, text);
+    }
+
+    /**
+     * @param recordHistoryText - if true, the text of each action is recorded in the history even if there are no
+     *                          listeners and recordEventHistory is off (for example, because a GUI shows it).
+     */
+    public void setRecordHistoryText(boolean recordHistoryText) {
+        this.recordHistoryText = recordHistoryText;
     }
 
 
@@ -307,7 +412,29 @@ public abstract class AbstractGameState {
     }
 
     public void recordHistory(String history) {
-        historyText.add(history);
+        this.history = new HistoryEntry(this.history, null, -1, history);
+    }
+
+    /**
+     * One action or logged event in the history. The history is a persistent linked list: entries are never changed
+     * once recorded, so a state and all its copies can share them.
+     */
+    private static final class HistoryEntry {
+        final HistoryEntry previous;
+        final AbstractAction action;
+        final int player;
+        final String text;
+
+        HistoryEntry(HistoryEntry previous, AbstractAction action, int player, String text) {
+            this.previous = previous;
+            this.action = action;
+            this.player = player;
+            this.text = text;
+        }
+
+        String getText() {
+            return text != null ? text : "Player " + player + " : " + action;
+        }
     }
 
     /* Methods dealing with ExtendedActions and the actionStack */
@@ -59,6 +59,10 @@ public abstract class AbstractPlayer {
         decorators.remove(decorator);
     }
 
+    public final List<AbstractPlayerDecorator> getDecorators() {
+        return Collections.unmodifiableList(decorators);
+    }
+
     /**
      * First of all this applies any decorators to the list of possible actions.
      * Then we choose one (delegating to the _getAction() implemented by the AbstractPlayer subclass)
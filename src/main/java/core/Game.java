@@ -509,7 +509,7 @@ public class Game {
             Stack<IExtendedSequence> actionsInProgress = gameState.getActionsInProgress();
             IExtendedSequence topOfStack = actionsInProgress.peek();
             throw new AssertionError("No actions available for player " + activePlayer
-                    + ". Last action: " + gameState.getHistory().get(gameState.getHistory().size() - 1)
+                    + ". Last action: " + gameState.getLastAction()
                     + ". Actions in progress: " + actionsInProgress.size()
                     + ". Top of stack: " + topOfStack.getClass().getSimpleName() + " (" + topOfStack + ")");
 
@@ -5,10 +5,25 @@ import org.json.simple.JSONArray;
 import org.json.simple.JSONObject;
 import core.CoreConstants.ComponentType;
 
+import java.lang.ref.Cleaner;
 import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public abstract class Component {
-    private static int ID = 0;  // All components receive a unique and final ID from this always increasing counter
+    // All components receive a unique and final ID. Each thread takes IDs from its own block, reserved from this
+    // shared counter, so that components can be created concurrently without contending on every ID. When a thread
+    // ends, the IDs left in its block are handed back, and used before any new block is reserved; so the many
+    // short-lived threads of parallel games and searches do not use up the ID space.
+    private static final AtomicInteger nextIDBlock = new AtomicInteger();
+    private static final int ID_BLOCK_SIZE = 256;
+    private static final Queue<int[]> spareIDs = new ConcurrentLinkedQueue<>();  // {next, end} of returned blocks
+    private static final Cleaner idCleaner = Cleaner.create();
+    private static final ThreadLocal<IDBlock> threadIDs = ThreadLocal.withInitial(() -> {
+        IDBlock block = new IDBlock();
+        idCleaner.register(Thread.currentThread(), block::giveBack);
+        return block;
+    });
 
     protected transient final int componentID;  // Unique ID of this component
     protected final ComponentType type;  // Type of this component
@@ -17,14 +32,14 @@ public abstract class Component {
     protected String componentName;  // Name of this component
 
     public Component(ComponentType type, String name) {
-        this.componentID = ID++;
+        this.componentID = nextID();
         this.type = type;
         this.componentName = name;
         this.properties = new HashMap<>();
     }
 
     public Component(ComponentType type) {
-        this.componentID = ID++;
+        this.componentID = nextID();
         this.type = type;
         this.componentName = type.toString();
         this.properties = new HashMap<>();
@@ -44,6 +59,38 @@ public abstract class Component {
         this.properties = new HashMap<>();
     }
 
+    private static int nextID() {
+        IDBlock ids = threadIDs.get();
+        if (ids.next == ids.end)
+            ids.reserve();
+        return ids.next++;
+    }
+
+    // The IDs a thread has reserved and not yet used, from next up to (but not including) end. The fields are
+    // volatile as giveBack() runs on the cleaner's thread.
+    private static final class IDBlock {
+        volatile int next, end;
+
+        void reserve() {
+            int[] spare = spareIDs.poll();
+            if (spare != null) {
+                next = spare[0];
+                end = spare[1];
+                return;
+            }
+            int start = nextIDBlock.getAndAdd(ID_BLOCK_SIZE);
+            if (start < 0 || start > Integer.MAX_VALUE - ID_BLOCK_SIZE)
+                throw new IllegalStateException("No component IDs left");
+            next = start;
+            end = start + ID_BLOCK_SIZE;
+        }
+
+        void giveBack() {
+            if (next < end)
+                spareIDs.add(new int[]{next, end});
+        }
+    }
+
     /**
      * To be implemented by subclass, all components should be able to create copies of themselves.
      * @return - a new Component with the same properties.
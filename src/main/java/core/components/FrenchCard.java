@@ -34,18 +34,44 @@ public class FrenchCard extends Card {
     public final FrenchCardType type;
     public final int number;
 
+    public static final int N_CARDS = 52;
+    public static final int CARDS_PER_SUIT = 13;
+
+    // One canonical instance of each card, indexed by ordinal. These are immutable and shared by all decks, actions
+    // and game state copies, so they are compared by identity.
+    private static final FrenchCard[] canonicalCards = new FrenchCard[N_CARDS];
+    private final boolean canonical;
+
+    static {
+        for (Suite suite : Suite.values()) {
+            for (FrenchCardType type : FrenchCardType.values()) {
+                if (type == FrenchCardType.Number) {
+                    for (int number : numbers) {
+                        FrenchCard card = new FrenchCard(type, suite, number, true);
+                        canonicalCards[card.ordinal()] = card;
+                    }
+                } else {
+                    FrenchCard card = new FrenchCard(type, suite, type.number, true);
+                    canonicalCards[card.ordinal()] = card;
+                }
+            }
+        }
+    }
+
     public FrenchCard(FrenchCardType type, Suite suite, int number){
-        super(type.toString());
-        this.suite = suite;
-        this.type = type;
-        this.number = number;
+        this(type, suite, number, false);
     }
 
     public FrenchCard(FrenchCardType type, Suite suite){
+        this(type, suite, type.number, false);
+    }
+
+    private FrenchCard(FrenchCardType type, Suite suite, int number, boolean canonical){
         super(type.toString());
         this.suite = suite;
         this.type = type;
-        this.number = type.number;
+        this.number = number;
+        this.canonical = canonical;
     }
 
     private FrenchCard(FrenchCardType type, Suite suite, int number, int componentID){
@@ -53,6 +79,52 @@ public class FrenchCard extends Card {
         this.suite = suite;
         this.type = type;
         this.number = number;
+        this.canonical = false;
+    }
+
+    /**
+     * @return the canonical instance of the card with the given ordinal (see {@link #ordinal()})
+     */
+    public static FrenchCard of(int ordinal) {
+        return canonicalCards[ordinal];
+    }
+
+    /**
+     * @return the canonical instance of the card with the given suite and number (Jack 11 to Ace 14)
+     */
+    public static FrenchCard of(Suite suite, int number) {
+        return canonicalCards[ordinal(suite, number)];
+    }
+
+    public static int ordinal(Suite suite, int number) {
+        return suite.ordinal() * CARDS_PER_SUIT + number - 2;
+    }
+
+    /**
+     * @return index of this card in 0..51, by suite and then by number from 2 to Ace
+     */
+    public int ordinal() {
+        return ordinal(suite, number);
+    }
+
+    /**
+     * @return the canonical instance of this card
+     */
+    public FrenchCard canonical() {
+        return canonicalCards[ordinal()];
+    }
+
+    public boolean isCanonical() {
+        return canonical;
+    }
+
+    /**
+     * Canonical cards are shared between decks (and games), so they do not record an owner.
+     */
+    @Override
+    public void setOwnerId(int ownerId) {
+        if (!canonical)
+            super.setOwnerId(ownerId);
     }
 
     public static Deck<FrenchCard> generateDeck(String name, CoreConstants.VisibilityMode visibilityMode) {
@@ -61,10 +133,10 @@ public class FrenchCard extends Card {
             for (FrenchCard.FrenchCardType type: FrenchCard.FrenchCardType.values()) {
                 if (type == FrenchCard.FrenchCardType.Number) {
                     for (int number : numbers) {
-                        deck.add(new FrenchCard(FrenchCard.FrenchCardType.Number, suite, number));
+                        deck.add(of(suite, number));
                     }
                 } else {
-                    deck.add(new FrenchCard(type, suite));
+                    deck.add(of(suite, type.number));
                 }
             }
         }
@@ -73,6 +145,8 @@ public class FrenchCard extends Card {
 
     @Override
     public FrenchCard copy() {
+        if (canonical)
+            return this;  // immutable
         return new FrenchCard(type, suite, number, componentID);
     }
 
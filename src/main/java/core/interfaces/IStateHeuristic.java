@@ -3,6 +3,8 @@ package core.interfaces;
 
 import core.AbstractGameState;
 
+import java.util.List;
+
 public interface IStateHeuristic {
 
     /**
@@ -13,4 +15,22 @@ public interface IStateHeuristic {
      * @return - value of given state.
      */
     double evaluateState(AbstractGameState gs, int playerId);
+
+    /**
+     * Scores a batch of states for every player. Heuristics based on a learned model can override this to build the
+     * features of all the states into one matrix and score it in a single pass, rather than one state at a time.
+     * By default this just calls evaluateState() for each state and player.
+     * @param states - game states to evaluate and score.
+     * @return - values[i][p] is the value of states.get(i) for player p.
+     */
+    default double[][] evaluateStates(List<? extends AbstractGameState> states) {
+        double[][] retValue = new double[states.size()][];
+        for (int i = 0; i < retValue.length; i++) {
+            AbstractGameState gs = states.get(i);
+            retValue[i] = new double[gs.getNPlayers()];
+            for (int p = 0; p < retValue[i].length; p++)
+                retValue[i][p] = evaluateState(gs, p);
+        }
+        return retValue;
+    }
 }
\ No newline at end of file
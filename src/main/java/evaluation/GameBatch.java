@@ -0,0 +1,72 @@
+package evaluation;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Plays a batch of games on a pool of worker threads. Each game is passed in as a Callable that has already been
+ * fully set up (players, random seed, game parameters) on the calling thread, so that the sequence of games is the same
+ * whatever the number of threads; the results are returned in the order the games were given.
+ * With a single thread every game is played in turn on the calling thread.
+ * The worker threads are kept between batches until close() is called.
+ */
+class GameBatch {
+
+    private final int nThreads;
+    private ExecutorService executor;
+
+    GameBatch(int nThreads) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads must be at least 1");
+        this.nThreads = nThreads;
+    }
+
+    int nThreads() {
+        return nThreads;
+    }
+
+    <T> List<T> run(List<Callable<T>> games) {
+        List<T> retValue = new ArrayList<>(games.size());
+        try {
+            if (nThreads == 1 || games.size() == 1) {
+                for (Callable<T> game : games)
+                    retValue.add(game.call());
+                return retValue;
+            }
+            for (Future<T> result : getExecutor().invokeAll(games))
+                retValue.add(result.get());
+            return retValue;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for evaluation games", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Evaluation game failed", e.getCause());
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Evaluation game failed", e);
+        }
+    }
+
+    /**
+     * Shuts down the worker threads. A later run() starts new ones.
+     */
+    void close() {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(nThreads, r -> {
+                Thread thread = new Thread(r, "GameBatch");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+}
@@ -11,6 +11,7 @@ import evodef.SolutionEvaluator;
 import games.GameType;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 import java.util.stream.IntStream;
 
 import static java.util.stream.Collectors.toList;
@@ -31,6 +32,11 @@ public class GameEvaluator implements SolutionEvaluator {
     int nPlayers;
     List<AbstractPlayer> opponents;
     int nEvals = 0;
+    // The number of games played so far; used to cycle the position of the tuned player
+    int nGames = 0;
+    // The number of games played (concurrently, if nThreads > 1) and averaged for each NTBEA trial
+    int gamesPerTrial = 1;
+    GameBatch batch = new GameBatch(1);
     Random rnd;
     boolean avoidOppDupes;
     boolean fullyCoop;
@@ -75,6 +81,35 @@ public class GameEvaluator implements SolutionEvaluator {
     @Override
     public void reset() {
         nEvals = 0;
+        nGames = 0;
+    }
+
+    /**
+     * @param nThreads - number of games to play concurrently, in evaluateAll() and in each trial if gamesPerTrial > 1.
+     *                 Each game has its own copies of the opponents, and its own random seed drawn from rnd.
+     */
+    public void setNThreads(int nThreads) {
+        if (nThreads != batch.nThreads()) {
+            batch.close();
+            batch = new GameBatch(nThreads);
+        }
+    }
+
+    /**
+     * Shuts down the threads used to play games concurrently. The evaluator can still be used afterwards.
+     */
+    public void close() {
+        batch.close();
+    }
+
+    /**
+     * @param gamesPerTrial - number of games played with the settings on each NTBEA trial; the trial's score
+     *                      is the mean over these. With more than one, NTBEA sees fewer, less noisy, samples.
+     */
+    public void setGamesPerTrial(int gamesPerTrial) {
+        if (gamesPerTrial < 1)
+            throw new IllegalArgumentException("gamesPerTrial must be at least 1");
+        this.gamesPerTrial = gamesPerTrial;
     }
 
     @Override
@@ -93,6 +128,45 @@ public class GameEvaluator implements SolutionEvaluator {
      */
     @Override
     public double evaluate(int[] settings) {
+        double retValue = Arrays.stream(playAll(Collections.nCopies(gamesPerTrial, settings))).average().orElse(0.0);
+        nEvals++;
+        return retValue;
+    }
+
+    /**
+     * Plays one game for each of the settings, concurrently if nThreads > 1. Each counts as one evaluation.
+     * The games are set up (players, opponents and random seeds) on the calling thread, nThreads at a time, in the
+     * same order that the same number of calls to evaluate(int[]) would use; so the results do not depend on the
+     * number of threads, and only nThreads games are held in memory at once.
+     *
+     * @param settings a list of settings (possibly repeats of the same one) as for evaluate(int[])
+     * @return the score for the agent being optimised in each game, in the same order as settings
+     */
+    public double[] evaluateAll(List<int[]> settings) {
+        double[] retValue = playAll(settings);
+        nEvals += settings.size();
+        return retValue;
+    }
+
+    private double[] playAll(List<int[]> settings) {
+        double[] retValue = new double[settings.size()];
+        for (int from = 0; from < settings.size(); from += batch.nThreads()) {
+            int to = Math.min(settings.size(), from + batch.nThreads());
+            List<Callable<Double>> games = new ArrayList<>(to - from);
+            for (int[] s : settings.subList(from, to))
+                games.add(prepareGame(s));
+            List<Double> results = batch.run(games);
+            for (int i = from; i < to; i++)
+                retValue[i] = results.get(i - from);
+        }
+        return retValue;
+    }
+
+    /**
+     * Sets up the players and game for one evaluation game, using rnd, and returns the task that plays it.
+     * The task shares nothing with any other game, so can be run on any thread.
+     */
+    private Callable<Double> prepareGame(int[] settings) {
         if (debug)
             System.out.printf("Starting evaluation %d of %s at %tT%n", nEvals,
                     Arrays.toString(settings), System.currentTimeMillis());
@@ -104,7 +178,7 @@ public class GameEvaluator implements SolutionEvaluator {
 
         // We can reduce variance here by cycling the playerIndex on each iteration
         // If we're not tuning the player, then setting index to -99 means we just use the provided opponents list
-        int playerIndex = tuningPlayer ? nEvals % nPlayers : -99;
+        int playerIndex = tuningPlayer ? nGames % nPlayers : -99;
 
         // create a random permutation of opponents - this is used if we want to avoid opponent duplicates
         // if we allow duplicates, then we randomise them all independently
@@ -122,14 +196,18 @@ public class GameEvaluator implements SolutionEvaluator {
             }
         }
 
-        Game newGame = tuningGame ? (Game) configuredThing : game.createGameInstance(nPlayers, gameParams);
+        // each game has its own copy of the parameters, as the random seed in them is updated on reset
+        Game newGame = tuningGame ? (Game) configuredThing :
+                game.createGameInstance(nPlayers, gameParams == null ? null : gameParams.copy());
         // always reset the random seed for each new game
-        newGame.reset(allPlayers, rnd.nextLong());
-
-        newGame.run();
-
-        nEvals++;
-        return tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerIndex);
+        long seed = rnd.nextLong();
+        nGames++;
+
+        return () -> {
+            newGame.reset(allPlayers, seed);
+            newGame.run();
+            return tuningGame ? gameHeuristic.evaluateGame(newGame) : stateHeuristic.evaluateState(newGame.getGameState(), playerIndex);
+        };
     }
 
     /**
@@ -11,6 +11,7 @@ import games.GameType;
 import evaluation.loggers.SummaryLogger;
 
 import java.util.*;
+import java.util.concurrent.Callable;
 
 /**
  * Game Evaluator is used for NTBEA optimisation of parameters. It implements the SolutionEvaluator interface.
@@ -24,6 +25,9 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
     ITPSearchSpace searchSpace;
     int nPlayers;
     int nEvals = 0;
+    // The number of games played (concurrently, if nThreads > 1) and averaged for each NTBEA trial
+    int gamesPerTrial = 1;
+    GameBatch batch = new GameBatch(1);
     Random rnd;
     IStateHeuristic stateHeuristic;
 
@@ -51,6 +55,33 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
         nEvals = 0;
     }
 
+    /**
+     * @param nThreads - number of games to play concurrently in each trial, if gamesPerTrial > 1.
+     */
+    public void setNThreads(int nThreads) {
+        if (nThreads != batch.nThreads()) {
+            batch.close();
+            batch = new GameBatch(nThreads);
+        }
+    }
+
+    /**
+     * Shuts down the threads used to play games concurrently. The evaluator can still be used afterwards.
+     */
+    public void close() {
+        batch.close();
+    }
+
+    /**
+     * @param gamesPerTrial - number of games played with the settings on each NTBEA trial; the score for each
+     *                      player is the mean over these.
+     */
+    public void setGamesPerTrial(int gamesPerTrial) {
+        if (gamesPerTrial < 1)
+            throw new IllegalArgumentException("gamesPerTrial must be at least 1");
+        this.gamesPerTrial = gamesPerTrial;
+    }
+
 
     /**
      * There should never be a need to call this method directly. It is called by the NTBEA framework as needed.
@@ -66,23 +97,36 @@ public class GameMultiPlayerEvaluator implements MultiSolutionEvaluator {
    //     System.out.printf("Starting evaluation %d of %n\t%s at %tT%n", nEvals,
      //           settings.stream().map(Arrays::toString).collect(joining(",\n\t")), System.currentTimeMillis());
 
-        List<AbstractPlayer> allPlayers = new ArrayList<>(nPlayers);
-
-        for (int i = 0; i < nPlayers; i++) {
-            AbstractPlayer tunedPlayer = (AbstractPlayer) searchSpace.getAgent(settings.get(i));
-            allPlayers.add(tunedPlayer);
+        // all the games are set up here, in turn, so that the random seeds used do not depend on the number of threads
+        List<Callable<double[]>> games = new ArrayList<>(gamesPerTrial);
+        for (int g = 0; g < gamesPerTrial; g++) {
+            List<AbstractPlayer> allPlayers = new ArrayList<>(nPlayers);
+
+            for (int i = 0; i < nPlayers; i++) {
+                AbstractPlayer tunedPlayer = (AbstractPlayer) searchSpace.getAgent(settings.get(i));
+                allPlayers.add(tunedPlayer);
+            }
+
+            Game newGame = game.createGameInstance(nPlayers);
+            long seed = rnd.nextLong();
+            games.add(() -> {
+                newGame.reset(allPlayers, seed);
+
+                newGame.run();
+                AbstractGameState finalState = newGame.getGameState();
+
+                double[] scores = new double[nPlayers];
+                for (int i = 0; i < nPlayers; i++)
+                    scores[i] = stateHeuristic.evaluateState(finalState, i);
+                return scores;
+            });
         }
 
-        Game newGame = game.createGameInstance(nPlayers);
-        newGame.reset(allPlayers, rnd.nextLong());
-
-        newGame.run();
-        AbstractGameState finalState = newGame.getGameState();
-
-        nEvals++;
         double[] retValue = new double[nPlayers];
-        for (int i = 0; i < nPlayers; i++)
-            retValue[i] = stateHeuristic.evaluateState(finalState, i);
+        for (double[] scores : batch.run(games))
+            for (int i = 0; i < nPlayers; i++)
+                retValue[i] += scores[i] / gamesPerTrial;
+        nEvals++;
 
      //   System.out.printf("Result : %s%n", Arrays.toString(retValue));
         return retValue;
@@ -73,6 +73,10 @@ public class ParameterSearch {
                         "\t               For scores with larger ranges, we recommend scaling kExplore appropriately.\n" +
                         "\thood=          The size of neighbourhood to look at in NTBEA. Default is min(50, |searchSpace|/100) \n" +
                         "\trepeat=        The number of times NTBEA should be re-run, to find a single best recommendation \n" +
+                        "\tnThreads=      The number of games to play in parallel (default 1). This is used for the evalGames and tournament\n" +
+                        "\t               games, and within each NTBEA trial if gamesPerTrial > 1. Each game has its own copies of the\n" +
+                        "\t               opponents, and its own seed; the results do not depend on the number of threads.\n" +
+                        "\tgamesPerTrial= The number of games played (and averaged) for each NTBEA trial. Default is 1.\n" +
                         "\tverbose        Will log the results marginalised to each dimension, and the Top 10 best tuples for each run \n" +
                         "\tseed=          Random seed for Game use (not used by NTBEA itself). Defaults to System.currentTimeMillis()\n" +
                         "\tlogFile=       Output file with results of each run for easier statistical analysis\n"
@@ -169,6 +173,8 @@ public class ParameterSearch {
         String paramFile = getArg(args, "gameParam", "");
         AbstractParameters gameParams = AbstractParameters.createFromFile(game, paramFile);
         int tournamentGames = getArg(args, "tournament", 0);
+        int nThreads = getArg(args, "nThreads", 1);
+        int gamesPerTrial = getArg(args, "gamesPerTrial", 1);
 
         ITPSearchSpace searchSpace = (ITPSearchSpace) landscapeModel.getSearchSpace();
         int searchSpaceSize = IntStream.range(0, searchSpace.nDims()).reduce(1, (acc, i) -> acc * searchSpace.nValues(i));
@@ -230,6 +236,8 @@ public class ParameterSearch {
                 gameHeuristic,
                 !allowDupes
         );
+        evaluator.setNThreads(nThreads);
+        evaluator.setGamesPerTrial(gamesPerTrial);
 
         // Get the results. And then log them.
         // This loops once for each complete repetition of NTBEA specified.
@@ -254,6 +262,7 @@ public class ParameterSearch {
                 bestResult = retValue;
 
         }
+        evaluator.close();
         if (tournamentGames > 0 && winnersPerRun.get(0) instanceof AbstractPlayer) {
             List<AbstractPlayer> players = winnersPerRun.stream().map(p -> (AbstractPlayer) p).collect(Collectors.toList());
             for (int i = 0; i < players.size(); i++) {
@@ -261,6 +270,7 @@ public class ParameterSearch {
             }
             RandomRRTournament tournament = new RandomRRTournament(players, game, nPlayers, NO_SELF_PLAY, tournamentGames, 0, seed, gameParams);
             tournament.verbose = false;
+            tournament.setNThreads(nThreads);
             tournament.runTournament();
             // create a new list of results in descending order of score
             IntToDoubleFunction cmp = evalMethod.equals("Ordinal") ? i -> -tournament.getOrdinalRank(i) : tournament::getWinRate;
@@ -298,6 +308,8 @@ public class ParameterSearch {
         int nPlayers = getArg(args, "nPlayers", game.getMinPlayers());
         long seed = getArg(args, "seed", System.currentTimeMillis());
         String logfile = getArg(args, "logFile", "");
+        int nThreads = getArg(args, "nThreads", 1);
+        int gamesPerTrial = getArg(args, "gamesPerTrial", 1);
 
         String evalMethod = getArg(args, "eval", "Win");
         IStateHeuristic stateHeuristic = null;
@@ -326,6 +338,8 @@ public class ParameterSearch {
                 stateHeuristic,
                 seed
         );
+        evaluator.setNThreads(nThreads);
+        evaluator.setGamesPerTrial(gamesPerTrial);
 
         // Get the results. And then log them.
         // This loops once for each complete repetition of NTBEA specified.
@@ -343,6 +357,7 @@ public class ParameterSearch {
                 bestResult = retValue;
 
         }
+        evaluator.close();
         System.out.println("\nFinal Recommendation: ");
         // we don't log the final run to file to avoid duplication
         printDetailsOfRun(bestResult, searchSpace, "", false, null);
@@ -597,8 +612,7 @@ public class ParameterSearch {
                 .toArray();
         // now run the evaluation games on the final recommendation
         if (evaluator instanceof GameEvaluator && evalGames > 0) {
-            double[] results = IntStream.range(0, evalGames)
-                    .mapToDouble(answer -> evaluator.evaluate(winnerSettings)).toArray();
+            double[] results = ((GameEvaluator) evaluator).evaluateAll(Collections.nCopies(evalGames, winnerSettings));
 
             double avg = Arrays.stream(results).average().orElse(0.0);
             double stdErr = Math.sqrt(Arrays.stream(results)
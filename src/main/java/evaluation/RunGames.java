@@ -45,15 +45,18 @@ public class RunGames {
                             "\tverbose=       If true, then the result of each game is reported. Default is false.\n"+
                             "\tplayers=       The directory containing agent JSON files for the competing Players\n" +
                             "\t               If not specified, this defaults to very basic OSLA, RND, RHEA and MCTS players.\n" +
-                            "\tmode=          exhaustive|random - defaults to exhaustive.\n" +
+                            "\tmode=          exhaustive|random|adaptive - defaults to exhaustive.\n" +
                             "\t               'exhaustive' will iterate exhaustively through every possible permutation: \n" +
                             "\t               every possible player in every possible position, and run a number of games equal to 'matchups'\n" +
                             "\t               for each. This can be excessive for a large number of players." +
                             "\t               'random' will have a random matchup, while ensuring no duplicates, and that all players get the\n" +
                             "\t               the same number of games in total.\n" +
+                            "\t               'adaptive' is as 'exhaustive' without self-play, but stops a combination once the winner\n" +
+                            "\t               is clear (see significance), and gives the games saved to the closest combinations.\n" +
                             "\t               If a focusPlayer is provided, then this is ignored.\n" +
                             "\tmatchups=      The total number of matchups to run if mode=random...\n" +
                             "\t               ...or the number of matchups to run per combination of players if mode=exhaustive\n" +
+                            "\t               ...or the average number per combination if mode=adaptive (at most twice this for any one)\n" +
                             "\tdestDir=       The directory to which the results will be written. Defaults to 'metrics/out'.\n" +
                             "\t               If (and only if) this is being run for multiple games/player counts, then a subdirectory\n" +
                             "\t               will be created for each game, and then within that for  each player count combination.\n" +
@@ -77,7 +80,11 @@ public class RunGames {
                             "\treportPeriod=  (Optional) For random mode execution only, after how many games played results are reported.\n" +
                             "\t               Defaults to the end of the tournament\n" +
                             "\trandomGameParams= (Optional) If specified, parameters for the game will be randomized for each game, and printed before the run.\n" +
-                            "\toutput=        (Optional) If specified, the summary results will be written to a file with this name.\n"
+                            "\toutput=        (Optional) If specified, the summary results will be written to a file with this name.\n" +
+                            "\tnThreads=      (Optional) The number of games to run in parallel. Each game gets its own copies of the players\n" +
+                            "\t               (whatever the value), and results are collated in a fixed order. Defaults to 1.\n" +
+                            "\tsignificance= (Optional) For adaptive mode, the significance level at which the winner of a combination\n" +
+                            "\t               is taken as settled. Defaults to 0.05.\n"
 
             );
             return;
@@ -96,6 +103,10 @@ public class RunGames {
         int reportPeriod = getArg(args, "reportPeriod", matchups);
         boolean verbose = getArg(args, "verbose", false);
         String resultsFile = getArg(args, "output", "");
+        int nThreads = getArg(args, "nThreads", 1);
+        double significance = getArg(args, "significance", 0.05);
+        if (significance <= 0.0 || significance >= 0.5)
+            throw new IllegalArgumentException("significance must be in (0, 0.5)");
 
         List<String> listenerClasses = new ArrayList<>(Arrays.asList(getArg(args, "listener", "evaluation.listeners.MetricsGameListener").split("\\|")));
         String metricsClass = getArg(args, "metrics", "evaluation.metrics.GameMetrics");
@@ -122,6 +133,8 @@ public class RunGames {
             throw new IllegalArgumentException("Cannot yet provide a gameParams argument if running multiple games");
 
         TournamentMode tournamentMode = selfPlay ? SELF_PLAY : NO_SELF_PLAY;
+        if (mode.equals("adaptive") && !selfPlay)
+            tournamentMode = ADAPTIVE;
         if (focus != null)
             tournamentMode = ONE_VS_ALL;
 
@@ -138,7 +151,7 @@ public class RunGames {
 
                 AbstractParameters params = gameParams.equals("") ? null : AbstractParameters.createFromFile(gameType, gameParams);
 
-                RoundRobinTournament tournament = mode.equals("exhaustive") || tournamentMode == ONE_VS_ALL ?
+                RoundRobinTournament tournament = mode.equals("exhaustive") || tournamentMode == ONE_VS_ALL || tournamentMode == ADAPTIVE ?
                         new RoundRobinTournament(agents, gameType, playerCount, matchups, tournamentMode, params) :
                         new RandomRRTournament(agents, gameType, playerCount, tournamentMode, matchups, reportPeriod,
                                 System.currentTimeMillis(), params);
@@ -161,6 +174,9 @@ public class RunGames {
                 // run tournament
                 tournament.setVerbose(verbose);
                 tournament.setResultsFile(resultsFile);
+                tournament.setNThreads(nThreads);
+                if (tournamentMode == ADAPTIVE)
+                    tournament.setSignificance(significance);
                 tournament.setRandomGameParams(getArg(args, "randomGameParams", false));
                 tournament.runTournament();
             }
@@ -29,6 +29,11 @@ public abstract class FeatureListener implements IGameListener {
         this.frequency = frequency;
     }
 
+    @Override
+    public Set<Event.GameEvent> getEventsOfInterest() {
+        return EnumSet.of(frequency, Event.GameEvent.GAME_OVER);
+    }
+
     @Override
     public void onEvent(Event event) {
         if (event.type == frequency && frequency != Event.GameEvent.GAME_OVER) {
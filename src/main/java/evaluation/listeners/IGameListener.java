@@ -10,6 +10,8 @@ import java.io.File;
 import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
 public interface IGameListener {
 
@@ -30,6 +32,15 @@ public interface IGameListener {
      */
     void allGamesFinished();
 
+    /**
+     * @return the types of event this listener does anything with. When games are played on other threads (see
+     * RoundRobinTournament.setNThreads()), only these events are recorded to be passed on to it, each with a copy of
+     * the state at the time. By default, all of them.
+     */
+    default Set<Event.GameEvent> getEventsOfInterest() {
+        return EnumSet.allOf(Event.GameEvent.class);
+    }
+
     default boolean setOutputDirectory(String... nestedDirectories) {
         return true;
     }
@@ -167,6 +167,11 @@ public class MetricsGameListener implements IGameListener {
     }
 
     /* Getters, setters */
+    @Override
+    public Set<Event.GameEvent> getEventsOfInterest() {
+        return eventsOfInterest;
+    }
+
     public final void setGame(Game game) {
         this.game = game;
     }
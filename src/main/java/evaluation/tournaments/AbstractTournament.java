@@ -16,7 +16,9 @@ public abstract class AbstractTournament {
     public enum TournamentMode {
         SELF_PLAY,
         NO_SELF_PLAY,
-        ONE_VS_ALL
+        ONE_VS_ALL,
+        // As NO_SELF_PLAY, but match-ups stop early once their winner is clear, and the games saved go to close ones
+        ADAPTIVE
     }
     // List of players taking part in the tournament
     protected List<? extends AbstractPlayer> agents;
@@ -1,13 +1,21 @@
 package evaluation.tournaments;
 
+import core.AbstractGameState;
 import core.AbstractParameters;
 import core.AbstractPlayer;
+import core.AbstractPlayerDecorator;
+import core.Game;
 import evaluation.listeners.IGameListener;
+import evaluation.metrics.Event;
 import games.GameType;
 import utilities.Pair;
 
 import java.io.FileWriter;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static core.CoreConstants.GameResult;
@@ -33,6 +41,20 @@ public class RoundRobinTournament extends AbstractTournament {
 
     private boolean listenersInitialized = false;
 
+    // Number of games played concurrently; with 1 every game is played in turn on the calling thread
+    protected int nThreads = 1;
+    private ExecutorService executor;
+    // Games submitted to the executor, in the order they were created; results are merged from the head
+    private final LinkedList<Future<GameOutcome>> pendingGames = new LinkedList<>();
+    private int gamesPlayed;
+
+    // ADAPTIVE mode: the significance level at which a match-up's winner is taken as settled, the most games any
+    // one match-up can have, and the points per seat in every game of each match-up so far
+    private double significance = 0.05;
+    private int maxGamesPerMatchUp;
+    private final Map<List<Integer>, List<double[]>> matchUpResults = new HashMap<>();
+    private int matchUpsSettled, gamesSaved, gamesReallocated;
+
 
     /**
      * Create a round robin tournament, which plays all agents against all others.
@@ -41,12 +63,12 @@ public class RoundRobinTournament extends AbstractTournament {
      * @param gameToPlay      - game to play in this tournament.
      * @param playersPerGame  - number of players per game.
      * @param gamesPerMatchUp - number of games for each combination of players.
-     * @param mode            - SELF_PLAY, NO_SELF_PLAY, or ONE_VS_ALL
+     * @param mode            - SELF_PLAY, NO_SELF_PLAY, ONE_VS_ALL, or ADAPTIVE
      */
     public RoundRobinTournament(List<? extends AbstractPlayer> agents, GameType gameToPlay, int playersPerGame,
                                 int gamesPerMatchUp, TournamentMode mode, AbstractParameters gameParams) {
         super(agents, gameToPlay, playersPerGame, gameParams);
-        if (mode == NO_SELF_PLAY && playersPerGame > this.agents.size()) {
+        if ((mode == NO_SELF_PLAY || mode == ADAPTIVE) && playersPerGame > this.agents.size()) {
             throw new IllegalArgumentException("Not enough agents to fill a match without self-play." +
                     "Either add more agents, reduce the number of players per game, or allow self-play.");
         }
@@ -56,6 +78,7 @@ public class RoundRobinTournament extends AbstractTournament {
             this.agentIDs.add(i);
 
         this.gamesPerMatchUp = gamesPerMatchUp;
+        this.maxGamesPerMatchUp = 2 * gamesPerMatchUp;
         this.tournamentMode = mode;
         this.pointsPerPlayer = new double[agents.size()];
         this.pointsPerPlayerSquared = new double[agents.size()];
@@ -74,8 +97,17 @@ public class RoundRobinTournament extends AbstractTournament {
         if (verbose)
             System.out.println("Playing " + games.getGameType().name());
         LinkedList<Integer> matchUp = new LinkedList<>();
-        createAndRunMatchUp(matchUp);
-        reportResults();
+        if (nThreads > 1)
+            executor = Executors.newFixedThreadPool(nThreads);
+        try {
+            createAndRunMatchUp(matchUp);
+            reportResults();
+        } finally {
+            if (executor != null) {
+                executor.shutdownNow();
+                executor = null;
+            }
+        }
 
         for (IGameListener listener : listeners)
             listener.allGamesFinished();
@@ -124,6 +156,8 @@ public class RoundRobinTournament extends AbstractTournament {
                     evaluateMatchUp(matchup, 1);
                 }
             }
+        } else if (tournamentMode == ADAPTIVE) {
+            runAdaptiveMatchUps();
         } else {
             // in this case we are in exhaustive mode, so we recursively construct all possible combinations of players
             if (matchUp.size() == playersPerGame) {
@@ -144,92 +178,347 @@ public class RoundRobinTournament extends AbstractTournament {
         evaluateMatchUp(agentIDs, gamesPerMatchUp);
     }
 
+    /**
+     * The same match-ups as NO_SELF_PLAY, with the same total budget of gamesPerMatchUp games each, but spent
+     * adaptively (racing). All match-ups play a first batch of a tenth of gamesPerMatchUp (at least 10) games.
+     * After each batch a match-up whose winner is settled (see isSettled()) drops out, as does one that has
+     * played maxGamesPerMatchUp games; the others play another batch, until the budget is used or none is left.
+     * So the games not needed by one-sided match-ups go to the close ones.
+     */
+    private void runAdaptiveMatchUps() {
+        List<List<Integer>> active = new ArrayList<>();
+        addAllMatchUps(new LinkedList<>(), active);
+        int budget = gamesPerMatchUp * active.size();
+        int batch = Math.min(gamesPerMatchUp, Math.max(10, gamesPerMatchUp / 10));
+        int played = 0;
+        while (!active.isEmpty() && played < budget) {
+            for (List<Integer> matchUp : active) {
+                int nGames = Math.min(Math.min(batch, budget - played), maxGamesPerMatchUp - gamesPlayedBy(matchUp));
+                if (nGames <= 0)
+                    continue;
+                evaluateMatchUp(matchUp, nGames);
+                played += nGames;
+            }
+            // the decision on each match-up needs all its results so far
+            mergeCompletedGames(true);
+            for (Iterator<List<Integer>> iterator = active.iterator(); iterator.hasNext(); ) {
+                List<Integer> matchUp = iterator.next();
+                boolean settled = isSettled(matchUp);
+                if (settled && gamesPlayedBy(matchUp) < gamesPerMatchUp)
+                    matchUpsSettled++;
+                if (settled || gamesPlayedBy(matchUp) >= maxGamesPerMatchUp)
+                    iterator.remove();
+            }
+        }
+        gamesSaved = budget - played;
+        gamesReallocated = 0;
+        for (List<double[]> results : matchUpResults.values())
+            gamesReallocated += Math.max(0, results.size() - gamesPerMatchUp);
+    }
+
+    private void addAllMatchUps(LinkedList<Integer> matchUp, List<List<Integer>> into) {
+        if (matchUp.size() == playersPerGame) {
+            into.add(new ArrayList<>(matchUp));
+            return;
+        }
+        for (Integer agentID : this.agentIDs) {
+            if (!matchUp.contains(agentID)) {
+                matchUp.add(agentID);
+                addAllMatchUps(matchUp, into);
+                matchUp.remove(agentID);
+            }
+        }
+    }
+
+    private int gamesPlayedBy(List<Integer> matchUp) {
+        List<double[]> results = matchUpResults.get(matchUp);
+        return results == null ? 0 : results.size();
+    }
+
+    /**
+     * A match-up is settled when the seat with the most points is ahead of every other seat at the configured
+     * significance. Each comparison is a one-sided test on the mean per-game difference in points, using the normal
+     * approximation, with a Bonferroni correction for the number of other seats. (The test is repeated after
+     * each batch, so the real error rate is somewhat higher.) Fewer than 10 games cannot settle a match-up; as the
+     * first batch is at least 10 games, a clear winner can be settled after it.
+     */
+    private boolean isSettled(List<Integer> matchUp) {
+        List<double[]> results = matchUpResults.get(matchUp);
+        if (results == null || results.size() < 10)
+            return false;
+        int n = results.size();
+        int seats = matchUp.size();
+        double[] total = new double[seats];
+        for (double[] points : results)
+            for (int j = 0; j < seats; j++)
+                total[j] += points[j];
+        int best = 0;
+        for (int j = 1; j < seats; j++)
+            if (total[j] > total[best])
+                best = j;
+        double z = upperNormalQuantile(significance / (seats - 1));
+        for (int j = 0; j < seats; j++) {
+            if (j == best)
+                continue;
+            double mean = (total[best] - total[j]) / n;
+            double sumSq = 0.0;
+            for (double[] points : results) {
+                double d = points[best] - points[j] - mean;
+                sumSq += d * d;
+            }
+            double stdErr = Math.sqrt(sumSq / (n - 1) / n);
+            if (mean <= z * stdErr || mean <= 0.0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return z such that P(Z > z) = p for a standard normal Z, for 0 < p < 0.5
+     * (Abramowitz and Stegun 26.2.23; the error is less than 4.5e-4)
+     */
+    private static double upperNormalQuantile(double p) {
+        double t = Math.sqrt(-2.0 * Math.log(p));
+        return t - (2.515517 + 0.802853 * t + 0.010328 * t * t) /
+                (1.0 + 1.432788 * t + 0.189269 * t * t + 0.001308 * t * t * t);
+    }
+
     /**
      * Evaluates one combination of players.
      *
      * @param agentIDs - IDs of agents participating in this run.
      */
+    /**
+     * Plays nGames games of one match-up. Each game has its own {@link Game} (and hence forward model) and its own
+     * copies of the players, taken here on the calling thread from the tournament's agents in turn, so the sequence of
+     * games (seeds and players) is the same whatever the number of threads. With more than one thread the games are
+     * played concurrently and their results merged in the order they were submitted; otherwise each is played in turn
+     * on the calling thread, with the listeners attached to it directly.
+     */
     protected void evaluateMatchUp(List<Integer> agentIDs, int nGames) {
         if (debug)
             System.out.printf("Evaluate %s at %tT%n", agentIDs.toString(), System.currentTimeMillis());
-        LinkedList<AbstractPlayer> matchUpPlayers = new LinkedList<>();
-
-        for (int agentID : agentIDs)
-            matchUpPlayers.add(this.agents.get(agentID));
-
-        if (verbose) {
-            StringBuffer sb = new StringBuffer();
-            sb.append("[");
-            for (int agentID : agentIDs)
-                sb.append(this.agents.get(agentID).toString()).append(",");
-            sb.setCharAt(sb.length() - 1, ']');
-            System.out.println(sb);
+        List<Integer> matchUp = new ArrayList<>(agentIDs);
+        AbstractParameters params = games.getGameState().getGameParameters();
+        long currentSeed = params.getRandomSeed();
+        Set<Event.GameEvent> eventsToRecord = EnumSet.noneOf(Event.GameEvent.class);
+        for (IGameListener listener : listeners)
+            eventsToRecord.addAll(listener.getEventsOfInterest());
+        for (int i = 0; i < nGames; i++) {
+            List<AbstractPlayer> matchUpPlayers = new ArrayList<>();
+            for (int agentID : matchUp)
+                matchUpPlayers.add(copyPlayer(this.agents.get(agentID)));
+            AbstractParameters gameParams = params.copy();
+            long seed = currentSeed + i + 1;
+            boolean header = verbose && i == 0;
+            if (executor == null) {
+                mergeOutcome(playGame(matchUp, matchUpPlayers, gameParams, seed, header, null));
+            } else {
+                pendingGames.add(executor.submit(() -> playGame(matchUp, matchUpPlayers, gameParams, seed, header, eventsToRecord)));
+                mergeCompletedGames(false);
+            }
         }
+        // The next match-up carries on from the last seed used
+        params.setRandomSeed(currentSeed + nGames);
+        matchUpsRun++;
+    }
 
-
-        for (IGameListener listener : listeners) {
-            games.addListener(listener);
+    /**
+     * Plays one game. On a worker thread (eventsToRecord not null), if there are listeners, the events of the types
+     * they are interested in are recorded (with a copy of the state at the time), so that they can be passed on to
+     * the listeners on the main thread when the result is merged. On the calling thread the listeners are attached
+     * to the game itself.
+     */
+    private GameOutcome playGame(List<Integer> agentIDs, List<AbstractPlayer> players, AbstractParameters params,
+                                 long seed, boolean header, Set<Event.GameEvent> eventsToRecord) {
+        GameOutcome outcome = new GameOutcome(agentIDs, eventsToRecord);
+        if (header)
+            outcome.output.add(matchUpDescription(agentIDs));
+        if (randomGameParams) {
+            params.randomize();
+            outcome.output.add("Game parameters: " + params);
+        }
+        Game game = games.getGameType().createGameInstance(playersPerGame, seed, params);
+        game.reset(players, seed);
+        if (eventsToRecord == null) {
+            initListeners(game);
+            for (IGameListener listener : listeners)
+                game.addListener(listener);
+        } else if (!listeners.isEmpty()) {
+            game.addListener(outcome);
         }
+        game.run();
+        outcome.game = game;
+        outcome.results = game.getGameState().getPlayerResults();
+        outcome.ordinals = new int[players.size()];
+        for (int j = 0; j < players.size(); j++)
+            outcome.ordinals[j] = game.getGameState().getOrdinalPosition(j);
+        if (verbose)
+            outcome.output.add(resultDescription(outcome.results));
+        game.clearListeners();
+        return outcome;
+    }
 
+    /**
+     * @return a copy of one of the tournament's agents for a single game, with the same name and decorators
+     */
+    private static AbstractPlayer copyPlayer(AbstractPlayer prototype) {
+        AbstractPlayer retValue = prototype.copy();
+        retValue.setName(prototype.toString());
+        retValue.clearDecorators();
+        for (AbstractPlayerDecorator decorator : prototype.getDecorators())
+            retValue.addDecorator(decorator);
+        return retValue;
+    }
 
-        // Run the game N = gamesPerMatchUp times with these players
-        long currentSeed = games.getGameState().getGameParameters().getRandomSeed();
-        for (int i = 0; i < nGames; i++) {
+    private void initListeners(Game game) {
+        if (!listenersInitialized) {
+            for (IGameListener gameTracker : listeners)
+                gameTracker.init(game);
+            listenersInitialized = true;
+        }
+    }
 
-            if (randomGameParams)
-                games.getGameState().getGameParameters().randomize();
+    /**
+     * Merges the results of submitted games, strictly in submission order. Games at the head of the queue are
+     * merged as soon as they are finished; we also wait for the head when too many games are queued, so that the
+     * memory used by finished-but-unmerged games stays bounded.
+     *
+     * @param all - if true, waits for and merges every pending game
+     */
+    private void mergeCompletedGames(boolean all) {
+        while (!pendingGames.isEmpty() &&
+                (all || pendingGames.size() > 4 * nThreads || pendingGames.peekFirst().isDone())) {
+            GameOutcome outcome;
+            try {
+                outcome = pendingGames.removeFirst().get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for tournament games", e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException("Tournament game failed", e.getCause());
+            }
+            mergeOutcome(outcome);
+        }
+    }
 
-            games.reset(matchUpPlayers, currentSeed + i + 1);
-            if (!listenersInitialized) {
-                for (IGameListener gameTracker : listeners) {
-                    gameTracker.init(games);
-                }
-                listenersInitialized = true;
+    /**
+     * Prints the output of a finished game, passes on any events recorded for the listeners, and records its result
+     */
+    private void mergeOutcome(GameOutcome outcome) {
+        for (String line : outcome.output)
+            System.out.println(line);
+        if (outcome.eventsToRecord != null && !listeners.isEmpty()) {
+            initListeners(outcome.game);
+            for (IGameListener gameTracker : listeners) {
+                gameTracker.setGame(outcome.game);
+                for (Event event : outcome.events)
+                    gameTracker.onEvent(event);
             }
+        }
+        recordResult(outcome.agentIDs, outcome.results, outcome.ordinals);
+    }
 
-            // Randomize parameters
-            if (randomGameParams) {
-                games.getGameState().getGameParameters().randomize();
-                System.out.println("Game parameters: " + games.getGameState().getGameParameters());
+    private void recordResult(List<Integer> agentIDs, GameResult[] results, int[] ordinals) {
+        gamesPlayed++;
+        if (tournamentMode == ADAPTIVE) {
+            double[] points = new double[agentIDs.size()];
+            int draws = 0;
+            for (GameResult result : results)
+                if (result == GameResult.DRAW_GAME) draws++;
+            for (int j = 0; j < points.length; j++) {
+                if (results[j] == GameResult.WIN_GAME) points[j] = 1.0;
+                if (results[j] == GameResult.DRAW_GAME) points[j] = 1.0 / draws;
             }
-            games.run();  // Always running tournaments without visuals
-            GameResult[] results = games.getGameState().getPlayerResults();
-
-            int numDraws = 0;
-            for (int j = 0; j < matchUpPlayers.size(); j++) {
-                int ordinalPos = games.getGameState().getOrdinalPosition(j);
-                rankPerPlayer[agentIDs.get(j)] += ordinalPos;
-                gamesPerPlayer[agentIDs.get(j)] += 1;
-                rankPerPlayerSquared[agentIDs.get(j)] += ordinalPos * ordinalPos;
-                if (results[j] == GameResult.WIN_GAME) {
-                    pointsPerPlayer[agentIDs.get(j)] += 1;
-                    pointsPerPlayerSquared[agentIDs.get(j)] += 1;
-                }
-                if (results[j] == GameResult.DRAW_GAME)
-                    numDraws++;
+            matchUpResults.computeIfAbsent(new ArrayList<>(agentIDs), k -> new ArrayList<>()).add(points);
+        }
+        int numDraws = 0;
+        for (int j = 0; j < agentIDs.size(); j++) {
+            int ordinalPos = ordinals[j];
+            rankPerPlayer[agentIDs.get(j)] += ordinalPos;
+            gamesPerPlayer[agentIDs.get(j)] += 1;
+            rankPerPlayerSquared[agentIDs.get(j)] += ordinalPos * ordinalPos;
+            if (results[j] == GameResult.WIN_GAME) {
+                pointsPerPlayer[agentIDs.get(j)] += 1;
+                pointsPerPlayerSquared[agentIDs.get(j)] += 1;
             }
+            if (results[j] == GameResult.DRAW_GAME)
+                numDraws++;
+        }
 
-            if (numDraws > 0) {
-                double pointsPerDraw = 1.0 / numDraws;
-                for (int j = 0; j < matchUpPlayers.size(); j++) {
-                    if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDs.get(j)] += pointsPerDraw;
-                    if (results[j] == GameResult.DRAW_GAME)
-                        pointsPerPlayerSquared[agentIDs.get(j)] += pointsPerDraw * pointsPerDraw;
-                }
+        if (numDraws > 0) {
+            double pointsPerDraw = 1.0 / numDraws;
+            for (int j = 0; j < agentIDs.size(); j++) {
+                if (results[j] == GameResult.DRAW_GAME) pointsPerPlayer[agentIDs.get(j)] += pointsPerDraw;
+                if (results[j] == GameResult.DRAW_GAME)
+                    pointsPerPlayerSquared[agentIDs.get(j)] += pointsPerDraw * pointsPerDraw;
             }
+        }
+    }
 
-            if (verbose) {
-                StringBuffer sb = new StringBuffer();
-                sb.append("[");
-                for (int j = 0; j < matchUpPlayers.size(); j++)
-                    sb.append(results[j]).append(",");
-                sb.setCharAt(sb.length() - 1, ']');
-                System.out.println(sb);
-            }
+    private String matchUpDescription(List<Integer> agentIDs) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (int agentID : agentIDs)
+            sb.append(this.agents.get(agentID).toString()).append(",");
+        sb.setCharAt(sb.length() - 1, ']');
+        return sb.toString();
+    }
+
+    private String resultDescription(GameResult[] results) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("[");
+        for (GameResult result : results)
+            sb.append(result).append(",");
+        sb.setCharAt(sb.length() - 1, ']');
+        return sb.toString();
+    }
+
+    /**
+     * Result of one game played on a worker thread. While the game runs it is also the listener that records
+     * the events to be replayed to the tournament listeners. Only the events given are recorded, as each needs a copy
+     * of the state. During the replay, getGame() on a listener gives the finished game; the state at the time of an
+     * event is the one in the event.
+     */
+    private static class GameOutcome implements IGameListener {
+        final List<Integer> agentIDs;
+        final Set<Event.GameEvent> eventsToRecord;
+        final List<String> output = new ArrayList<>();
+        final List<Event> events = new ArrayList<>();
+        Game game;
+        GameResult[] results;
+        int[] ordinals;
+
+        GameOutcome(List<Integer> agentIDs, Set<Event.GameEvent> eventsToRecord) {
+            this.agentIDs = agentIDs;
+            this.eventsToRecord = eventsToRecord;
+        }
 
+        @Override
+        public void onEvent(Event event) {
+            if (!eventsToRecord.contains(event.type))
+                return;
+            // The state keeps changing after the event, so the listeners get a snapshot of it (apart from at the end)
+            AbstractGameState state = event.state;
+            if (state != null && event.type != Event.GameEvent.GAME_OVER)
+                state = state.copy();
+            events.add(Event.createEvent(event.type, state, event.action == null ? null : event.action.copy(),
+                    event.playerID));
+        }
+
+        @Override
+        public void allGamesFinished() {
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
         }
-        games.clearListeners();
-        matchUpsRun++;
     }
 
 
@@ -257,8 +546,9 @@ public class RoundRobinTournament extends AbstractTournament {
     }
 
     protected void reportResults() {
+        mergeCompletedGames(true);
         calculateFinalResults();
-        int gameCounter = (gamesPerMatchUp * matchUpsRun);
+        int gameCounter = tournamentMode == ADAPTIVE ? gamesPlayed : (gamesPerMatchUp * matchUpsRun);
         boolean toFile = !resultsFile.equals("");
         ArrayList<String> dataDump = new ArrayList<>();
         dataDump.add(name + "\n");
@@ -282,6 +572,15 @@ public class RoundRobinTournament extends AbstractTournament {
             if (verbose) System.out.print(str);
         }
 
+        if (tournamentMode == ADAPTIVE) {
+            String str = String.format("Adaptive: %d of %d match-ups settled early; %d games saved from a budget of %d, " +
+                            "and %d games beyond %d per match-up given to close match-ups\n",
+                    matchUpsSettled, matchUpResults.size(), gamesSaved, gamesPerMatchUp * matchUpResults.size(),
+                    gamesReallocated, gamesPerMatchUp);
+            if (toFile) dataDump.add(str);
+            if (verbose) System.out.print(str);
+        }
+
         String str = "---- Ranking ---- \n";
         if (toFile) dataDump.add(str);
         if (verbose) System.out.print(str);
@@ -341,6 +640,48 @@ public class RoundRobinTournament extends AbstractTournament {
         this.verbose = verbose;
     }
 
+    /**
+     * @param nThreads - number of games to play concurrently. Whatever the number, each game is played with its own
+     *                 copies of the players and forward model, which are taken from the tournament's agents in turn;
+     *                 so the results do not depend on it.
+     */
+    public void setNThreads(int nThreads) {
+        if (nThreads < 1)
+            throw new IllegalArgumentException("nThreads must be at least 1");
+        this.nThreads = nThreads;
+    }
+
+    /**
+     * @param significance - for ADAPTIVE mode, the significance level at which a match-up's winner is settled
+     */
+    public void setSignificance(double significance) {
+        if (significance <= 0.0 || significance >= 0.5)
+            throw new IllegalArgumentException("significance must be in (0, 0.5)");
+        this.significance = significance;
+    }
+
+    /**
+     * @param maxGamesPerMatchUp - for ADAPTIVE mode, the most games a close match-up can be given.
+     *                           Defaults to twice gamesPerMatchUp.
+     */
+    public void setMaxGamesPerMatchUp(int maxGamesPerMatchUp) {
+        this.maxGamesPerMatchUp = maxGamesPerMatchUp;
+    }
+
+    /**
+     * @return the number of games played in the tournament so far
+     */
+    public int getGamesPlayed() {
+        return gamesPlayed;
+    }
+
+    /**
+     * @return for ADAPTIVE mode, the number of games of the budget (gamesPerMatchUp for each match-up) not played
+     */
+    public int getGamesSaved() {
+        return gamesSaved;
+    }
+
     public void setRandomGameParams(boolean randomGameParams) {
         this.randomGameParams = randomGameParams;
     }
@@ -2,6 +2,8 @@ package games;
 
 import core.*;
 import core.rules.AbstractRuleBasedForwardModel;
+import games.Hearts.components.HeartsBitboardForwardModel;
+import games.Hearts.components.HeartsBitboardGameState;
 import games.Hearts.components.HeartsForwardModel;
 import games.Hearts.components.HeartsGameState;
 import games.Hearts.components.HeartsParameters;
@@ -179,7 +181,11 @@ public enum GameType {
 
     Hearts(3,7,Arrays.asList(Cards, ComicBook, Number, MoviesTVRadio, Bluffing),
             Arrays.asList(HandManagement, LoseATurn, TakeThat),
-            HeartsGameState.class, HeartsForwardModel.class, HeartsParameters.class, HeartsGUIManager.class);
+            HeartsGameState.class, HeartsForwardModel.class, HeartsParameters.class, HeartsGUIManager.class),
+
+    HeartsBitboard(3,7,Arrays.asList(Cards, ComicBook, Number, MoviesTVRadio, Bluffing),
+            Arrays.asList(HandManagement, LoseATurn, TakeThat),
+            HeartsBitboardGameState.class, HeartsBitboardForwardModel.class, HeartsParameters.class, null);
 
 
     // Core classes where the game is defined
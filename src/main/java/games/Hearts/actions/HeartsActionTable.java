@@ -0,0 +1,49 @@
+package games.Hearts.actions;
+
+import core.components.FrenchCard;
+
+/**
+ * <p>Interned {@link Play} and {@link Pass} actions for every (player, card) pair, indexed by player and by
+ * {@link FrenchCard#ordinal()}.</p>
+ * <p>Both actions are immutable and hold the canonical {@link FrenchCard}s, so a single table is shared by all games;
+ * computing the legal actions then only looks entries up instead of allocating a new action per card.</p>
+ */
+public class HeartsActionTable {
+
+    public static final int MAX_PLAYERS = 7;
+
+    private static final Play[][] plays = new Play[MAX_PLAYERS][FrenchCard.N_CARDS];
+    private static final Pass[][] passes = new Pass[MAX_PLAYERS][FrenchCard.N_CARDS];
+
+    static {
+        for (int c = 0; c < FrenchCard.N_CARDS; c++) {
+            for (int p = 0; p < MAX_PLAYERS; p++) {
+                plays[p][c] = new Play(p, FrenchCard.of(c));
+                passes[p][c] = new Pass(p, FrenchCard.of(c));
+            }
+        }
+    }
+
+    private HeartsActionTable() {
+    }
+
+    public static Play play(int player, int cardOrdinal) {
+        return plays[player][cardOrdinal];
+    }
+
+    public static Pass pass(int player, int cardOrdinal) {
+        return passes[player][cardOrdinal];
+    }
+
+    /**
+     * Cards are equal by component ID, so a card that is not the canonical instance (e.g. one created directly
+     * rather than taken from {@link FrenchCard#generateDeck}) gets a new action of its own.
+     */
+    public static Play play(int player, FrenchCard card) {
+        return card.isCanonical() ? plays[player][card.ordinal()] : new Play(player, card);
+    }
+
+    public static Pass pass(int player, FrenchCard card) {
+        return card.isCanonical() ? passes[player][card.ordinal()] : new Pass(player, card);
+    }
+}
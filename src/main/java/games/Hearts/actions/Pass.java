@@ -2,9 +2,9 @@ package games.Hearts.actions;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
-import core.components.Deck;
 import core.components.FrenchCard;
 import core.interfaces.IPrintable;
+import games.Hearts.components.HeartsBitboardGameState;
 import games.Hearts.components.HeartsGameState;
 
 import java.util.Objects;
@@ -21,19 +21,18 @@ public class Pass extends AbstractAction implements IPrintable {
 
     @Override
     public boolean execute(AbstractGameState gameState) {
+        if (gameState instanceof HeartsBitboardGameState)
+            return ((HeartsBitboardGameState) gameState).removeFromHand(playerID, card1);
         HeartsGameState hgs = (HeartsGameState) gameState;
         if (playerID >= 0 && playerID < hgs.getPlayerDecks().size()) {
-            Deck<FrenchCard> playerHand = hgs.getPlayerDecks().get(playerID);
-            if (playerHand.getComponents().remove(card1)) {
-                return true;
-            }
+            return hgs.removeFromHand(playerID, card1);
         }
         return false;
     }
 
     @Override
     public AbstractAction copy() {
-        return new Pass(playerID, card1.copy());
+        return this; // immutable
     }
 
     @Override
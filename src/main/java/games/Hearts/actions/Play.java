@@ -2,9 +2,9 @@ package games.Hearts.actions;
 
 import core.AbstractGameState;
 import core.actions.AbstractAction;
-import core.components.Deck;
 import core.components.FrenchCard;
 import core.interfaces.IPrintable;
+import games.Hearts.components.HeartsBitboardGameState;
 import games.Hearts.components.HeartsGameState;
 
 import java.util.Objects;
@@ -22,10 +22,11 @@ public class Play extends AbstractAction implements IPrintable {
 
     @Override
     public boolean execute(AbstractGameState gameState) {
+        if (gameState instanceof HeartsBitboardGameState)
+            return ((HeartsBitboardGameState) gameState).removeFromHand(playerID, card);
         HeartsGameState hgs = (HeartsGameState) gameState;
         if (playerID >= 0 && playerID < hgs.getPlayerDecks().size()) {
-            Deck<FrenchCard> playerHand = hgs.getPlayerDecks().get(playerID);
-            if (playerHand.getComponents().remove(card)) {
+            if (hgs.removeFromHand(playerID, card)) {
                 hgs.getChosenCards().put(playerID, card);
                 return true;
             }
@@ -35,7 +36,7 @@ public class Play extends AbstractAction implements IPrintable {
 
     @Override
     public AbstractAction copy() {
-        return new Play(playerID, card.copy());
+        return this; // immutable
     }
 
     @Override
@@ -0,0 +1,275 @@
+package games.Hearts.components;
+
+import core.AbstractGameState;
+import core.StandardForwardModel;
+import core.actions.AbstractAction;
+import core.components.FrenchCard;
+import games.Hearts.actions.HeartsActionTable;
+import games.Hearts.actions.Pass;
+import games.Hearts.actions.Play;
+
+import java.util.*;
+
+import static core.CoreConstants.GameResult.*;
+import static games.Hearts.components.HeartsBitboardGameState.*;
+
+/**
+ * <p>Forward model for {@link HeartsBitboardGameState}. It implements exactly the rules of {@link HeartsForwardModel},
+ * but all hand, trick and scoring logic is done with bit operations over card masks.</p>
+ */
+public class HeartsBitboardForwardModel extends StandardForwardModel {
+
+    // Card indices in the order they sit in the Deck built by FrenchCard.generateDeck() (Deck.add() inserts at the
+    // top, so this is the reverse of creation order), so that dealing from the same seed matches HeartsForwardModel
+    static final int[] deckOrder = new int[N_CARDS];
+    // Cards taken out of the deck for each player count (index = number of players)
+    static final long[] removedCards = new long[8];
+    static final int[] cardsPerPlayer = {0, 0, 0, 17, 13, 10, 8, 7};
+
+    static {
+        int i = N_CARDS;
+        for (FrenchCard.Suite suite : FrenchCard.Suite.values()) {
+            for (FrenchCard.FrenchCardType type : FrenchCard.FrenchCardType.values()) {
+                if (type == FrenchCard.FrenchCardType.Number) {
+                    for (int number : FrenchCard.numbers)
+                        deckOrder[--i] = cardIndex(suite, number);
+                } else {
+                    deckOrder[--i] = cardIndex(suite, type.getNumber());
+                }
+            }
+        }
+        long twoOfDiamonds = 1L << cardIndex(FrenchCard.Suite.Diamonds, 2);
+        removedCards[3] = twoOfDiamonds;
+        removedCards[5] = twoOfDiamonds | 1L << cardIndex(FrenchCard.Suite.Spades, 2);
+        removedCards[6] = twoOfDiamonds | 1L << cardIndex(FrenchCard.Suite.Diamonds, 3)
+                | 1L << cardIndex(FrenchCard.Suite.Clubs, 3) | 1L << cardIndex(FrenchCard.Suite.Clubs, 4);
+        removedCards[7] = twoOfDiamonds | 1L << cardIndex(FrenchCard.Suite.Diamonds, 3)
+                | 1L << cardIndex(FrenchCard.Suite.Clubs, 3);
+    }
+
+    @Override
+    protected void _setup(AbstractGameState firstState) {
+        HeartsBitboardGameState hgs = (HeartsBitboardGameState) firstState;
+        Arrays.fill(hgs.playerPoints, 0);
+        hgs.resetRandomStreams();
+        _setupRound(hgs);
+    }
+
+    public void _setupRound(HeartsBitboardGameState hgs) {
+        hgs.setGamePhase(HeartsGameState.Phase.PASSING);
+        hgs.setFirstPlayer(0);
+        Arrays.fill(hgs.pendingPasses, 0L);
+        hgs.firstTurn = true;
+        hgs.playedCards = 0L;
+
+        int[] deck = deckOrder.clone();
+        shuffle(deck, deck.length, hgs.nextDealRandom());
+
+        // Remove the cards not used at this player count, keeping the order of the rest
+        long removed = removedCards[hgs.getNPlayers()];
+        int deckSize = 0;
+        for (int card : deck) {
+            if ((removed & (1L << card)) == 0)
+                deck[deckSize++] = card;
+        }
+
+        int next = 0;
+        for (int p = 0; p < hgs.getNPlayers(); p++) {
+            long hand = 0L;
+            for (int c = 0; c < cardsPerPlayer[hgs.getNPlayers()]; c++)
+                hand |= 1L << deck[next++];
+            hgs.playerHands[p] = hand;
+        }
+        long rest = 0L;
+        while (next < deckSize)
+            rest |= 1L << deck[next++];
+        hgs.drawPile = rest;
+    }
+
+    @Override
+    protected void _afterAction(AbstractGameState gameState, AbstractAction action) {
+        HeartsBitboardGameState hgs = (HeartsBitboardGameState) gameState;
+
+        if (hgs.getGamePhase() == HeartsGameState.Phase.PASSING) {
+            if (!(action instanceof Pass))
+                throw new IllegalArgumentException("Invalid action type during PASSING phase.");
+            Pass pass = (Pass) action;
+            int player = pass.playerID;
+            long bit = 1L << cardIndex(pass.card1);
+            hgs.playerHands[player] &= ~bit;
+            hgs.pendingPasses[player] |= bit;
+
+            if (++hgs.playerPassCounter[player] == 3) {
+                hgs.playerPassCounter[player] = 0;
+                if (player == hgs.getNPlayers() - 1) {
+                    hgs.setGamePhase(HeartsGameState.Phase.PLAYING);
+                    int passDirection;
+                    switch (hgs.currentRound) {
+                        case 1:  // To the left
+                            passDirection = 1;
+                            break;
+                        case 2:  // To the right
+                            passDirection = hgs.getNPlayers() - 1;
+                            break;
+                        case 3:  // Across the table
+                            passDirection = hgs.getNPlayers() / 2;
+                            break;
+                        case 4:  // No passing
+                            passDirection = 0;
+                            break;
+                        default:
+                            throw new IllegalStateException("Unexpected value: " + hgs.currentRound);
+                    }
+                    for (int i = 0; i < hgs.getNPlayers(); i++) {
+                        hgs.playerHands[(i + passDirection) % hgs.getNPlayers()] |= hgs.pendingPasses[i];
+                        hgs.pendingPasses[i] = 0L;
+                    }
+                    // The player holding the 2 of clubs leads the first trick
+                    for (int i = 0; i < hgs.getNPlayers(); i++) {
+                        if ((hgs.playerHands[i] & (1L << TWO_OF_CLUBS)) != 0) {
+                            hgs.setFirstPlayer(i);
+                            return;
+                        }
+                    }
+                }
+                endPlayerTurn(hgs);
+            }
+            return;
+        }
+
+        hgs.firstTurn = false;
+        if (action instanceof Play) {
+            Play play = (Play) action;
+            int player = play.playerID;
+            int card = cardIndex(play.card);
+            if (hgs.trickSize == 0)
+                hgs.leadSuit = suitOf(card);
+            hgs.trickCards[hgs.trickSize] = card;
+            hgs.trickPlayers[hgs.trickSize] = player;
+            hgs.trickSize++;
+            if (suitOf(card) == FrenchCard.Suite.Hearts.ordinal())
+                hgs.heartsBroken = true;
+            long bit = 1L << card;
+            hgs.playerHands[player] &= ~bit;
+            hgs.playedCards |= bit;
+
+            // Score any tricks this player has won since they last played
+            hgs.playerPoints[player] += penaltyPoints(hgs.trickPiles[player]);
+            hgs.trickPiles[player] = 0L;
+        }
+
+        if (hgs.trickSize == hgs.getNPlayers()) {
+            _endTurn(hgs);
+            startNewTrick(hgs);
+            return;
+        }
+        endPlayerTurn(hgs);
+    }
+
+    public void _endTurn(HeartsBitboardGameState hgs) {
+        int highestCard = -1;
+        int winningPlayer = -1;
+        long trick = 0L;
+        for (int i = 0; i < hgs.trickSize; i++) {
+            int card = hgs.trickCards[i];
+            trick |= 1L << card;
+            if (suitOf(card) == hgs.leadSuit && card > highestCard) {
+                highestCard = card;
+                winningPlayer = hgs.trickPlayers[i];
+            }
+        }
+
+        if (winningPlayer != -1) {
+            hgs.trickPiles[winningPlayer] |= trick;
+            hgs.playerTricksTaken[winningPlayer]++;
+            hgs.setFirstPlayer(winningPlayer);
+            startNewTrick(hgs);
+        }
+
+        boolean handsEmpty = true;
+        for (long hand : hgs.playerHands) {
+            if (hand != 0) {
+                handsEmpty = false;
+                break;
+            }
+        }
+        if (handsEmpty) {
+            boolean scoreAbove100 = false;
+            for (int points : hgs.playerPoints) {
+                if (points >= 100) {
+                    scoreAbove100 = true;
+                    break;
+                }
+            }
+            if (scoreAbove100) {
+                endGame(hgs);
+            } else {
+                hgs.currentRound = hgs.currentRound == 4 ? 1 : hgs.currentRound + 1;
+                _setupRound(hgs);
+            }
+        }
+    }
+
+    private void startNewTrick(HeartsBitboardGameState hgs) {
+        hgs.trickSize = 0;
+        hgs.leadSuit = -1;
+    }
+
+    @Override
+    protected void endGame(AbstractGameState gs) {
+        gs.setGameStatus(GAME_END);
+        double minScore = Double.MAX_VALUE;
+        for (int i = 0; i < gs.getNPlayers(); i++)
+            minScore = Math.min(minScore, gs.getGameScore(i));
+        int winners = 0;
+        for (int i = 0; i < gs.getNPlayers(); i++) {
+            if (gs.getGameScore(i) == minScore)
+                winners++;
+        }
+        for (int i = 0; i < gs.getNPlayers(); i++) {
+            if (gs.getGameScore(i) != minScore)
+                gs.setPlayerResult(LOSE_GAME, i);
+            else
+                gs.setPlayerResult(winners == 1 ? WIN_GAME : DRAW_GAME, i);
+        }
+    }
+
+    @Override
+    protected List<AbstractAction> _computeAvailableActions(AbstractGameState gameState) {
+        List<AbstractAction> actions = new ArrayList<>();
+        fillAvailableActions((HeartsBitboardGameState) gameState, actions);
+        return actions;
+    }
+
+    /**
+     * Clears the buffer and fills it with the (interned) actions available to the current player.
+     */
+    public void fillAvailableActions(HeartsBitboardGameState hgs, List<AbstractAction> buffer) {
+        buffer.clear();
+        int player = hgs.getCurrentPlayer();
+        long hand = hgs.playerHands[player];
+
+        if (hgs.getGamePhase() == HeartsGameState.Phase.PASSING) {
+            for (long m = hand; m != 0; m &= m - 1)
+                buffer.add(HeartsActionTable.pass(player, Long.numberOfTrailingZeros(m)));
+            return;
+        }
+
+        for (long m = legalPlays(hgs, hand); m != 0; m &= m - 1)
+            buffer.add(HeartsActionTable.play(player, Long.numberOfTrailingZeros(m)));
+    }
+
+    /**
+     * @return the subset of the hand that may legally be played in the current trick
+     */
+    static long legalPlays(HeartsBitboardGameState hgs, long hand) {
+        if (hgs.firstTurn && (hand & (1L << TWO_OF_CLUBS)) != 0)
+            return 1L << TWO_OF_CLUBS;
+        long leadSuitCards = hgs.leadSuit == -1 ? 0L : hand & suitMask(hgs.leadSuit);
+        if (leadSuitCards != 0)
+            return leadSuitCards;
+        if (hgs.heartsBroken || (hand & ~HEARTS_MASK) == 0)
+            return hand;
+        return hand & ~HEARTS_MASK;
+    }
+}
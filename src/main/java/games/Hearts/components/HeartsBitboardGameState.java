@@ -0,0 +1,366 @@
+package games.Hearts.components;
+
+import core.AbstractGameState;
+import core.AbstractParameters;
+import core.components.Component;
+import core.components.FrenchCard;
+import games.GameType;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * <p>Compact version of {@link HeartsGameState} for use in simulation-heavy settings (e.g. MCTS rollouts).</p>
+ * <p>Every set of cards (hands, pending passes, trick piles, the cards played so far in this hand) is held as a
+ * 64-bit mask over the 52 card indices, and scores and tricks are held in primitive arrays. Copying the state is
+ * therefore a handful of array clones, and applying an action never allocates.</p>
+ * <p>A card index is the card's {@link FrenchCard#ordinal()}, {@code suite.ordinal() * 13 + (number - 2)}, so each
+ * suit occupies 13 consecutive bits, with the 2 at the lowest bit and the Ace at the highest.</p>
+ * <p>The rules (including the order in which points are scored) are exactly those of {@link HeartsForwardModel},
+ * and the same {@link games.Hearts.actions.Play} and {@link games.Hearts.actions.Pass} actions are used.</p>
+ */
+public class HeartsBitboardGameState extends AbstractGameState {
+
+    public static final int N_CARDS = FrenchCard.N_CARDS;
+    public static final int CARDS_PER_SUIT = FrenchCard.CARDS_PER_SUIT;
+    public static final long SUIT_MASK = (1L << CARDS_PER_SUIT) - 1;
+    public static final long HEARTS_MASK = SUIT_MASK << (FrenchCard.Suite.Hearts.ordinal() * CARDS_PER_SUIT);
+    public static final int QUEEN_OF_SPADES = cardIndex(FrenchCard.Suite.Spades, 12);
+    public static final int TWO_OF_CLUBS = cardIndex(FrenchCard.Suite.Clubs, 2);
+
+    long[] playerHands;
+    long[] pendingPasses;
+    // Cards won in tricks that have not yet been scored (see HeartsGameState.calculatePoints)
+    long[] trickPiles;
+    // All cards played to a trick so far in this hand
+    long playedCards;
+    // Cards not dealt this hand
+    long drawPile;
+
+    // The trick in progress, in order of play
+    int[] trickCards;
+    int[] trickPlayers;
+    int trickSize;
+    int leadSuit = -1;
+
+    int[] playerPoints;
+    int[] playerTricksTaken;
+    int[] playerPassCounter;
+
+    boolean heartsBroken;
+    boolean firstTurn = true;
+    int currentRound;
+
+    // Random streams, as in HeartsGameState
+    long dealSeed;
+    Random redeterminisationRnd;
+
+    public HeartsBitboardGameState(AbstractParameters gameParameters, int nPlayers) {
+        super(gameParameters, nPlayers);
+        playerHands = new long[nPlayers];
+        pendingPasses = new long[nPlayers];
+        trickPiles = new long[nPlayers];
+        trickCards = new int[nPlayers];
+        trickPlayers = new int[nPlayers];
+        playerPoints = new int[nPlayers];
+        playerTricksTaken = new int[nPlayers];
+        playerPassCounter = new int[nPlayers];
+        currentRound = 1;
+        resetRandomStreams();
+    }
+
+    void resetRandomStreams() {
+        dealSeed = gameParameters.getRandomSeed();
+        redeterminisationRnd = new Random(gameParameters.getRandomSeed());
+    }
+
+    /**
+     * Advances the per-game RNG stream by one deal, in step with {@link HeartsGameState#nextDealRandom()}.
+     */
+    Random nextDealRandom() {
+        dealSeed = dealSeed * 6364136223846793005L + 1442695040888963407L;
+        return new Random(dealSeed);
+    }
+
+    @Override
+    protected GameType _getGameType() {
+        return GameType.HeartsBitboard;
+    }
+
+    /**
+     * There are no Components in this state; cards are only materialised as FrenchCards in actions.
+     */
+    @Override
+    protected List<Component> _getAllComponents() {
+        return new ArrayList<>();
+    }
+
+    public static int cardIndex(FrenchCard.Suite suite, int number) {
+        return FrenchCard.ordinal(suite, number);
+    }
+
+    public static int cardIndex(FrenchCard card) {
+        return card.ordinal();
+    }
+
+    public static FrenchCard card(int cardIndex) {
+        return FrenchCard.of(cardIndex);
+    }
+
+    public static int suitOf(int cardIndex) {
+        return cardIndex / CARDS_PER_SUIT;
+    }
+
+    public static int numberOf(int cardIndex) {
+        return cardIndex % CARDS_PER_SUIT + 2;
+    }
+
+    public static long suitMask(int suit) {
+        return SUIT_MASK << (suit * CARDS_PER_SUIT);
+    }
+
+    /**
+     * @return the penalty points held in a set of cards: one per heart, and 13 for the Queen of Spades
+     */
+    public static int penaltyPoints(long cardMask) {
+        int points = Long.bitCount(cardMask & HEARTS_MASK);
+        if ((cardMask & (1L << QUEEN_OF_SPADES)) != 0)
+            points += 13;
+        return points;
+    }
+
+    /**
+     * @return the number of cards in the set with a number strictly above the threshold
+     */
+    public static int countAbove(long cardMask, double threshold) {
+        int lowest = Math.max(0, (int) Math.floor(threshold) - 1);  // bit offset within a suit of the first card above
+        if (lowest >= CARDS_PER_SUIT) return 0;
+        long perSuit = SUIT_MASK & ~((1L << lowest) - 1);
+        long above = perSuit | perSuit << CARDS_PER_SUIT | perSuit << (2 * CARDS_PER_SUIT) | perSuit << (3 * CARDS_PER_SUIT);
+        return Long.bitCount(cardMask & above);
+    }
+
+    /**
+     * Removes a card from a player's hand. Called by the actions on execution.
+     *
+     * @return true if the player held the card
+     */
+    public boolean removeFromHand(int playerId, FrenchCard card) {
+        long bit = 1L << cardIndex(card);
+        if ((playerHands[playerId] & bit) == 0)
+            return false;
+        playerHands[playerId] &= ~bit;
+        return true;
+    }
+
+    public long getPlayerHand(int playerId) {
+        return playerHands[playerId];
+    }
+
+    public void setPlayerHand(int playerId, long cardMask) {
+        playerHands[playerId] = cardMask;
+    }
+
+    public long getTrickPile(int playerId) {
+        return trickPiles[playerId];
+    }
+
+    public long getPendingPasses(int playerId) {
+        return pendingPasses[playerId];
+    }
+
+    public long getPlayedCards() {
+        return playedCards;
+    }
+
+    public long getDrawPile() {
+        return drawPile;
+    }
+
+    public int getTrickSize() {
+        return trickSize;
+    }
+
+    public int getTrickCard(int position) {
+        return trickCards[position];
+    }
+
+    public int getTrickPlayer(int position) {
+        return trickPlayers[position];
+    }
+
+    public FrenchCard.Suite getLeadSuit() {
+        return leadSuit == -1 ? null : FrenchCard.Suite.values()[leadSuit];
+    }
+
+    public int getPlayerPoints(int playerId) {
+        return playerPoints[playerId];
+    }
+
+    public void setPlayerPoints(int playerId, int points) {
+        playerPoints[playerId] = points;
+    }
+
+    public int getPlayerTricksTaken(int playerId) {
+        return playerTricksTaken[playerId];
+    }
+
+    public boolean isHeartsBroken() {
+        return heartsBroken;
+    }
+
+    public boolean isFirstTurn() {
+        return firstTurn;
+    }
+
+    public int getCurrentRound() {
+        return currentRound;
+    }
+
+    @Override
+    protected HeartsBitboardGameState _copy(int playerId) {
+        HeartsBitboardGameState copy = new HeartsBitboardGameState(gameParameters.copy(), getNPlayers());
+        copy.playerHands = playerHands.clone();
+        copy.pendingPasses = pendingPasses.clone();
+        copy.trickPiles = trickPiles.clone();
+        copy.playedCards = playedCards;
+        copy.drawPile = drawPile;
+        copy.trickCards = trickCards.clone();
+        copy.trickPlayers = trickPlayers.clone();
+        copy.trickSize = trickSize;
+        copy.leadSuit = leadSuit;
+        copy.playerPoints = playerPoints.clone();
+        copy.playerTricksTaken = playerTricksTaken.clone();
+        copy.playerPassCounter = playerPassCounter.clone();
+        copy.heartsBroken = heartsBroken;
+        copy.firstTurn = firstTurn;
+        copy.currentRound = currentRound;
+        copy.dealSeed = dealSeed;
+        copy.redeterminisationRnd = new Random(redeterminisationRnd.nextLong());
+
+        if (getCoreGameParameters().partialObservable && playerId != -1)
+            copy.redeal(playerId, copy.redeterminisationRnd);
+        return copy;
+    }
+
+    @Override
+    public boolean canRedeterminise() {
+        return true;
+    }
+
+    @Override
+    protected void _redeterminise(int playerId, Random rnd) {
+        redeal(playerId, rnd);
+    }
+
+    /**
+     * Pools the hands of the players other than playerId with the undealt cards, and redeals them at the same sizes
+     */
+    private void redeal(int playerId, Random rnd) {
+        long pool = drawPile;
+        for (int i = 0; i < getNPlayers(); i++) {
+            if (i != playerId)
+                pool |= playerHands[i];
+        }
+        int[] shuffled = toIndices(pool);
+        shuffle(shuffled, shuffled.length, rnd);
+        int next = 0;
+        for (int i = 0; i < getNPlayers(); i++) {
+            if (i != playerId) {
+                long hand = 0;
+                for (int j = Long.bitCount(playerHands[i]); j > 0; j--)
+                    hand |= 1L << shuffled[next++];
+                playerHands[i] = hand;
+            }
+        }
+        long rest = 0;
+        while (next < shuffled.length)
+            rest |= 1L << shuffled[next++];
+        drawPile = rest;
+    }
+
+    /**
+     * @return the card indices in the set, in ascending order
+     */
+    public static int[] toIndices(long cardMask) {
+        int[] retValue = new int[Long.bitCount(cardMask)];
+        int i = 0;
+        for (long m = cardMask; m != 0; m &= m - 1)
+            retValue[i++] = Long.numberOfTrailingZeros(m);
+        return retValue;
+    }
+
+    /**
+     * Shuffles the first n entries of the array, drawing from rnd in the same order as
+     * {@link Collections#shuffle(List, Random)}, so that an int[] of card indices and a Deck holding the same
+     * cards in the same order are permuted identically.
+     */
+    public static void shuffle(int[] array, int n, Random rnd) {
+        for (int i = n; i > 1; i--) {
+            int j = rnd.nextInt(i);
+            int tmp = array[i - 1];
+            array[i - 1] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    @Override
+    protected double _getHeuristicScore(int playerId) {
+        return HeartsHeuristic.DEFAULT.evaluateState(this, playerId);
+    }
+
+    @Override
+    public double getGameScore(int playerId) {
+        return playerPoints[playerId];
+    }
+
+    @Override
+    public int getOrdinalPosition(int playerId, Function<Integer, Double> scoreFunction, BiFunction<Integer, Integer, Double> tiebreakFunction) {
+        int ordinal = 1;
+        double playerScore = scoreFunction.apply(playerId);
+        for (int i = 0, n = getNPlayers(); i < n; i++) {
+            double otherScore = scoreFunction.apply(i);
+            if (otherScore < playerScore) // lower score is better
+                ordinal++;
+            else if (otherScore == playerScore && tiebreakFunction != null && tiebreakFunction.apply(i, 1) != Double.MAX_VALUE) {
+                if (getOrdinalPositionTiebreak(i, tiebreakFunction, 1) > getOrdinalPositionTiebreak(playerId, tiebreakFunction, 1))
+                    ordinal++;
+            }
+        }
+        return ordinal;
+    }
+
+    @Override
+    protected boolean _equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof HeartsBitboardGameState)) return false;
+        HeartsBitboardGameState that = (HeartsBitboardGameState) o;
+        return playedCards == that.playedCards && drawPile == that.drawPile &&
+                trickSize == that.trickSize && leadSuit == that.leadSuit &&
+                heartsBroken == that.heartsBroken && firstTurn == that.firstTurn &&
+                currentRound == that.currentRound &&
+                Arrays.equals(playerHands, that.playerHands) &&
+                Arrays.equals(pendingPasses, that.pendingPasses) &&
+                Arrays.equals(trickPiles, that.trickPiles) &&
+                Arrays.equals(trickCards, that.trickCards) &&
+                Arrays.equals(trickPlayers, that.trickPlayers) &&
+                Arrays.equals(playerPoints, that.playerPoints) &&
+                Arrays.equals(playerTricksTaken, that.playerTricksTaken) &&
+                Arrays.equals(playerPassCounter, that.playerPassCounter);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = Objects.hash(super.hashCode(), playedCards, drawPile, trickSize, leadSuit, heartsBroken, firstTurn, currentRound);
+        result = 31 * result + Arrays.hashCode(playerHands);
+        result = 31 * result + Arrays.hashCode(pendingPasses);
+        result = 31 * result + Arrays.hashCode(trickPiles);
+        result = 31 * result + Arrays.hashCode(trickCards);
+        result = 31 * result + Arrays.hashCode(trickPlayers);
+        result = 31 * result + Arrays.hashCode(playerPoints);
+        result = 31 * result + Arrays.hashCode(playerTricksTaken);
+        result = 31 * result + Arrays.hashCode(playerPassCounter);
+        return result;
+    }
+}
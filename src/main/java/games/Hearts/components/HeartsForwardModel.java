@@ -6,6 +6,7 @@ import core.StandardForwardModel;
 import core.actions.AbstractAction;
 import core.components.Deck;
 import core.components.FrenchCard;
+import games.Hearts.actions.HeartsActionTable;
 import games.Hearts.actions.Play;
 import games.Hearts.actions.Pass;
 
@@ -29,6 +30,7 @@ public class HeartsForwardModel extends StandardForwardModel {
         HeartsGameState hgs = (HeartsGameState) firstState;
         boolean[] visibility = new boolean[firstState.getNPlayers()];
         hgs.resetGameScores();
+        hgs.resetRandomStreams();
         Arrays.fill(visibility, true);
         _setupRound(hgs);
     }
@@ -43,29 +45,27 @@ public class HeartsForwardModel extends StandardForwardModel {
             hgs.pendingPasses.add(new ArrayList<>());
         }
 
-        FrenchCard remover = new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Diamonds, 2);
-
         hgs.firstTurn = true;
 
         hgs.playerDecks = new ArrayList<>();
         hgs.drawDeck = FrenchCard.generateDeck("DrawDeck", CoreConstants.VisibilityMode.HIDDEN_TO_ALL);
-        hgs.drawDeck.shuffle(new Random(System.currentTimeMillis()));
+        hgs.drawDeck.shuffle(hgs.nextDealRandom());
 
         int numOfPlayers = hgs.getNPlayers();
 
 
 
         Map<Integer, List<FrenchCard>> cardsToRemove = new HashMap<>();
-        cardsToRemove.put(3, Arrays.asList(new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Diamonds, 2)));
-        cardsToRemove.put(5, Arrays.asList(new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Diamonds, 2),
-                new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Spades, 2)));
-        cardsToRemove.put(6, Arrays.asList(new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Diamonds, 2),
-                new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Diamonds, 3),
-                new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Clubs, 3),
-                new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Clubs, 4)));
-        cardsToRemove.put(7, Arrays.asList(new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Diamonds, 2),
-                new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Diamonds, 3),
-                new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Clubs, 3)));
+        cardsToRemove.put(3, Arrays.asList(FrenchCard.of(FrenchCard.Suite.Diamonds, 2)));
+        cardsToRemove.put(5, Arrays.asList(FrenchCard.of(FrenchCard.Suite.Diamonds, 2),
+                FrenchCard.of(FrenchCard.Suite.Spades, 2)));
+        cardsToRemove.put(6, Arrays.asList(FrenchCard.of(FrenchCard.Suite.Diamonds, 2),
+                FrenchCard.of(FrenchCard.Suite.Diamonds, 3),
+                FrenchCard.of(FrenchCard.Suite.Clubs, 3),
+                FrenchCard.of(FrenchCard.Suite.Clubs, 4)));
+        cardsToRemove.put(7, Arrays.asList(FrenchCard.of(FrenchCard.Suite.Diamonds, 2),
+                FrenchCard.of(FrenchCard.Suite.Diamonds, 3),
+                FrenchCard.of(FrenchCard.Suite.Clubs, 3)));
 
 
         if (cardsToRemove.containsKey(numOfPlayers)) {
@@ -110,6 +110,8 @@ public class HeartsForwardModel extends StandardForwardModel {
             }
 
         }
+        hgs.countHighCards();
+        hgs.rehash();
     }
 
 
@@ -127,11 +129,8 @@ public class HeartsForwardModel extends StandardForwardModel {
                 Pass passAction = (Pass) action;
 
 
-                Deck<FrenchCard> playerDeck = hgs.playerDecks.get(passAction.playerID);
-
-
-                playerDeck.remove(passAction.card1);
-                hgs.pendingPasses.get(passAction.playerID).add(passAction.card1);
+                hgs.removeFromHand(passAction.playerID, passAction.card1);
+                hgs.addToPendingPasses(passAction.playerID, passAction.card1);
 
                 hgs.playerPassCounter[passAction.playerID]++;
 
@@ -142,7 +141,7 @@ public class HeartsForwardModel extends StandardForwardModel {
 
                     // Check if all players have passed their cards
                     if (passAction.playerID == hgs.getNPlayers() - 1) {
-                        hgs.setGamePhase(HeartsGameState.Phase.PLAYING);
+                        hgs.setPhase(HeartsGameState.Phase.PLAYING);
 
                         // Determine the pass direction based on the current round
                         int passDirection;
@@ -165,11 +164,11 @@ public class HeartsForwardModel extends StandardForwardModel {
 
                         // Add pending passes to next player's deck
                         for (int i = 0; i < hgs.getNPlayers(); i++) {
-                            Deck<FrenchCard> nextPlayerDeck = hgs.playerDecks.get((i + passDirection) % hgs.getNPlayers());
+                            int nextPlayer = (i + passDirection) % hgs.getNPlayers();
                             for (FrenchCard card : hgs.pendingPasses.get(i)) {
-                                nextPlayerDeck.add(card);
+                                hgs.addToHand(nextPlayer, card);
                             }
-                            hgs.pendingPasses.get(i).clear();  // Clear this player's pending passes
+                            hgs.clearPendingPasses(i);  // Clear this player's pending passes
                         }
                         // Set the first player of the PLAYING phase to be the player who has the 2 of clubs
                         for (int i = 0; i < hgs.getNPlayers(); i++) {
@@ -192,25 +191,21 @@ public class HeartsForwardModel extends StandardForwardModel {
             }
         } else {
             if (hgs.firstTurn) {
-                hgs.firstTurn = false;  // No longer the first turn
+                hgs.setFirstTurn(false);  // No longer the first turn
             }
 
             if (action instanceof Play) {
                 Play play = (Play) action;
-                if (hgs.currentRoundCards.isEmpty()) {
-                    hgs.firstCardSuit = play.card.suite;  // Save the suit of the first card
-                }
-
-                // Store played card and its player ID
-                hgs.currentRoundCards.add(new AbstractMap.SimpleEntry<>(play.playerID, play.card));
+                // Store played card and its player ID (the first card played sets the suit to follow)
+                hgs.addToCurrentTrick(play.playerID, play.card);
 
                 // If a heart has been played, set heartsBroken to true
                 if (play.card.suite == FrenchCard.Suite.Hearts) {
-                    hgs.heartsBroken = true;
+                    hgs.breakHearts();
                 }
 
                 // Remove the card from the player's deck
-                hgs.playerDecks.get(play.playerID).remove(play.card);
+                hgs.removeFromHand(play.playerID, play.card);
                 hgs.calculatePoints(play.playerID);
             }
 
@@ -288,49 +283,60 @@ public class HeartsForwardModel extends StandardForwardModel {
     public List<AbstractAction> _computeAvailableActions(AbstractGameState gameState) {
         HeartsGameState hgs = (HeartsGameState) gameState;
         ArrayList<AbstractAction> actions = new ArrayList<>();
+        fillAvailableActions(hgs, actions);
+        return actions;
+    }
+
+    /**
+     * Clears the buffer and fills it with the actions available to the current player. The actions are the interned
+     * instances from {@link HeartsActionTable}, so reusing the same buffer allocates nothing.
+     */
+    public void fillAvailableActions(HeartsGameState hgs, List<AbstractAction> buffer) {
+        buffer.clear();
         int player = hgs.getCurrentPlayer();
-        Deck<FrenchCard> playerHand = hgs.playerDecks.get(player);
+        List<FrenchCard> cards = hgs.playerDecks.get(player).getComponents();
 
         if (hgs.getGamePhase() == HeartsGameState.Phase.PASSING) {
             // Generate Pass action for each card in the player's hand
-            List<FrenchCard> cards = playerHand.getComponents();
             for (FrenchCard card : cards) {
-                actions.add(new Pass(player, card));
+                buffer.add(HeartsActionTable.pass(player, card));
             }
-        }else {
+            return;
+        }
 
-            if (hgs.firstTurn) {
-                // First turn of the game, the player with 2 of clubs must play it
-                for (FrenchCard card : playerHand.getComponents()) {
-                    if (card.suite == FrenchCard.Suite.Clubs && card.number == 2) {
-                        actions.add(new Play(player, card));
-                        return actions;  // Return immediately, no other actions available
-                    }
-                }
+        // Index the hand by suit in a single pass: one bit per suit held
+        int suitsInHand = 0;
+        FrenchCard twoOfClubs = null;
+        for (FrenchCard card : cards) {
+            suitsInHand |= 1 << card.suite.ordinal();
+            if (card.suite == FrenchCard.Suite.Clubs && card.number == 2) {
+                twoOfClubs = card;
             }
+        }
 
-            boolean hasLeadSuit = playerHand.getComponents().stream().anyMatch(card -> card.suite.equals(hgs.firstCardSuit));
+        if (hgs.firstTurn && twoOfClubs != null) {
+            // First turn of the game, the player with 2 of clubs must play it
+            buffer.add(HeartsActionTable.play(player, twoOfClubs));
+            return;
+        }
 
-            if (hasLeadSuit) {
-                // Player can only play cards of the lead suit
-                for (FrenchCard card : playerHand.getComponents()) {
-                    if (card.suite.equals(hgs.firstCardSuit)) {
-                        actions.add(new Play(player, card));
-                    }
+        boolean hasLeadSuit = hgs.firstCardSuit != null && (suitsInHand & (1 << hgs.firstCardSuit.ordinal())) != 0;
+        if (hasLeadSuit) {
+            // Player can only play cards of the lead suit
+            for (FrenchCard card : cards) {
+                if (card.suite == hgs.firstCardSuit) {
+                    buffer.add(HeartsActionTable.play(player, card));
                 }
-            } else {
-                // Player can play cards of any other suit, but only play a heart if hearts have been broken or their hand only contains hearts
-                boolean onlyHasHearts = playerHand.getComponents().stream().allMatch(card -> card.suite == FrenchCard.Suite.Hearts);
-                for (FrenchCard card : playerHand.getComponents()) {
-                    if (card.suite != FrenchCard.Suite.Hearts || hgs.heartsBroken || onlyHasHearts) {
-                        actions.add(new Play(player, card));
-                    }
+            }
+        } else {
+            // Player can play cards of any other suit, but only play a heart if hearts have been broken or their hand only contains hearts
+            boolean onlyHasHearts = (suitsInHand & ~(1 << FrenchCard.Suite.Hearts.ordinal())) == 0;
+            for (FrenchCard card : cards) {
+                if (card.suite != FrenchCard.Suite.Hearts || hgs.heartsBroken || onlyHasHearts) {
+                    buffer.add(HeartsActionTable.play(player, card));
                 }
             }
         }
-
-
-        return actions;
     }
 
 
@@ -341,8 +347,6 @@ public class HeartsForwardModel extends StandardForwardModel {
 
 
     public void _endTurn(HeartsGameState hgs) {
-        Map<Integer, Integer> pointsMap = hgs.getPlayerPointsMap();
-
         int highestCardValue = -1;
         int winningPlayerID = -1;
         for (Map.Entry<Integer, FrenchCard> entry : hgs.currentRoundCards) {
@@ -356,18 +360,24 @@ public class HeartsForwardModel extends StandardForwardModel {
         // Add all cards from this round to the winner's trick deck
         if (winningPlayerID != -1) {
             for (Map.Entry<Integer, FrenchCard> entry : hgs.currentRoundCards) {
-                hgs.trickDecks.get(winningPlayerID).add(entry.getValue());
-
+                hgs.addToTrickDeck(winningPlayerID, entry.getValue());
             }
-            hgs.playerTricksTaken[winningPlayerID]++;
+            hgs.trickWon(winningPlayerID);
 
             hgs.setFirstPlayer(winningPlayerID);
             startNewRound(hgs);
         }
 
         // Check if all cards from player hands have been played
-        if (hgs.playerDecks.stream().allMatch(deck -> deck.getSize() == 0)) {
-            boolean scoreAbove100 = hgs.getPlayerPointsMap().values().stream().anyMatch(score -> score >= 100);
+        boolean handsEmpty = true;
+        for (Deck<FrenchCard> deck : hgs.playerDecks) {
+            if (deck.getSize() != 0) {
+                handsEmpty = false;
+                break;
+            }
+        }
+        if (handsEmpty) {
+            boolean scoreAbove100 = hgs.getMaxPlayerPoints() >= 100;
 
 
 
@@ -390,8 +400,7 @@ public class HeartsForwardModel extends StandardForwardModel {
     }
 
     private void startNewRound(HeartsGameState hgs) {
-        hgs.currentRoundCards.clear();
-        hgs.firstCardSuit = null;
+        hgs.clearCurrentTrick();
         hgs.setCurrentPlayer(hgs.getFirstPlayer());
 
     }
@@ -8,6 +8,8 @@ import core.components.Deck;
 import core.components.FrenchCard;
 import core.interfaces.IGamePhase;
 import games.GameType;
+import utilities.DeterminisationUtilities;
+import utilities.ZobristKeys;
 import java.util.ArrayList;
 import java.util.*;
 
@@ -31,7 +33,8 @@ public class HeartsGameState extends AbstractGameState {
     List<Deck<FrenchCard>> playerDecks;
     Deck<FrenchCard> drawDeck;
 
-    public List<Deck<FrenchCard>> trickDecks;
+    // Cards are only added through addToTrickDeck(), which keeps the running totals below in step
+    private List<Deck<FrenchCard>> trickDecks;
 
     public boolean heartsBroken;
 
@@ -62,7 +65,20 @@ public class HeartsGameState extends AbstractGameState {
 
     // This map stores each player's chosen card
     private Map<Integer, FrenchCard> chosenCards;
-    public Map<Integer, Integer> playerPoints;
+    // Only changed through setPlayerPoints() and resetGameScores(), which keep the hash and maxPlayerPoints in step
+    private Map<Integer, Integer> playerPoints;
+
+    // Running totals for the cards in each trick deck, kept up to date by addToTrickDeck() so that scoring
+    // never has to rescan a deck: the penalty points, and the hash keys of the cards in it
+    int[] trickDeckPoints;
+    long[] trickDeckHashes;
+    // Highest score held by any player; scores only go up during a game
+    int maxPlayerPoints;
+    // Number of cards of each rank (FrenchCard.number, 2 to 14 for the Ace) in each player's hand, so that the
+    // heuristic can count the cards above any threshold without scanning the hand
+    int[][] ranksInHand;
+    private static final int MAX_RANK = 14;
+    public static final int HIGH_CARD_THRESHOLD = 10;  // Jack or higher
 
     List<List<FrenchCard>> passedCards;
 
@@ -72,12 +88,29 @@ public class HeartsGameState extends AbstractGameState {
 
     public int currentPlayer;
 
+    // Per-game RNG stream: every deal is drawn from this, so the whole game is determined by its seed.
+    // It is carried over unchanged by copies, which will therefore deal the same future hands.
+    long dealSeed;
+    // Per-copy determinisation stream, used to redeal the hidden hands when copying from a player's perspective
+    Random redeterminisationRnd;
+
+    // Zobrist features for the state hash (see ZobristKeys). Each card is a feature, with its location and the player
+    // holding it as the value; the flags and running totals that affect the rest of the game follow the cards.
+    private static final int HAND = 0, PASSING = 1, IN_TRICK = 2, WON = 3;
+    private static final int HEARTS_BROKEN = FrenchCard.N_CARDS, FIRST_TURN = HEARTS_BROKEN + 1, PHASE = FIRST_TURN + 1,
+            ROUND = PHASE + 1, LEAD_SUIT = ROUND + 1, POINTS = LEAD_SUIT + 1, TRICKS = POINTS + 1;
+    private static final int MAX_PLAYERS = 8;
+
     public HeartsGameState(AbstractParameters gameParameters, int nPlayers) {
         super(gameParameters, nPlayers);
+        resetRandomStreams();
         chosenCards = new HashMap<>();
         playerPoints = new HashMap<>();
         playerPassCounter = new int[nPlayers];
         playerTricksTaken = new int[nPlayers];
+        trickDeckPoints = new int[nPlayers];
+        trickDeckHashes = new long[nPlayers];
+        ranksInHand = new int[nPlayers][MAX_RANK + 1];
         playerResults = new CoreConstants.GameResult[nPlayers];
         trickDecks = new ArrayList<>();
         playerDecks = new ArrayList<>();
@@ -127,6 +160,24 @@ public class HeartsGameState extends AbstractGameState {
 
 
 
+    /**
+     * Re-seeds both random streams from the game seed. Called when the game is set up, as the seed may have
+     * changed since this state was constructed.
+     */
+    void resetRandomStreams() {
+        dealSeed = gameParameters.getRandomSeed();
+        redeterminisationRnd = new Random(gameParameters.getRandomSeed());
+    }
+
+    /**
+     * Advances the per-game RNG stream by one deal.
+     * @return a Random to shuffle the next deal with
+     */
+    Random nextDealRandom() {
+        dealSeed = dealSeed * 6364136223846793005L + 1442695040888963407L;
+        return new Random(dealSeed);
+    }
+
     public Deck<FrenchCard> getDrawDeck() {
         return drawDeck;
     }
@@ -150,46 +201,222 @@ public class HeartsGameState extends AbstractGameState {
 
     public void calculatePoints(int playerId) {
         // Get the trick deck for the player
-        Deck<FrenchCard> trickDeck = trickDecks.get(playerId);
-        if (trickDeck != null) {
-            int points = 0;
-
-            // Iterate over all cards in the trick deck
-            for (FrenchCard card : trickDeck.getComponents()) {
-                if (card.suite == FrenchCard.Suite.Hearts) {
-                    points += 1;
-                }
-                // The queen of spades is worth 13 points
-                else if (card.suite == FrenchCard.Suite.Spades && card.number == 12) {
-                    points += 13;
-                }
-            }
+        setPlayerPoints(playerId, playerPoints.getOrDefault(playerId, 0) + trickDeckPoints[playerId]);
+
+        // Clear the trick deck after its points have been added
+        stateHash ^= trickDeckHashes[playerId];
+        trickDecks.get(playerId).clear();
+        trickDeckPoints[playerId] = 0;
+        trickDeckHashes[playerId] = 0;
+    }
+
+    /**
+     * Adds a card from a won trick to the player's trick deck, keeping the running totals up to date.
+     * This is the only way cards should be added to a trick deck.
+     */
+    public void addToTrickDeck(int playerId, FrenchCard card) {
+        trickDecks.get(playerId).add(card);
+        long key = cardKey(card, WON, playerId);
+        stateHash ^= key;
+        trickDeckHashes[playerId] ^= key;
+        trickDeckPoints[playerId] += penaltyPoints(card);
+    }
+
+    public static int penaltyPoints(FrenchCard card) {
+        if (card.suite == FrenchCard.Suite.Hearts) {
+            return 1;
+        }
+        // The queen of spades is worth 13 points
+        return card.suite == FrenchCard.Suite.Spades && card.number == 12 ? 13 : 0;
+    }
+
+    public static int penaltyPoints(List<FrenchCard> cards) {
+        int points = 0;
+        for (FrenchCard card : cards) {
+            points += penaltyPoints(card);
+        }
+        return points;
+    }
 
+    /**
+     * Removes a card from a player's hand, keeping the rank counts up to date.
+     *
+     * @return true if the player held the card
+     */
+    public boolean removeFromHand(int playerId, FrenchCard card) {
+        if (playerDecks.get(playerId).getComponents().remove(card)) {
+            hashCard(card, HAND, playerId);
+            ranksInHand[playerId][card.number]--;
+            return true;
+        }
+        return false;
+    }
+
+    void addToHand(int playerId, FrenchCard card) {
+        playerDecks.get(playerId).add(card);
+        hashCard(card, HAND, playerId);
+        ranksInHand[playerId][card.number]++;
+    }
 
-            // Check if the playerID exists in the map
-            if (playerPoints.containsKey(playerId)) {
-                // If it does, add the points
-                playerPoints.put(playerId, playerPoints.get(playerId) + points);
-            } else {
-                // If not, add the playerID to the map with the calculated points
-                playerPoints.put(playerId, points);
+    /**
+     * Recounts the ranks in every hand, after hands have been dealt.
+     */
+    void countHighCards() {
+        for (int i = 0; i < playerDecks.size(); i++) {
+            Arrays.fill(ranksInHand[i], 0);
+            List<FrenchCard> cards = playerDecks.get(i).getComponents();
+            for (int j = 0; j < cards.size(); j++) {
+                ranksInHand[i][cards.get(j).number]++;
             }
+        }
+    }
+
+    /**
+     * @return the number of cards above {@link #HIGH_CARD_THRESHOLD} in the player's hand
+     */
+    public int getHighCardsInHand(int playerId) {
+        return getCardsInHandAbove(playerId, HIGH_CARD_THRESHOLD);
+    }
+
+    /**
+     * @return the number of cards in the player's hand with a number above threshold, from the rank counts
+     */
+    public int getCardsInHandAbove(int playerId, double threshold) {
+        int[] ranks = ranksInHand[playerId];
+        int retValue = 0;
+        for (int rank = Math.max(0, (int) Math.floor(threshold) + 1); rank <= MAX_RANK; rank++)
+            retValue += ranks[rank];
+        return retValue;
+    }
+
+    /**
+     * @return the highest score of any player, without scanning the scores
+     */
+    public int getMaxPlayerPoints() {
+        return maxPlayerPoints;
+    }
+
+
+
 
-            // Clear the trick deck after its points have been added
-            trickDeck.clear();
+    /**
+     * Adds a card to those the player will pass on at the end of the passing phase
+     */
+    void addToPendingPasses(int playerId, FrenchCard card) {
+        pendingPasses.get(playerId).add(card);
+        hashCard(card, PASSING, playerId);
+    }
+
+    void clearPendingPasses(int playerId) {
+        for (FrenchCard card : pendingPasses.get(playerId))
+            hashCard(card, PASSING, playerId);
+        pendingPasses.get(playerId).clear();
+    }
+
+    /**
+     * Adds a card played by the player to the current trick; the first card played sets the suit to follow
+     */
+    void addToCurrentTrick(int playerId, FrenchCard card) {
+        if (currentRoundCards.isEmpty()) {
+            firstCardSuit = card.suite;
+            hashFeature(LEAD_SUIT, firstCardSuit.ordinal());
         }
+        currentRoundCards.add(new AbstractMap.SimpleEntry<>(playerId, card));
+        hashCard(card, IN_TRICK, playerId);
+    }
+
+    void clearCurrentTrick() {
+        for (Map.Entry<Integer, FrenchCard> entry : currentRoundCards)
+            hashCard(entry.getValue(), IN_TRICK, entry.getKey());
+        currentRoundCards.clear();
+        if (firstCardSuit != null)
+            hashFeature(LEAD_SUIT, firstCardSuit.ordinal());
+        firstCardSuit = null;
+    }
+
+    void breakHearts() {
+        if (!heartsBroken)
+            hashFeature(HEARTS_BROKEN, 0);
+        heartsBroken = true;
+    }
+
+    void setPhase(Phase phase) {
+        if (gamePhase instanceof Phase)
+            hashFeature(PHASE, ((Phase) gamePhase).ordinal());
+        setGamePhase(phase);
+        hashFeature(PHASE, phase.ordinal());
+    }
+
+    void trickWon(int playerId) {
+        hashFeature(TRICKS, playerTricksTaken[playerId] * MAX_PLAYERS + playerId);
+        playerTricksTaken[playerId]++;
+        hashFeature(TRICKS, playerTricksTaken[playerId] * MAX_PLAYERS + playerId);
     }
 
+    private void hashCard(FrenchCard card, int location, int playerId) {
+        stateHash ^= cardKey(card, location, playerId);
+    }
 
+    private void hashFeature(int feature, int value) {
+        stateHash ^= ZobristKeys.key(feature, value);
+    }
+
+    private static long cardKey(FrenchCard card, int location, int playerId) {
+        return ZobristKeys.key(card.ordinal(), location * MAX_PLAYERS + playerId);
+    }
 
+    @Override
+    public boolean hasStateHash() {
+        return true;
+    }
+
+    /**
+     * Sets the state hash from scratch, after a new hand has been dealt
+     */
+    void rehash() {
+        stateHash = computeStateHash();
+    }
+
+    /**
+     * Computes the state hash from scratch. This is only done when a hand is dealt; otherwise the hash is updated as each
+     * card moves, and should always equal this.
+     */
+    public long computeStateHash() {
+        long hash = 0;
+        for (int p = 0; p < getNPlayers(); p++) {
+            for (FrenchCard card : playerDecks.get(p).getComponents())
+                hash ^= cardKey(card, HAND, p);
+            for (FrenchCard card : pendingPasses.get(p))
+                hash ^= cardKey(card, PASSING, p);
+            for (FrenchCard card : trickDecks.get(p).getComponents())
+                hash ^= cardKey(card, WON, p);
+            hash ^= ZobristKeys.key(POINTS, playerPoints.getOrDefault(p, 0) * MAX_PLAYERS + p);
+            hash ^= ZobristKeys.key(TRICKS, playerTricksTaken[p] * MAX_PLAYERS + p);
+        }
+        for (Map.Entry<Integer, FrenchCard> entry : currentRoundCards)
+            hash ^= cardKey(entry.getValue(), IN_TRICK, entry.getKey());
+        if (firstCardSuit != null)
+            hash ^= ZobristKeys.key(LEAD_SUIT, firstCardSuit.ordinal());
+        if (heartsBroken)
+            hash ^= ZobristKeys.key(HEARTS_BROKEN, 0);
+        if (firstTurn)
+            hash ^= ZobristKeys.key(FIRST_TURN, 0);
+        if (gamePhase instanceof Phase)
+            hash ^= ZobristKeys.key(PHASE, ((Phase) gamePhase).ordinal());
+        hash ^= ZobristKeys.key(ROUND, currentRound);
+        return hash;
+    }
 
     public int getPlayerPoints(int playerID) {
         int points = playerPoints.getOrDefault(playerID,0);
         return points;
     }
 
+    /**
+     * @return a read-only view of the scores; use setPlayerPoints() to change them
+     */
     public Map<Integer, Integer> getPlayerPointsMap() {
-        return playerPoints;
+        return Collections.unmodifiableMap(playerPoints);
     }
 
 
@@ -213,12 +440,18 @@ public class HeartsGameState extends AbstractGameState {
     @Override
     protected AbstractGameState _copy(int playerId) {
         HeartsGameState copy = new HeartsGameState(gameParameters.copy(), getNPlayers());
+        copy.dealSeed = dealSeed;
+        copy.redeterminisationRnd = new Random(redeterminisationRnd.nextLong());
 
         // Deep Copy player decks
         copy.playerDecks = new ArrayList<>();
         for (Deck<FrenchCard> d : playerDecks) {
             copy.playerDecks.add(d.copy());
         }
+        copy.ranksInHand = new int[ranksInHand.length][];
+        for (int i = 0; i < ranksInHand.length; i++)
+            copy.ranksInHand[i] = ranksInHand[i].clone();
+        copy.stateHash = stateHash;
 
         // Deep Copy draw deck
         copy.drawDeck = drawDeck.copy();
@@ -231,7 +464,7 @@ public class HeartsGameState extends AbstractGameState {
                     copy.playerDecks.get(i).clear();
                 }
             }
-            copy.drawDeck.shuffle(new Random(copy.gameParameters.getRandomSeed()));
+            copy.drawDeck.shuffle(copy.redeterminisationRnd);
 
             for (int i = 0; i < getNPlayers(); i++) {
                 if (i != playerId) {
@@ -240,6 +473,16 @@ public class HeartsGameState extends AbstractGameState {
                     }
                 }
             }
+            copy.countHighCards();
+            // swap the hidden hands in the hash for the ones just dealt
+            for (int i = 0; i < getNPlayers(); i++) {
+                if (i != playerId) {
+                    for (FrenchCard card : playerDecks.get(i).getComponents())
+                        copy.hashCard(card, HAND, i);
+                    for (FrenchCard card : copy.playerDecks.get(i).getComponents())
+                        copy.hashCard(card, HAND, i);
+                }
+            }
 
         }
 
@@ -283,6 +526,9 @@ public class HeartsGameState extends AbstractGameState {
 
         // Deep Copy playerPoints
         copy.playerPoints = new HashMap<>(playerPoints);
+        copy.maxPlayerPoints = maxPlayerPoints;
+        copy.trickDeckPoints = trickDeckPoints.clone();
+        copy.trickDeckHashes = trickDeckHashes.clone();
 
         // Deep Copy passedCards
         copy.passedCards = new ArrayList<>();
@@ -305,6 +551,33 @@ public class HeartsGameState extends AbstractGameState {
         return copy;
     }
 
+    @Override
+    public boolean canRedeterminise() {
+        return true;
+    }
+
+    @Override
+    protected void _redeterminise(int playerId, Random rnd) {
+        // As in _copy(): the other players' hands are pooled with the undealt cards and redealt at the same sizes
+        List<Deck<FrenchCard>> hidden = new ArrayList<>();
+        for (int i = 0; i < getNPlayers(); i++) {
+            if (i != playerId) {
+                hidden.add(playerDecks.get(i));
+                for (FrenchCard card : playerDecks.get(i).getComponents())
+                    hashCard(card, HAND, i);
+            }
+        }
+        hidden.add(drawDeck);
+        DeterminisationUtilities.reshuffle(playerId, hidden, c -> true, rnd);
+        for (int i = 0; i < getNPlayers(); i++) {
+            if (i != playerId) {
+                for (FrenchCard card : playerDecks.get(i).getComponents())
+                    hashCard(card, HAND, i);
+            }
+        }
+        countHighCards();
+    }
+
 
 
     /**
@@ -314,7 +587,7 @@ public class HeartsGameState extends AbstractGameState {
      */
     @Override
     protected double _getHeuristicScore(int playerId) {
-        return new HeartsHeuristic().evaluateState(this, playerId);
+        return HeartsHeuristic.DEFAULT.evaluateState(this, playerId);
     }
 
 
@@ -330,12 +603,23 @@ public class HeartsGameState extends AbstractGameState {
 
     public void resetGameScores() {
         for (Integer playerId : playerPoints.keySet()) {
+            hashFeature(POINTS, playerPoints.get(playerId) * MAX_PLAYERS + playerId);
+            hashFeature(POINTS, playerId);
             playerPoints.put(playerId, 0);
         }
+        maxPlayerPoints = 0;
     }
 
     public void setPlayerPoints(int playerId, int points) {
+        int oldPoints = playerPoints.getOrDefault(playerId, 0);
+        hashFeature(POINTS, oldPoints * MAX_PLAYERS + playerId);
+        hashFeature(POINTS, points * MAX_PLAYERS + playerId);
         playerPoints.put(playerId, points);
+        if (points >= maxPlayerPoints)
+            maxPlayerPoints = points;
+        else if (oldPoints == maxPlayerPoints)
+            // scores only go up in play, so this is only reached when a score is set directly
+            maxPlayerPoints = Collections.max(playerPoints.values());
     }
 
     public CoreConstants.GameResult getPlayerResult(int playerIdx) {
@@ -407,8 +691,11 @@ public class HeartsGameState extends AbstractGameState {
 
 
 
+    /**
+     * @return a read-only view of the trick decks, which must not be changed other than through addToTrickDeck()
+     */
     public List<Deck<FrenchCard>> getPlayerTrickDecks() {
-        return trickDecks;
+        return Collections.unmodifiableList(trickDecks);
     }
 
 
@@ -426,6 +713,8 @@ public class HeartsGameState extends AbstractGameState {
     }
 
     public void setFirstTurn(boolean value){
+        if (firstTurn != value)
+            hashFeature(FIRST_TURN, 0);
         this.firstTurn = value;
     }
 
@@ -12,6 +12,12 @@ public class HeartsHeuristic extends TunableParameters implements IStateHeuristi
     public double maxHighValueCards = 10.0;
     public double maxPossibleTricks = 10.0;
 
+    /**
+     * Shared evaluation with the default parameters, used by the game states. Only its evaluateState() is exposed,
+     * and the instance behind it cannot be reached, so it cannot be tuned or otherwise changed.
+     */
+    public static final IStateHeuristic DEFAULT = new HeartsHeuristic()::evaluateState;
+
     public HeartsHeuristic() {
         addTunableParameter("HIGH_VALUE_THRESHOLD", 10.0);
         addTunableParameter("MAX_HIGH_VALUE_CARD_PASS_BONUS", 0.3);
@@ -57,22 +63,28 @@ public class HeartsHeuristic extends TunableParameters implements IStateHeuristi
 
     @Override
     public double evaluateState(AbstractGameState gs, int playerId) {
+        if (gs instanceof HeartsBitboardGameState) {
+            HeartsBitboardGameState hbs = (HeartsBitboardGameState) gs;
+            return evaluate(hbs.getPlayerPoints(playerId),
+                    HeartsBitboardGameState.countAbove(hbs.getPlayerHand(playerId), HIGH_VALUE_THRESHOLD),
+                    hbs.getPlayerTricksTaken(hbs.getCurrentPlayer()));
+        }
         HeartsGameState tgs = (HeartsGameState) gs;
+        return evaluate(tgs.getPlayerPoints(playerId), tgs.getCardsInHandAbove(playerId, HIGH_VALUE_THRESHOLD),
+                tgs.playerTricksTaken[tgs.getCurrentPlayer()]);
+    }
 
+    protected double evaluate(int points, int highValueCards, double tricksTaken) {
         // Penalize player's score
-        double scoreFactor = (maxPossibleScore - tgs.getPlayerPoints(playerId) / maxPossibleScore);
+        double scoreFactor = (maxPossibleScore - points / maxPossibleScore);
 
         // Reward for having less high-value cards
         double highValueCardFactor = 0.0;
-        int highValueCards = (int) tgs.getPlayerDecks().get(playerId).getComponents().stream()
-                .filter(card -> (card).number > HIGH_VALUE_THRESHOLD)
-                .count();
         if(highValueCards < maxHighValueCards) {
             highValueCardFactor = (maxHighValueCards - highValueCards) / maxHighValueCards * MAX_HIGH_VALUE_CARD_PASS_BONUS;
         }
 
         // Penalize for taking tricks
-        double tricksTaken = tgs.playerTricksTaken[tgs.getCurrentPlayer()];
         double tricksFactor = (maxPossibleTricks - tricksTaken) / maxPossibleTricks;
 
         return scoreFactor + highValueCardFactor + tricksFactor;
@@ -11,9 +11,7 @@ public class ScoreAndHighCardsHeuristic extends HeartsHeuristic {
         double scoreFactor = (maxPossibleScore - tgs.getPlayerPoints(playerId) / maxPossibleScore);
 
         double highValueCardFactor = 0.0;
-        int highValueCards = (int) tgs.getPlayerDecks().get(playerId).getComponents().stream()
-                .filter(card -> (card).number > HIGH_VALUE_THRESHOLD)
-                .count();
+        int highValueCards = tgs.getCardsInHandAbove(playerId, HIGH_VALUE_THRESHOLD);
         if(highValueCards < maxHighValueCards) {
             highValueCardFactor = (maxHighValueCards - highValueCards) / maxHighValueCards * MAX_HIGH_VALUE_CARD_PASS_BONUS;
         }
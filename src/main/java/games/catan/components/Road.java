@@ -1,13 +1,15 @@
 package games.catan.components;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 public class Road implements Copiable {
     private int owner;
-    private static int counter = 0;
+    private static final AtomicInteger counter = new AtomicInteger();  // shared by concurrent games
     private int id;
 
     public Road(int owner){
         this.owner = owner;
-        this.id = counter++;
+        this.id = counter.getAndIncrement();
     }
     private Road(int owner, int id){
         this.owner = owner;
@@ -3,20 +3,21 @@ package games.catan.components;
 import games.catan.CatanParameters;
 
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static games.catan.CatanParameters.HarborTypes.*;
 
 public class Settlement implements Copiable {
     private int type; // settlement = 1, city = 2
     private int owner;
-    private static int counter = 0;
+    private static final AtomicInteger counter = new AtomicInteger();  // shared by concurrent games
     private int id;
     private CatanParameters.HarborTypes harbour = NONE;
 
     public Settlement(int owner){
         this.owner = owner;
         this.type = 1;
-        this.id = counter++;
+        this.id = counter.getAndIncrement();
     }
     public Settlement(int owner, int id){
         this.owner = owner;
@@ -53,6 +53,10 @@ public class Connect4ForwardModel extends SequentialActionForwardModel {
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
         Connect4GameState c4gs = (Connect4GameState) currentState;
+        if (action instanceof SetGridValueAction) {
+            SetGridValueAction<Token> move = (SetGridValueAction<Token>) action;
+            c4gs.cellFilled(move.getX(), move.getY(), Connect4Constants.playerMapping.indexOf(move.getValue()));
+        }
 
         // game-specific check for end of game
         if (checkGameEnd(c4gs)) {
@@ -12,6 +12,7 @@ import core.turnorders.AlternatingTurnOrder;
 import core.turnorders.TurnOrder;
 import games.GameType;
 import utilities.Pair;
+import utilities.ZobristKeys;
 
 import java.util.ArrayList;
 import java.util.LinkedList;
@@ -49,13 +50,26 @@ public class Connect4GameState extends AbstractGameState implements IPrintable,
         s.winnerCells.clear();
         for (Pair<Integer, Integer> wC : this.winnerCells)
             s.winnerCells.add(wC.copy());
+        s.stateHash = stateHash;
 
         return s;
     }
 
+    @Override
+    public boolean hasStateHash() {
+        return true;
+    }
+
+    /**
+     * Updates the state hash for a player's token being dropped into an empty cell
+     */
+    void cellFilled(int x, int y, int player) {
+        stateHash ^= ZobristKeys.key(y * gridBoard.getWidth() + x, player);
+    }
+
     @Override
     protected double _getHeuristicScore(int playerId) {
-        return new Connect4Heuristic().evaluateState(this, playerId);
+        return Connect4Heuristic.DEFAULT.evaluateState(this, playerId);
     }
 
     /**
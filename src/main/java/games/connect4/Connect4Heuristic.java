@@ -6,6 +6,11 @@ import evaluation.TunableParameters;
 
 public class Connect4Heuristic extends TunableParameters implements IStateHeuristic {
 
+    /**
+     * Shared instance with the default parameters, used by the game states. It must not be modified.
+     */
+    public static final Connect4Heuristic DEFAULT = new Connect4Heuristic();
+
     public Connect4Heuristic() {
     }
 
@@ -21,6 +21,7 @@ public class AddGridCellEdge extends AbstractAction {
         int nCellsCompleteBefore = dbgs.cellToOwnerMap.size();
         // Mark this edge as complete by current player and check if connected cells are complete too
         dbgs.edgeToOwnerMap.put(edge, gs.getCurrentPlayer());
+        dbgs.edgePlaced(edge);
 
         HashSet<DBCell> cells = dbgs.edgeToCellMap.get(edge);
         for (DBCell c : cells) {
@@ -29,6 +30,7 @@ public class AddGridCellEdge extends AbstractAction {
                 // All edges complete, this box complete
                 dbgs.cellToOwnerMap.put(c, gs.getCurrentPlayer());
                 dbgs.nCellsPerPlayer[gs.getCurrentPlayer()]++;
+                dbgs.cellCompleted(c, gs.getCurrentPlayer());
             }
         }
         int nCellsCompleteAfter = dbgs.cellToOwnerMap.size();
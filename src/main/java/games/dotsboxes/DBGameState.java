@@ -9,6 +9,7 @@ import core.turnorders.AlternatingTurnOrder;
 import core.turnorders.StandardTurnOrder;
 import core.turnorders.TurnOrder;
 import games.GameType;
+import utilities.ZobristKeys;
 
 import java.util.*;
 
@@ -64,9 +65,34 @@ public class DBGameState extends AbstractGameState {
         dbgs.cellToOwnerMap = (HashMap<DBCell, Integer>) cellToOwnerMap.clone();
         dbgs.edgeToOwnerMap = (HashMap<DBEdge, Integer>) edgeToOwnerMap.clone();
         dbgs.heuristic = heuristic;
+        dbgs.stateHash = stateHash;
         return dbgs;
     }
 
+    @Override
+    public boolean hasStateHash() {
+        return true;
+    }
+
+    /**
+     * Updates the state hash for an edge being placed. Who placed it does not matter to the rest of the game, so
+     * only that it has been placed is hashed.
+     */
+    void edgePlaced(DBEdge edge) {
+        int width = ((DBParameters) gameParameters).gridWidth;
+        boolean horizontal = edge.from.getY() == edge.to.getY();
+        stateHash ^= ZobristKeys.key((edge.from.getY() * (width + 1) + edge.from.getX()) * 2 + (horizontal ? 0 : 1), 0);
+    }
+
+    /**
+     * Updates the state hash for a cell being completed by a player
+     */
+    void cellCompleted(DBCell cell, int player) {
+        DBParameters dbp = (DBParameters) gameParameters;
+        int edgeFeatures = 2 * (dbp.gridWidth + 1) * (dbp.gridHeight + 1);
+        stateHash ^= ZobristKeys.key(edgeFeatures + cell.position.getY() * dbp.gridWidth + cell.position.getX(), player);
+    }
+
     @Override
     protected double _getHeuristicScore(int playerId) {
         if (heuristic == null) { // lazy initialization
@@ -12,6 +12,7 @@ import core.interfaces.IPrintable;
 import core.turnorders.TurnOrder;
 import games.GameType;
 import games.explodingkittens.cards.ExplodingKittensCard;
+import utilities.DeterminisationUtilities;
 
 import java.util.*;
 
@@ -123,6 +124,27 @@ public class ExplodingKittensGameState extends AbstractGameStateWithTurnOrder im
         return ekgs;
     }
 
+    @Override
+    public boolean canRedeterminise() {
+        return true;
+    }
+
+    @Override
+    protected void _redeterminise(int playerId, Random rnd) {
+        // As in _copy(): hidden cards in other players' hands are swapped with hidden cards in the draw pile, but
+        // never for an exploding kitten, which cannot be held. The hidden cards left in the draw pile
+        // (kittens included) are then shuffled among themselves.
+        List<Deck<ExplodingKittensCard>> hidden = new ArrayList<>();
+        hidden.add(drawPile);
+        for (int i = 0; i < getNPlayers(); i++) {
+            if (i != playerId)
+                hidden.add(playerHandCards.get(i));
+        }
+        DeterminisationUtilities.reshuffle(playerId, hidden,
+                c -> c.cardType != ExplodingKittensCard.CardType.EXPLODING_KITTEN, rnd);
+        DeterminisationUtilities.reshuffle(playerId, Collections.singletonList(drawPile), c -> true, rnd);
+    }
+
     @Override
     protected double _getHeuristicScore(int playerId) {
         return new ExplodingKittensHeuristic().evaluateState(this, playerId);
@@ -9,6 +9,7 @@ import core.components.PartialObservableDeck;
 import core.interfaces.IPrintable;
 import games.GameType;
 import games.loveletter.cards.LoveLetterCard;
+import utilities.DeterminisationUtilities;
 
 import java.util.*;
 
@@ -108,6 +109,23 @@ public class LoveLetterGameState extends AbstractGameState implements IPrintable
         return llgs;
     }
 
+    @Override
+    public boolean canRedeterminise() {
+        return true;
+    }
+
+    @Override
+    protected void _redeterminise(int playerId, Random rnd) {
+        // As in _copy(): the draw pile and the cards in other players' hands that playerId has not seen
+        List<Deck<LoveLetterCard>> hidden = new ArrayList<>();
+        hidden.add(drawPile);
+        for (int i = 0; i < getNPlayers(); i++) {
+            if (i != playerId)
+                hidden.add(playerHandCards.get(i));
+        }
+        DeterminisationUtilities.reshuffle(playerId, hidden, c -> true, rnd);
+    }
+
     @Override
     protected double _getHeuristicScore(int playerId) {
         return new LoveLetterHeuristic().evaluateState(this, playerId);
@@ -61,7 +61,7 @@ public class LoveLetterMetrics implements IMetricsCollection {
                 eliminatedPlayers.add(victim);
                 return false;
             } else {
-                PlayCard action = (PlayCard) e.state.getHistory().get(e.state.getHistory().size() - 1);  // Last action played
+                PlayCard action = (PlayCard) e.state.getLastAction();  // Last action played
                 if (killer != -1) {
                     // An elimination happened as a result of the last action played
                     records.put("WinCause", killer == victim ? action.getCardType().name() + ".opp" : action.getCardType().name());
@@ -533,7 +533,7 @@ public class TMGUI extends AbstractGUIManager {
             }
 
             if (player instanceof HumanGUIPlayer) {
-                TMAction action = (TMAction) gameState.getHistory().get(gameState.getHistory().size()-1);
+                TMAction action = (TMAction) gameState.getLastAction();
                 TMTurnOrder turnOrder = (TMTurnOrder) gs.getTurnOrder();
                 if (!action.equals(lastAction) || !turnOrder.equals(this.turnOrder)) {
                     createActionMenu(player, (TMGameState) gameState);
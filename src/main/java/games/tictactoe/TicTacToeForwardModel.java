@@ -41,6 +41,11 @@ public class TicTacToeForwardModel extends StandardForwardModel {
 
     @Override
     protected void _afterAction(AbstractGameState currentState, AbstractAction action) {
+        if (action instanceof SetGridValueAction) {
+            SetGridValueAction<Token> move = (SetGridValueAction<Token>) action;
+            ((TicTacToeGameState) currentState).cellFilled(move.getX(), move.getY(),
+                    TicTacToeConstants.playerMapping.indexOf(move.getValue()));
+        }
         if (checkAndProcessGameEnd((TicTacToeGameState) currentState)) {
             return;
         }
@@ -8,6 +8,7 @@ import core.components.Token;
 import core.interfaces.IGridGameState;
 import core.interfaces.IPrintable;
 import games.GameType;
+import utilities.ZobristKeys;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -38,12 +39,25 @@ public class TicTacToeGameState extends AbstractGameState implements IPrintable,
     protected TicTacToeGameState _copy(int playerId) {
         TicTacToeGameState s = new TicTacToeGameState(gameParameters.copy(), getNPlayers());
         s.gridBoard = gridBoard.copy();
+        s.stateHash = stateHash;
         return s;
     }
 
+    @Override
+    public boolean hasStateHash() {
+        return true;
+    }
+
+    /**
+     * Updates the state hash for a player's token being placed in an empty cell
+     */
+    void cellFilled(int x, int y, int player) {
+        stateHash ^= ZobristKeys.key(y * gridBoard.getWidth() + x, player);
+    }
+
     @Override
     protected double _getHeuristicScore(int playerId) {
-        return new TicTacToeHeuristic().evaluateState(this, playerId);
+        return TicTacToeHeuristic.DEFAULT.evaluateState(this, playerId);
     }
 
     /**
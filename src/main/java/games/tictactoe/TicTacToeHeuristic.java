@@ -11,6 +11,11 @@ public class TicTacToeHeuristic extends TunableParameters implements IStateHeuri
     double FACTOR_PLAYER = 0.8;
     double FACTOR_OPPONENT = 0.5;
 
+    /**
+     * Shared instance with the default parameters, used by the game states. It must not be modified.
+     */
+    public static final TicTacToeHeuristic DEFAULT = new TicTacToeHeuristic();
+
     public TicTacToeHeuristic() {
         addTunableParameter("FACTOR_PLAYER", 0.8);
         addTunableParameter("FACTOR_OPPONENT", 0.5);
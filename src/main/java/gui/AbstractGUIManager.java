@@ -50,6 +50,8 @@ public abstract class AbstractGUIManager {
         this.parent = parent;
         this.game = game;
         this.humanPlayerId = human;
+        if (game != null)
+            game.getGameState().setRecordHistoryText(true);
 
         gameStatus = new JLabel();
         playerStatus = new JLabel();
@@ -1,10 +1,12 @@
 package players.heuristics;
 
+import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 
 import java.io.*;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Provides a wrapper around an IStateFeatureVector and an array of coefficients
@@ -41,6 +43,39 @@ public abstract class AbstractStateHeuristic implements IStateHeuristic {
         loadModel(coefficientsFile);
     }
 
+    /**
+     * Computes the linear predictor (the bias plus the coefficients times the features) of every state for every
+     * player. The feature vectors are gathered into one dense row-major matrix (a row per state and player, with the
+     * bias term in the first column), which is then multiplied by the coefficients in a single pass.
+     *
+     * @return z[i * nPlayers + p] is the predictor for states.get(i) and player p
+     */
+    protected double[] linearPredictors(List<? extends AbstractGameState> states, int nPlayers) {
+        int nRows = states.size() * nPlayers;
+        int width = coefficients.length;
+        double[] matrix = new double[nRows * width];
+        for (int i = 0; i < states.size(); i++) {
+            for (int p = 0; p < nPlayers; p++) {
+                int row = (i * nPlayers + p) * width;
+                double[] phi = features.featureVector(states.get(i), p);
+                if (phi.length != width - 1)
+                    throw new AssertionError("Feature vector has " + phi.length + " features, but there are " +
+                            (width - 1) + " coefficients");
+                matrix[row] = 1.0;  // the bias term
+                System.arraycopy(phi, 0, matrix, row + 1, phi.length);
+            }
+        }
+        double[] retValue = new double[nRows];
+        for (int r = 0; r < nRows; r++) {
+            double z = 0.0;
+            int row = r * width;
+            for (int j = 0; j < width; j++)
+                z += matrix[row + j] * coefficients[j];
+            retValue[r] = z;
+        }
+        return retValue;
+    }
+
     private void loadModel(String coefficientsFile) {
         if (coefficientsFile.isEmpty()) {
             // in this case will default to the defaultHeuristic
@@ -5,6 +5,8 @@ import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 import utilities.Utils;
 
+import java.util.List;
+
 
 public class LinearStateHeuristic extends AbstractStateHeuristic {
 
@@ -32,4 +34,20 @@ public class LinearStateHeuristic extends AbstractStateHeuristic {
         }
         return Utils.clamp(retValue, minValue, maxValue);
     }
+
+    /**
+     * Scores the batch with one feature matrix. Subclasses that override evaluateState() score each state on its own.
+     */
+    @Override
+    public double[][] evaluateStates(List<? extends AbstractGameState> states) {
+        if (coefficients == null || states.isEmpty() || getClass() != LinearStateHeuristic.class)
+            return super.evaluateStates(states);
+        int nPlayers = states.get(0).getNPlayers();
+        double[] z = linearPredictors(states, nPlayers);
+        double[][] retValue = new double[states.size()][nPlayers];
+        for (int i = 0; i < retValue.length; i++)
+            for (int p = 0; p < nPlayers; p++)
+                retValue[i][p] = Utils.clamp(z[i * nPlayers + p], minValue, maxValue);
+        return retValue;
+    }
 }
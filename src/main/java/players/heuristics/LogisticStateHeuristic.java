@@ -4,6 +4,8 @@ import core.AbstractGameState;
 import core.interfaces.IStateFeatureVector;
 import core.interfaces.IStateHeuristic;
 
+import java.util.List;
+
 
 public class LogisticStateHeuristic extends AbstractStateHeuristic {
 
@@ -28,4 +30,20 @@ public class LogisticStateHeuristic extends AbstractStateHeuristic {
         }
         return 1.0 / ( 1.0 + Math.exp(-retValue));
     }
+
+    /**
+     * Scores the batch with one feature matrix. Subclasses that override evaluateState() score each state on its own.
+     */
+    @Override
+    public double[][] evaluateStates(List<? extends AbstractGameState> states) {
+        if (coefficients == null || states.isEmpty() || getClass() != LogisticStateHeuristic.class)
+            return super.evaluateStates(states);
+        int nPlayers = states.get(0).getNPlayers();
+        double[] z = linearPredictors(states, nPlayers);
+        double[][] retValue = new double[states.size()][nPlayers];
+        for (int i = 0; i < retValue.length; i++)
+            for (int p = 0; p < nPlayers; p++)
+                retValue[i][p] = 1.0 / (1.0 + Math.exp(-z[i * nPlayers + p]));
+        return retValue;
+    }
 }
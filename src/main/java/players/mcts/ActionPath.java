@@ -0,0 +1,95 @@
+package players.mcts;
+
+import core.actions.AbstractAction;
+import utilities.Pair;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+
+/**
+ * The actions taken (and the player who took each one) on one MCTS iteration, either in the tree or in the rollout.
+ * The actors and actions are held on two stacks that are cleared and reused from one iteration to the next, so that
+ * recording a path does not allocate anything once the stacks have grown to the longest path seen.
+ * <p>
+ * It can also be read as a List of (player, action) Pairs for updateMASTStatistics() and MASTBackup(). get() then
+ * returns a Pair that is reused for that position, so it is only valid until the path is next changed; use copy() to
+ * keep a path beyond the current iteration.
+ */
+public class ActionPath extends AbstractList<Pair<Integer, AbstractAction>> {
+
+    private int[] actors = new int[16];
+    private AbstractAction[] actions = new AbstractAction[16];
+    @SuppressWarnings("unchecked")
+    private Pair<Integer, AbstractAction>[] pairs = new Pair[16];
+    private int size;
+
+    public void push(int actor, AbstractAction action) {
+        if (size == actors.length) {
+            actors = Arrays.copyOf(actors, size * 2);
+            actions = Arrays.copyOf(actions, size * 2);
+            pairs = Arrays.copyOf(pairs, size * 2);
+        }
+        actors[size] = actor;
+        actions[size] = action;
+        size++;
+    }
+
+    public int actor(int index) {
+        return actors[index];
+    }
+
+    public AbstractAction action(int index) {
+        return actions[index];
+    }
+
+    /**
+     * @return the player who took the last action, or defaultActor if there are no actions on the path
+     */
+    public int lastActor(int defaultActor) {
+        return size == 0 ? defaultActor : actors[size - 1];
+    }
+
+    public ActionPath copy() {
+        ActionPath retValue = new ActionPath();
+        for (int i = 0; i < size; i++)
+            retValue.push(actors[i], actions[i]);
+        return retValue;
+    }
+
+    @Override
+    public boolean add(Pair<Integer, AbstractAction> pair) {
+        push(pair.a, pair.b);
+        return true;
+    }
+
+    @Override
+    public Pair<Integer, AbstractAction> get(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException("Index " + index + " out of range for path of length " + size);
+        Pair<Integer, AbstractAction> retValue = pairs[index];
+        if (retValue == null) {
+            retValue = new Pair<>(actors[index], actions[index]);
+            pairs[index] = retValue;
+        } else {
+            retValue.a = actors[index];
+            retValue.b = actions[index];
+        }
+        return retValue;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        // the actions are released so that they can be collected along with the rest of the search
+        for (int i = 0; i < size; i++) {
+            actions[i] = null;
+            if (pairs[i] != null)
+                pairs[i].b = null;
+        }
+        size = 0;
+    }
+}
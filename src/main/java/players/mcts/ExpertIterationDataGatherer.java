@@ -80,6 +80,7 @@ public class ExpertIterationDataGatherer {
         try {
             while (!nodeQueue.isEmpty()) {
                 SingleTreeNode node = nodeQueue.poll();
+                Map<AbstractAction, SingleTreeNode[]> children = node.getChildren();
                 // process this node
                 // we record its depth, value, visits, and the full feature list
                 StringBuilder output = new StringBuilder();
@@ -100,9 +101,9 @@ public class ExpertIterationDataGatherer {
                 if (actionFeatures != null)
                     for (AbstractAction action : actionsFromState) {
                         output = new StringBuilder();
-                        if (node.children.get(action) == null || node.children.get(action)[player] == null)
+                        if (children.get(action) == null || children.get(action)[player] == null)
                             continue;
-                        SingleTreeNode childNode = node.children.get(action)[player];
+                        SingleTreeNode childNode = children.get(action)[player];
                         double actionValue = childNode.getTotValue()[player] / childNode.getVisits();
                         output.append(String.format("%s\t%d\t%.3g\t%.3g\t%d\t%d", action.toString(), action.hashCode(),
                                 actionValue, actionValue - stateValue, childNode.getVisits(), node.getVisits()));
@@ -115,7 +116,7 @@ public class ExpertIterationDataGatherer {
 
 
                 // add children of current node to queue
-                for (SingleTreeNode child : node.children.values().stream()
+                for (SingleTreeNode child : children.values().stream()
                         .filter(Objects::nonNull)
                         .flatMap(Arrays::stream)
                         .filter(Objects::nonNull)
@@ -3,52 +3,52 @@ package players.mcts;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
-import utilities.Pair;
 
-import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 public class MASTPlayer extends AbstractPlayer {
 
     Random rnd;
-    List<Map<AbstractAction, Pair<Integer, Double>>> MASTStatistics;
+    MASTStatistics MASTStatistics;
     double temperature = 0.1;
+    // reused from one call to the next, so that choosing an action allocates nothing
+    private double[] pdf = new double[16];
 
     public MASTPlayer(Random rnd) {
         this.rnd = rnd;
     }
 
-    public void setStats(List<Map<AbstractAction, Pair<Integer, Double>>> MASTStatistics) {
+    public void setStats(MASTStatistics MASTStatistics) {
         this.MASTStatistics = MASTStatistics;
     }
 
     @Override
     public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> possibleActions) {
-        double[] pdf = new double[possibleActions.size()];
-        for (int i = 0; i < possibleActions.size(); i++) {
-            AbstractAction a = possibleActions.get(i);
-            double actionValue = 10.0; // arbitrary and non-zero
-            int p = gameState.getCurrentPlayer();
-            if (MASTStatistics.get(p).containsKey(a)) {
-                Pair<Integer, Double> stats = MASTStatistics.get(p).get(a);
-                actionValue = stats.a > 0 ? stats.b / stats.a : 0.0;
-            }
-            pdf[i] = actionValue;
+        int n = possibleActions.size();
+        if (n == 0)
+            throw new AssertionError("Nothing in pdf!");
+        if (pdf.length < n)
+            pdf = new double[Math.max(n, pdf.length * 2)];
+        int p = gameState.getCurrentPlayer();
+        double max = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            // arbitrary and non-zero for actions not yet taken
+            pdf[i] = MASTStatistics.meanValue(p, possibleActions.get(i), 10.0);
+            max = Math.max(max, pdf[i]);
         }
-
-        double max = Arrays.stream(pdf).max().orElseThrow(() -> new AssertionError("Nothing in pdf!"));
-        for (int i = 0; i < pdf.length; i++)
+        double sum = 0.0;
+        for (int i = 0; i < n; i++) {
             pdf[i] = Math.exp((pdf[i] - max) / temperature);
-        double sum = Arrays.stream(pdf).sum();
-        for (int i = 0; i < pdf.length; i++)
+            sum += pdf[i];
+        }
+        for (int i = 0; i < n; i++)
             pdf[i] /= sum; // and normalise to a pdf
 
         // TODO: Use the same code here as in EXP3 and RM with a utility function?
         double cdfSample = rnd.nextDouble();
         double cdf = 0.0;
-        for (int i = 0; i < pdf.length; i++) {
+        for (int i = 0; i < n; i++) {
             cdf += pdf[i];
             if (cdf >= cdfSample)
                 return possibleActions.get(i);
@@ -0,0 +1,101 @@
+package players.mcts;
+
+import core.actions.AbstractAction;
+import utilities.ActionIndex;
+import utilities.Utils;
+
+import java.util.Arrays;
+
+/**
+ * Move-Average Sampling Technique (MAST) statistics: the number of times each player has taken each action, and the
+ * total value that followed. Actions are mapped to IDs by an ActionIndex, and the statistics held in arrays indexed
+ * by ID and player, so that neither recording an action nor looking one up allocates anything once the action has
+ * been seen.
+ * A copy shares the ActionIndex (so IDs stay the same) but not the statistics.
+ */
+public class MASTStatistics {
+
+    private final ActionIndex index;
+    private final int nPlayers;
+    // all three are indexed by id * nPlayers + player
+    private int[] visits = new int[0];
+    private double[] totValues = new double[0];
+    private boolean[] seen = new boolean[0];
+
+    public MASTStatistics(int nPlayers) {
+        this(nPlayers, new ActionIndex());
+    }
+
+    public MASTStatistics(int nPlayers, ActionIndex index) {
+        this.nPlayers = nPlayers;
+        this.index = index;
+    }
+
+    /**
+     * Records that player took action, and that this was followed by value
+     */
+    public void update(int player, AbstractAction action, double value) {
+        int i = index.register(action) * nPlayers + player;
+        if (i >= visits.length) {
+            int length = Math.max(i + 1, visits.length * 2);
+            visits = Arrays.copyOf(visits, length);
+            totValues = Arrays.copyOf(totValues, length);
+            seen = Arrays.copyOf(seen, length);
+        }
+        visits[i]++;
+        totValues[i] += value;
+        seen[i] = true;
+    }
+
+    /**
+     * @return true if player has taken the action since these statistics were created (even if its visits have
+     * since decayed to zero)
+     */
+    public boolean contains(int player, AbstractAction action) {
+        return slot(player, action) >= 0;
+    }
+
+    /**
+     * @return the mean value of the action for player, zero if its visits have decayed to nothing, or
+     * unseenValue if player has not taken it
+     */
+    public double meanValue(int player, AbstractAction action, double unseenValue) {
+        int i = slot(player, action);
+        if (i < 0)
+            return unseenValue;
+        return visits[i] > 0 ? totValues[i] / visits[i] : 0.0;
+    }
+
+    public int visits(int player, AbstractAction action) {
+        int i = slot(player, action);
+        return i < 0 ? 0 : visits[i];
+    }
+
+    public double totValue(int player, AbstractAction action) {
+        int i = slot(player, action);
+        return i < 0 ? 0.0 : totValues[i];
+    }
+
+    private int slot(int player, AbstractAction action) {
+        int id = index.idOf(action);
+        if (id < 0)
+            return -1;
+        int i = id * nPlayers + player;
+        return i < seen.length && seen[i] ? i : -1;
+    }
+
+    /**
+     * Decays all the statistics in place (see Utils.decay())
+     */
+    public void decay(double gamma) {
+        Utils.decay(visits, totValues, gamma);
+    }
+
+    public MASTStatistics copy() {
+        MASTStatistics retValue = new MASTStatistics(nPlayers, index);
+        retValue.visits = visits.clone();
+        retValue.totValues = totValues.clone();
+        retValue.seen = seen.clone();
+        return retValue;
+    }
+}
@@ -24,6 +24,14 @@ public class MCTSEnums {
         UCB, UCB_Tuned, AlphaGo, EXP3, RegretMatching, RM_Plus, Hedge
     }
 
+    public enum ParallelMode {
+        NONE, ROOT, TREE
+        // ROOT searches nThreads independent trees (each from its own copy of the state) and merges the statistics
+        // of the root actions before choosing one
+        // TREE has nThreads threads all searching the same tree, with a virtual loss to spread them over different
+        // branches
+    }
+
     public enum RolloutTermination {
         DEFAULT, END_TURN, START_TURN, END_ROUND;
     }
@@ -40,9 +40,13 @@ public class MCTSMetrics implements IMetricsCollection {
                 OptionalInt maxVisits = Arrays.stream(root.actionVisits()).max();
                 records.put("maxVisitProportion", (maxVisits.isPresent() ? maxVisits.getAsInt() : 0) / (double) visits);
                 records.put("Action", e.action.getString(e.state));
-                records.put("ActionsAtRoot", root.children.size());
+                records.put("ActionsAtRoot", root.childCount());
                 records.put("fmCalls", mctsPlayer.root.fmCallsCount / visits);
                 records.put("copyCalls", mctsPlayer.root.copyCount / visits);
+                NodePool pool = mctsPlayer.getNodePool();
+                records.put("NodesAllocated", pool.getAllocated());
+                records.put("NodesRecycled", pool.getRecycled());
+                records.put("NodesPruned", pool.getPruned());
                 return true;
             }
             return false;
@@ -69,6 +73,9 @@ public class MCTSMetrics implements IMetricsCollection {
             cols.put("ActionsAtRoot", Integer.class);
             cols.put("fmCalls", Integer.class);
             cols.put("copyCalls", Integer.class);
+            cols.put("NodesAllocated", Integer.class);
+            cols.put("NodesRecycled", Integer.class);
+            cols.put("NodesPruned", Integer.class);
             return cols;
         }
     }
@@ -98,7 +105,7 @@ public class MCTSMetrics implements IMetricsCollection {
                 records.put("Nodes", treeStats.stream().mapToInt(ts -> ts.totalNodes).average().orElse(0.0));
                 records.put("OneActionNodes", treeStats.stream().mapToInt(ts -> ts.oneActionNodes).average().orElse(0.0));
                 records.put("MeanActionsAtNode", treeStats.stream().mapToDouble(ts -> ts.meanActionsAtNode).average().orElse(0.0));
-                records.put("ActionsAtRoot", otherRoots.stream().mapToInt(node -> node.children.size()).average().orElse(0.0));
+                records.put("ActionsAtRoot", otherRoots.stream().mapToInt(SingleTreeNode::childCount).average().orElse(0.0));
                 return true;
             }
             return false;
@@ -62,6 +62,15 @@ public class MCTSParams extends PlayerParameters {
     public boolean maintainMasterState = false;
     public boolean discardStateAfterEachIteration = true;  // default will remove reference to OpenLoopState in backup(). Saves memory!
     public MCTSEnums.RolloutTermination rolloutTermination = DEFAULT;
+    public boolean reuseTree = false;  // keep the subtree for the actions actually taken since the last decision
+    public MCTSEnums.ParallelMode parallelMode = MCTSEnums.ParallelMode.NONE;
+    public int nThreads = 1;
+    public double virtualLoss = 1.0;  // value deducted per thread currently searching below a node (ParallelMode.TREE)
+    public int transpositionTableSize = 0;  // zero (the default) switches off sharing of nodes for the same state
+    public int timeCheckInterval = 1;  // with BUDGET_TIME, the CPU clock is read every this many iterations
+    public int maxTreeNodes = 0;  // if set, the least visited subtrees are pruned at this size, and nodes recycled
+    public boolean redeterminise = false;  // with Information_Set, re-sample hidden components in place where the game can
+    public int leafBatchSize = 1;  // leaves whose rollout states are scored together by heuristic.evaluateStates()
     public IStateHeuristic heuristic = AbstractGameState::getHeuristicScore;
     public IStateHeuristic opponentHeuristic = AbstractGameState::getHeuristicScore;
 
@@ -111,6 +120,15 @@ public class MCTSParams extends PlayerParameters {
         addTunableParameter("advantageFunction", IActionHeuristic.nullReturn);
         addTunableParameter("omaVisits", 0);
         addTunableParameter("paranoid", false);
+        addTunableParameter("reuseTree", false);
+        addTunableParameter("parallelMode", MCTSEnums.ParallelMode.NONE, Arrays.asList(MCTSEnums.ParallelMode.values()));
+        addTunableParameter("nThreads", 1);
+        addTunableParameter("virtualLoss", 1.0);
+        addTunableParameter("transpositionTableSize", 0);
+        addTunableParameter("timeCheckInterval", 1);
+        addTunableParameter("redeterminise", false);
+        addTunableParameter("maxTreeNodes", 0);
+        addTunableParameter("leafBatchSize", 1);
     }
 
     @Override
@@ -169,6 +187,15 @@ public class MCTSParams extends PlayerParameters {
         nodesStoreScoreDelta = (boolean) getParameterValue("nodesStoreScoreDelta");
         maintainMasterState = (boolean) getParameterValue("maintainMasterState");
         paranoid = (boolean) getParameterValue("paranoid");
+        reuseTree = (boolean) getParameterValue("reuseTree");
+        parallelMode = (MCTSEnums.ParallelMode) getParameterValue("parallelMode");
+        nThreads = (int) getParameterValue("nThreads");
+        virtualLoss = (double) getParameterValue("virtualLoss");
+        transpositionTableSize = (int) getParameterValue("transpositionTableSize");
+        timeCheckInterval = (int) getParameterValue("timeCheckInterval");
+        redeterminise = (boolean) getParameterValue("redeterminise");
+        maxTreeNodes = (int) getParameterValue("maxTreeNodes");
+        leafBatchSize = (int) getParameterValue("leafBatchSize");
         discardStateAfterEachIteration = (boolean) getParameterValue("discardStateAfterEachIteration");
         if (information == Closed_Loop)
             discardStateAfterEachIteration = false;
@@ -288,6 +315,15 @@ public class MCTSParams extends PlayerParameters {
         retValue.opponentHeuristic = opponentHeuristic;
         retValue.discardStateAfterEachIteration = discardStateAfterEachIteration;
         retValue.paranoid = paranoid;
+        retValue.reuseTree = reuseTree;
+        retValue.parallelMode = parallelMode;
+        retValue.nThreads = nThreads;
+        retValue.virtualLoss = virtualLoss;
+        retValue.transpositionTableSize = transpositionTableSize;
+        retValue.timeCheckInterval = timeCheckInterval;
+        retValue.redeterminise = redeterminise;
+        retValue.maxTreeNodes = maxTreeNodes;
+        retValue.leafBatchSize = leafBatchSize;
         return retValue;
     }
 
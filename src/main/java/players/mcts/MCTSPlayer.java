@@ -9,13 +9,17 @@ import evaluation.listeners.IGameListener;
 import core.interfaces.IStateHeuristic;
 import evaluation.metrics.Event;
 import utilities.Pair;
-import utilities.Utils;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.Supplier;
-import java.util.stream.Collectors;
 
+import static players.PlayerConstants.BUDGET_TIME;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.*;
+import static players.mcts.MCTSEnums.ParallelMode.ROOT;
 import static players.mcts.MCTSEnums.OpponentTreePolicy.MultiTree;
 
 public class MCTSPlayer extends AbstractPlayer {
@@ -31,9 +35,15 @@ public class MCTSPlayer extends AbstractPlayer {
     protected AbstractPlayer rolloutStrategy;
     protected boolean debug = false;
     protected SingleTreeNode root;
-    List<Map<AbstractAction, Pair<Integer, Double>>> MASTStats;
+    // Number of actions in the game history when the current root was searched (used to re-root with reuseTree)
+    private int historySizeAtRoot;
+    MASTStatistics MASTStats;
     private AbstractPlayer opponentModel;
     private IActionHeuristic advantageFunction;
+    // Threads for parallel search, created when first needed
+    private ExecutorService executor;
+    // Supplies the nodes for the trees, created when first needed
+    NodePool nodePool;
 
     public MCTSPlayer() {
         this(System.currentTimeMillis());
@@ -58,6 +68,25 @@ public class MCTSPlayer extends AbstractPlayer {
         setName(name);
     }
 
+    /**
+     * A player to search one of the trees in root parallelisation (or for one of the threads in tree
+     * parallelisation). It shares the parameters and heuristics of
+     * the main player, but has its own random seed, forward model, rollout policy and opponent model.
+     */
+    private MCTSPlayer(MCTSPlayer master, long seed) {
+        params = master.params;
+        rnd = new Random(seed);
+        rolloutStrategy = master.rolloutStrategy.copy();
+        opponentModel = master.opponentModel == master.rolloutStrategy ? rolloutStrategy : master.opponentModel.copy();
+        heuristic = master.heuristic;
+        opponentHeuristic = master.opponentHeuristic;
+        advantageFunction = master.advantageFunction;
+        if (master.MASTStats != null)
+            MASTStats = master.MASTStats.copy();
+        setName(master.toString());
+        setForwardModel(master.getForwardModel().copy());
+    }
+
     @Override
     public void initializePlayer(AbstractGameState state) {
         rolloutStrategy.initializePlayer(state);
@@ -65,6 +94,9 @@ public class MCTSPlayer extends AbstractPlayer {
         if (advantageFunction instanceof AbstractPlayer)
             ((AbstractPlayer) advantageFunction).initializePlayer(state);
         MASTStats = null;
+        if (root != null && params.maxTreeNodes > 0)
+            releaseTree(root, null);
+        root = null;
     }
 
     /**
@@ -81,28 +113,75 @@ public class MCTSPlayer extends AbstractPlayer {
         };
     }
 
-    @Override
-    public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> actions) {
-        // Search for best action from the root
-        if (params.opponentTreePolicy == MultiTree)
-            root = new MultiTreeNode(this, gameState, rnd);
-        else
-            root = SingleTreeNode.createRootNode(this, gameState, rnd, getFactory());
+    /**
+     * The nodes for all the trees this player searches come from here (ultimately from getFactory()). With
+     * params.maxTreeNodes set the nodes of each tree are returned to it once the next decision has been made, so
+     * the trees for later decisions can reuse them. It keeps as many as a search can use at once.
+     */
+    NodePool nodePool() {
+        if (nodePool == null) {
+            int capacity = params.maxTreeNodes;
+            if (params.nThreads > 1 && params.parallelMode == ROOT)
+                capacity *= params.nThreads;  // one tree per thread
+            else if (params.nThreads > 1 && params.parallelMode == MCTSEnums.ParallelMode.TREE)
+                capacity += params.nThreads;  // plus a node per thread for its rollouts
+            nodePool = new NodePool(getFactory(), capacity);
+        }
+        return nodePool;
+    }
 
-        if (MASTStats != null)
-            root.MASTStatistics = MASTStats.stream()
-                    .map(m -> Utils.decay(m, params.MASTGamma))
-                    .collect(Collectors.toList());
+    /**
+     * @return the pool the nodes of this player's trees come from, with counts for the last decision
+     */
+    public NodePool getNodePool() {
+        return nodePool();
+    }
 
-        if (rolloutStrategy instanceof MASTPlayer) {
-            ((MASTPlayer) rolloutStrategy).setStats(root.MASTStatistics);
-            ((MASTPlayer) rolloutStrategy).temperature = params.MASTBoltzmann;
+    /**
+     * Returns the nodes of the old tree to the pool, except for those below keep (the new root, if it is in the
+     * old tree)
+     */
+    private void releaseTree(SingleTreeNode oldRoot, SingleTreeNode keep) {
+        if (oldRoot instanceof MultiTreeNode) {
+            for (SingleTreeNode treeRoot : ((MultiTreeNode) oldRoot).roots)
+                if (treeRoot != null)
+                    nodePool().release(treeRoot, keep);
+        } else {
+            nodePool().release(oldRoot, keep);
         }
-        if (opponentModel instanceof MASTPlayer) {
-            ((MASTPlayer) opponentModel).setStats(root.MASTStatistics);
-            ((MASTPlayer) opponentModel).temperature = params.MASTBoltzmann;
+    }
+
+    @Override
+    public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> actions) {
+        nodePool().resetCounts();
+        SingleTreeNode oldRoot = params.maxTreeNodes > 0 ? root : null;
+        if (params.parallelMode == ROOT && params.nThreads > 1 && params.opponentTreePolicy != MultiTree) {
+            if (oldRoot != null)
+                releaseTree(oldRoot, null);
+            root = rootParallelSearch(gameState);
+        } else {
+            // Search for best action from the root
+            SingleTreeNode newRoot = null;
+            if (params.reuseTree) {
+                List<Pair<Integer, AbstractAction>> history = gameState.getHistoryWithPlayers();
+                if (root != null && !(root instanceof MultiTreeNode) && history.size() > historySizeAtRoot)
+                    newRoot = root.findDescendant(history.subList(historySizeAtRoot, history.size()), gameState);
+                historySizeAtRoot = history.size();
+            }
+            if (newRoot != null)
+                newRoot.makeRoot(this, gameState, rnd);
+            else if (params.opponentTreePolicy == MultiTree)
+                newRoot = new MultiTreeNode(this, gameState, rnd);
+            else
+                newRoot = SingleTreeNode.createRootNode(this, gameState, rnd, nodePool());
+            if (oldRoot != null)
+                releaseTree(oldRoot, newRoot);
+            root = newRoot;
+            if (params.parallelMode == MCTSEnums.ParallelMode.TREE && params.nThreads > 1 && params.opponentTreePolicy != MultiTree)
+                treeParallelSearch(root);
+            else
+                search(root, params.budget);
         }
-        root.mctsSearch();
         if (params.gatherExpertIterationData) {
             ExpertIterationDataGatherer eidg = new ExpertIterationDataGatherer(
                     params.expertIterationFileStem,
@@ -124,18 +203,127 @@ public class MCTSPlayer extends AbstractPlayer {
 
         MASTStats = root.MASTStatistics;
         // Return best action
-        if (root.children.size() > 2 * actions.size())
-            throw new AssertionError(String.format("Unexpectedly large number of children: %d with action size of %d", root.children.size(), actions.size()) );
+        if (root.childCount() > 2 * actions.size())
+            throw new AssertionError(String.format("Unexpectedly large number of children: %d with action size of %d", root.childCount(), actions.size()) );
         return root.bestAction();
     }
 
 
+    /**
+     * Sets up the MAST statistics for the search from the given root, and runs it
+     */
+    private void search(SingleTreeNode root, int budget) {
+        if (MASTStats != null) {
+            MASTStats.decay(params.MASTGamma);
+            root.MASTStatistics = MASTStats;
+        }
+        useMASTStatistics(root.MASTStatistics);
+        root.mctsSearch(budget);
+    }
+
+    private void useMASTStatistics(MASTStatistics stats) {
+        if (rolloutStrategy instanceof MASTPlayer) {
+            ((MASTPlayer) rolloutStrategy).setStats(stats);
+            ((MASTPlayer) rolloutStrategy).temperature = params.MASTBoltzmann;
+        }
+        if (opponentModel instanceof MASTPlayer) {
+            ((MASTPlayer) opponentModel).setStats(stats);
+            ((MASTPlayer) opponentModel).temperature = params.MASTBoltzmann;
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(params.nThreads, r -> {
+                Thread thread = new Thread(r, "MCTS-" + this);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    /**
+     * Tree parallelisation: nThreads threads search the given root at the same time, each with its own
+     * forward model, rollout policy and opponent model (see SingleTreeNode.treeParallelSearch()).
+     * Rollout policies that use MAST see the statistics as they were at the start of the search; the statistics
+     * on the tree are updated as usual, and used from the next decision.
+     * Unlike the serial search this is not repeatable from the same seed, as the threads interleave differently
+     * on each run.
+     */
+    private void treeParallelSearch(SingleTreeNode root) {
+        if (MASTStats != null) {
+            MASTStats.decay(params.MASTGamma);
+            root.MASTStatistics = MASTStats;
+        }
+        int startVisits = root.getVisits();
+        List<Future<?>> threads = new ArrayList<>();
+        for (int t = 0; t < params.nThreads; t++) {
+            MCTSPlayer worker = new MCTSPlayer(this, rnd.nextLong());
+            worker.useMASTStatistics(root.MASTStatistics.copy());
+            threads.add(getExecutor().submit(() -> root.treeParallelSearch(worker, params.budget, startVisits)));
+        }
+        try {
+            for (Future<?> thread : threads)
+                thread.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during MCTS search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error in MCTS search thread", e.getCause());
+        }
+    }
+
+    /**
+     * Root parallelisation: nThreads independent trees are searched at the same time, each from its own copy of the
+     * state (so in a game with hidden information each tree starts from a different determinisation), and with its
+     * own random seed, forward model, rollout policy and opponent model.
+     * With a time budget every tree runs for the full time; any other budget is divided equally between them.
+     * The root statistics of the other trees are then merged into those of the first, which is returned.
+     * (The tree is not kept for re-use at the next decision in this mode.)
+     */
+    private SingleTreeNode rootParallelSearch(AbstractGameState gameState) {
+        int nTrees = params.nThreads;
+        int budget = params.budgetType == BUDGET_TIME ? params.budget : Math.max(1, params.budget / nTrees);
+        Supplier<? extends SingleTreeNode> factory = nodePool();
+        List<Future<SingleTreeNode>> trees = new ArrayList<>();
+        // All copies (and seeds) are taken here on this thread, so that the search is repeatable
+        for (int t = 0; t < nTrees; t++) {
+            MCTSPlayer worker = new MCTSPlayer(this, rnd.nextLong());
+            AbstractGameState determinisation = gameState.copy(gameState.getCurrentPlayer());
+            trees.add(getExecutor().submit(() -> {
+                SingleTreeNode treeRoot = SingleTreeNode.createRootNode(worker, determinisation, worker.rnd, factory);
+                worker.search(treeRoot, budget);
+                return treeRoot;
+            }));
+        }
+        SingleTreeNode retValue = null;
+        try {
+            for (Future<SingleTreeNode> tree : trees) {
+                if (retValue == null)
+                    retValue = tree.get();
+                else
+                    retValue.mergeRootStatistics(tree.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during MCTS search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error in MCTS search thread", e.getCause());
+        }
+        return retValue;
+    }
+
     public AbstractPlayer getOpponentModel(int playerID) {
         return opponentModel;
     }
 
     @Override
     public void finalizePlayer(AbstractGameState state) {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
         rolloutStrategy.onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
         opponentModel.onEvent(Event.createEvent(Event.GameEvent.GAME_OVER, state));
         if (heuristic instanceof IGameListener)
@@ -168,10 +356,11 @@ public class MCTSPlayer extends AbstractPlayer {
         Map<AbstractAction, Map<String, Object>> retValue = new LinkedHashMap<>();
 
         if (root != null && root.getVisits() > 1) {
-            for (AbstractAction action : root.children.keySet()) {
-                int visits = Arrays.stream(root.children.get(action)).filter(Objects::nonNull).mapToInt(SingleTreeNode::getVisits).sum();
+            Map<AbstractAction, SingleTreeNode[]> children = root.getChildren();
+            for (AbstractAction action : children.keySet()) {
+                int visits = Arrays.stream(children.get(action)).filter(Objects::nonNull).mapToInt(SingleTreeNode::getVisits).sum();
                 double visitProportion = visits / (double) root.getVisits();
-                double meanValue =  Arrays.stream(root.children.get(action)).filter(Objects::nonNull).mapToDouble(n -> n.getTotValue()[root.decisionPlayer]).sum()/ visits;
+                double meanValue =  Arrays.stream(children.get(action)).filter(Objects::nonNull).mapToDouble(n -> n.getTotValue()[root.decisionPlayer]).sum()/ visits;
                 double heuristicValue = heuristic != null ? heuristic.evaluateState(root.state, root.decisionPlayer) : 0.0;
                 double advantageValue = advantageFunction != null ? advantageFunction.evaluateAction(action, root.state) : 0.0;
 
@@ -4,13 +4,11 @@ import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
 import core.interfaces.IStatisticLogger;
-import utilities.Pair;
 import utilities.Utils;
 
 import java.util.*;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
-import java.util.stream.IntStream;
 
 import static utilities.Utils.entropyOf;
 
@@ -53,27 +51,28 @@ public class MultiTreeNode extends SingleTreeNode {
                 opponentModels[p] = player.getOpponentModel(p);
         }
         // only root node maintains MAST statistics
-        MASTStatistics = new ArrayList<>();
-        for (int i = 0; i < state.getNPlayers(); i++)
-            MASTStatistics.add(new HashMap<>());
-        MASTFunction = (a, s) -> {
-            Map<AbstractAction, Pair<Integer, Double>> MAST = MASTStatistics.get(decisionPlayer);
-            if (MAST.containsKey(a)) {
-                Pair<Integer, Double> stats = MAST.get(a);
-                return stats.b / (stats.a + params.epsilon);
-            }
-            return 0.0;
-        };
+        MASTStatistics = new MASTStatistics(state.getNPlayers());
+        MASTFunction = (a, s) -> MASTStatistics.meanValue(decisionPlayer, a, 0.0);
         instantiate(null, null, state);
 
         roots = new SingleTreeNode[state.getNPlayers()];
-        roots[this.decisionPlayer] = SingleTreeNode.createRootNode(player, state, rnd, player.getFactory());
+        roots[this.decisionPlayer] = SingleTreeNode.createRootNode(player, state, rnd, player.nodePool());
         if (params.paranoid)
             roots[this.decisionPlayer].paranoidPlayer = decisionPlayer;
         currentLocation = new SingleTreeNode[state.getNPlayers()];
         currentLocation[this.decisionPlayer] = roots[decisionPlayer];
     }
 
+    /**
+     * Each player's tree is kept within an equal share of params.maxTreeNodes
+     */
+    @Override
+    protected void enforceNodeBudget() {
+        for (SingleTreeNode treeRoot : roots)
+            if (treeRoot != null)
+                treeRoot.pruneTree(params.maxTreeNodes / roots.length);
+    }
+
     /**
      * oneSearchIteration() implements the strategy for tree search (plus expansion, rollouts, backup and so on)
      * Its result is purely stored in the tree generated from root
@@ -86,8 +85,9 @@ public class MultiTreeNode extends SingleTreeNode {
         AbstractGameState currentState = this.openLoopState;  // this will have been set correctly before calling this method
         SingleTreeNode currentNode;
 
-        double[] startingValues = IntStream.range(0, openLoopState.getNPlayers())
-                .mapToDouble(i -> heuristic.evaluateState(currentState, i)).toArray();
+        double[] startingValues = new double[currentState.getNPlayers()];
+        for (int i = 0; i < startingValues.length; i++)
+            startingValues[i] = heuristic.evaluateState(currentState, i);
 
         if (!currentState.isNotTerminal())
             return;
@@ -100,8 +100,12 @@ public class MultiTreeNode extends SingleTreeNode {
         for (int i = 0; i < currentLocation.length; i++)
             currentLocation[i] = roots[i];
 
-        actionsInTree = new ArrayList<>();
-        actionsInRollout = new ArrayList<>();
+        if (actionsInTree == null) {
+            actionsInTree = new ActionPath();
+            actionsInRollout = new ActionPath();
+        }
+        actionsInTree.clear();
+        actionsInRollout.clear();
 
         // Keep iterating while the state reached is not terminal and the depth of the tree is not exceeded
         do {
@@ -110,7 +114,7 @@ public class MultiTreeNode extends SingleTreeNode {
             int currentActor = currentState.getCurrentPlayer();
             if (roots[currentActor] == null) {
                 // their first action in search; set a root for their tree
-                SingleTreeNode pseudoRoot = SingleTreeNode.createRootNode(mctsPlayer, currentState.copy(), rnd, mctsPlayer.getFactory());
+                SingleTreeNode pseudoRoot = SingleTreeNode.createRootNode(mctsPlayer, currentState.copy(), rnd, mctsPlayer.nodePool());
                 pseudoRoot.decisionPlayer = currentActor;
                 if (params.paranoid)
                     pseudoRoot.paranoidPlayer = decisionPlayer;
@@ -129,7 +133,7 @@ public class MultiTreeNode extends SingleTreeNode {
                     throw new AssertionError("We should always have something to choose from");
 
                 AbstractAction chosen = agent.getAction(currentState, availableActions);
-                actionsInRollout.add(new Pair<>(currentActor, chosen));
+                actionsInRollout.push(currentActor, chosen);
                 if (debug)
                     System.out.printf("Rollout action chosen for P%d - %s %n", currentActor, chosen);
 
@@ -158,7 +162,7 @@ public class MultiTreeNode extends SingleTreeNode {
                         System.out.printf("Tree action chosen for P%d - %s %n", currentActor, chosen);
                     advance(currentState, chosen, false);
                 }
-                actionsInTree.add(new Pair<>(currentActor, chosen));
+                actionsInTree.push(currentActor, chosen);
                 if (currentLocation[currentActor].depth >= params.maxTreeDepth)
                     maxDepthReached[currentActor] = true;
             }
@@ -244,7 +248,7 @@ public class MultiTreeNode extends SingleTreeNode {
             stats.merge("leafNodes" + suffix, treeStats.totalLeaves * multiplier, addFn);
             stats.merge("terminalNodes" + suffix, treeStats.totalTerminalNodes * multiplier, addFn);
             stats.merge("maxDepth" + suffix, treeStats.depthReached * multiplier, addFn);
-            stats.merge("nActionsRoot" + suffix, node.children.size() * multiplier, addFn);
+            stats.merge("nActionsRoot" + suffix, node.childCount() * multiplier, addFn);
             stats.merge("nActionsTree" + suffix, treeStats.meanActionsAtNode * multiplier, addFn);
             stats.merge("maxActionsAtNode" + suffix, treeStats.maxActionsAtNode * multiplier, addFn);
 
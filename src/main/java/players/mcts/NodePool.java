@@ -0,0 +1,104 @@
+package players.mcts;
+
+import java.util.ArrayDeque;
+import java.util.function.Supplier;
+
+/**
+ * Supplies the nodes for an MCTSPlayer's trees. Nodes from trees (or parts of trees) that are no longer needed are
+ * cleared and kept here, up to capacity, and handed out again before any new ones are created. Together with
+ * params.maxTreeNodes (which sets the capacity) this bounds the number of nodes a player ever holds, and means
+ * that after the first few decisions of a game a search allocates few new nodes.
+ * Also counts the nodes allocated, recycled and pruned, for MCTSMetrics.
+ * The pool may be shared by the threads of a parallel search, so every method that touches the free list or the
+ * counts is synchronized.
+ */
+public class NodePool implements Supplier<SingleTreeNode> {
+
+    private final Supplier<? extends SingleTreeNode> factory;
+    private final int capacity;
+    private final ArrayDeque<SingleTreeNode> free = new ArrayDeque<>();
+    // counts since the last resetCounts()
+    private int allocated, recycled, pruned;
+
+    /**
+     * @param factory  - creates new nodes when there are none to reuse
+     * @param capacity - the most cleared nodes to keep for reuse (zero to keep none)
+     */
+    public NodePool(Supplier<? extends SingleTreeNode> factory, int capacity) {
+        this.factory = factory;
+        this.capacity = capacity;
+    }
+
+    /**
+     * @return a cleared node if there is one, else a new one from the factory
+     */
+    @Override
+    public synchronized SingleTreeNode get() {
+        SingleTreeNode retValue = free.poll();
+        if (retValue == null) {
+            allocated++;
+            return factory.get();
+        }
+        recycled++;
+        return retValue;
+    }
+
+    /**
+     * Keeps a node (which must have been cleared) for reuse, if there is room
+     */
+    synchronized void offer(SingleTreeNode node) {
+        if (free.size() < capacity)
+            free.push(node);
+    }
+
+    /**
+     * Clears all the nodes below (and including) top, except for the subtree below keep (which may be null), and keeps
+     * as many as there is room for
+     *
+     * @return the number of nodes cleared
+     */
+    public synchronized int release(SingleTreeNode top, SingleTreeNode keep) {
+        return SingleTreeNode.release(top, keep, this);
+    }
+
+    /**
+     * Counts nodes removed from a tree by SingleTreeNode.pruneTree()
+     */
+    synchronized void addPruned(int nodes) {
+        pruned += nodes;
+    }
+
+    public synchronized void resetCounts() {
+        allocated = 0;
+        recycled = 0;
+        pruned = 0;
+    }
+
+    /**
+     * @return nodes created by the factory since the last resetCounts()
+     */
+    public synchronized int getAllocated() {
+        return allocated;
+    }
+
+    /**
+     * @return nodes handed out again since the last resetCounts()
+     */
+    public synchronized int getRecycled() {
+        return recycled;
+    }
+
+    /**
+     * @return nodes removed from trees by SingleTreeNode.pruneTree() since the last resetCounts()
+     */
+    public synchronized int getPruned() {
+        return pruned;
+    }
+
+    /**
+     * @return the number of cleared nodes waiting to be reused
+     */
+    public synchronized int size() {
+        return free.size();
+    }
+}
@@ -117,6 +117,20 @@ public class OMATreeNode extends SingleTreeNode {
         }
     }
 
+    @Override
+    protected void rootChanged() {
+        // an OMAParent above the new root is no longer part of the tree
+        if (OMAParent.isPresent() && OMAParent.get().root != root)
+            OMAParent = Optional.empty();
+    }
+
+    @Override
+    protected void clear() {
+        super.clear();
+        OMAParent = Optional.empty();
+        OMAChildren.clear();
+    }
+
     public Optional<OMATreeNode> getOMAParent() {
         return OMAParent;
     }
@@ -0,0 +1,102 @@
+package players.mcts;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.CoreConstants;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+
+import java.util.*;
+
+import static players.PlayerConstants.BUDGET_TIME;
+import static utilities.Utils.getArg;
+
+/**
+ * Compares parallel MCTS with the serial search, with the same time budget for each decision.
+ * For each number of threads this plays nGames games between one parallel player and serial players in all the
+ * other seats (the parallel player moves round the table from game to game), and reports the search iterations
+ * per second of the parallel and the serial players, and the win rate of the parallel player (a draw counts as
+ * half a win). With 1 thread all the players run the serial search.
+ * <p>
+ * Arguments (all optional): game=Connect4 budget=100 (ms) threads=1,2,4,8,16 nGames=20 mode=TREE|ROOT
+ * virtualLoss=1.0 seed=...
+ */
+public class ParallelSearchBenchmark {
+
+    public static void main(String[] args) {
+        GameType gameType = GameType.valueOf(getArg(args, "game", "Connect4"));
+        int budget = getArg(args, "budget", 100);
+        String threads = getArg(args, "threads", "1,2,4,8,16");
+        int nGames = getArg(args, "nGames", 20);
+        MCTSEnums.ParallelMode mode = getArg(args, "mode", MCTSEnums.ParallelMode.TREE);
+        double virtualLoss = getArg(args, "virtualLoss", 1.0);
+        long seed = getArg(args, "seed", (int) System.currentTimeMillis());
+        int nPlayers = Math.max(2, gameType.getMinPlayers());
+
+        System.out.printf("%s (%d players), %s parallel MCTS vs serial MCTS, %d ms per decision, %d games%n",
+                gameType.name(), nPlayers, mode, budget, nGames);
+        System.out.printf("%8s %14s %14s %10s%n", "Threads", "Iterations/s", "Serial it/s", "Win rate");
+        for (String t : threads.split(",")) {
+            int nThreads = Integer.parseInt(t.trim());
+            TimedMCTSPlayer parallel = new TimedMCTSPlayer(params(seed, budget), "Parallel");
+            parallel.params.parallelMode = mode;
+            parallel.params.nThreads = nThreads;
+            parallel.params.virtualLoss = virtualLoss;
+            List<TimedMCTSPlayer> serial = new ArrayList<>();
+            for (int p = 1; p < nPlayers; p++)
+                serial.add(new TimedMCTSPlayer(params(seed + p, budget), "Serial"));
+
+            Game game = gameType.createGameInstance(nPlayers, seed);
+            double score = 0.0;
+            for (int g = 0; g < nGames; g++) {
+                int parallelSeat = g % nPlayers;
+                List<AbstractPlayer> players = new ArrayList<>(serial);
+                players.add(parallelSeat, parallel);
+                game.reset(players, seed + g);
+                game.run();
+                CoreConstants.GameResult result = game.getGameState().getPlayerResults()[parallelSeat];
+                if (result == CoreConstants.GameResult.WIN_GAME)
+                    score += 1.0;
+                else if (result == CoreConstants.GameResult.DRAW_GAME)
+                    score += 0.5;
+            }
+            long serialIterations = serial.stream().mapToLong(s -> s.iterations).sum();
+            long serialNanos = serial.stream().mapToLong(s -> s.nanos).sum();
+            System.out.printf("%8d %14.0f %14.0f %10.3f%n", nThreads, parallel.iterationsPerSecond(),
+                    serialNanos == 0 ? 0.0 : serialIterations / (serialNanos / 1e9), score / nGames);
+        }
+    }
+
+    private static MCTSParams params(long seed, int budget) {
+        MCTSParams params = new MCTSParams(seed);
+        params.budgetType = BUDGET_TIME;
+        params.budget = budget;
+        return params;
+    }
+
+    /**
+     * Records the number of iterations (visits to the root) and the wall-clock time of each search
+     */
+    private static class TimedMCTSPlayer extends MCTSPlayer {
+        long iterations;
+        long nanos;
+
+        TimedMCTSPlayer(MCTSParams params, String name) {
+            super(params, name);
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> actions) {
+            long start = System.nanoTime();
+            AbstractAction retValue = super._getAction(gameState, actions);
+            nanos += System.nanoTime() - start;
+            iterations += root.getVisits();
+            return retValue;
+        }
+
+        double iterationsPerSecond() {
+            return nanos == 0 ? 0.0 : iterations / (nanos / 1e9);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package players.mcts;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import players.simple.RandomPlayer;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static players.PlayerConstants.BUDGET_ITERATIONS;
+import static utilities.Utils.getArg;
+
+/**
+ * Measures the speed of the MCTS search, and how much memory it allocates, on each of a list of games.
+ * For each game this plays nGames games between one MCTS player (with a fixed number of iterations per decision, so
+ * that every game does the same amount of work) and random players in all the other seats, and reports the search
+ * iterations per second and the bytes allocated per iteration and per second on the thread running the search.
+ * On small games the search is often limited by the garbage collector rather than by the forward model, which shows
+ * up here as a high allocation rate.
+ * <p>
+ * Arguments (all optional): games=TicTacToe,Connect4,DotsAndBoxes budget=1000 (iterations) nGames=10 warmup=2
+ * information=Closed_Loop|Open_Loop|Information_Set seed=...
+ */
+public class SearchAllocationBenchmark {
+
+    public static void main(String[] args) {
+        String games = getArg(args, "games", "TicTacToe,Connect4,DotsAndBoxes");
+        int budget = getArg(args, "budget", 1000);
+        int nGames = getArg(args, "nGames", 10);
+        int warmup = getArg(args, "warmup", 2);
+        MCTSEnums.Information information = getArg(args, "information", MCTSEnums.Information.Information_Set);
+        long seed = getArg(args, "seed", (int) System.currentTimeMillis());
+
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!bean.isThreadAllocatedMemorySupported())
+            throw new AssertionError("This JVM does not report allocated memory per thread");
+
+        System.out.printf("MCTS with %d iterations per decision (%s), %d games each after %d warm-up games%n",
+                budget, information, nGames, warmup);
+        System.out.printf("%-20s %14s %14s %14s%n", "Game", "Iterations/s", "Bytes/iter", "MB/s");
+        for (String g : games.split(",")) {
+            GameType gameType = GameType.valueOf(g.trim());
+            int nPlayers = Math.max(2, gameType.getMinPlayers());
+            MCTSParams params = new MCTSParams(seed);
+            params.budgetType = BUDGET_ITERATIONS;
+            params.budget = budget;
+            params.information = information;
+            params.discardStateAfterEachIteration = information != MCTSEnums.Information.Closed_Loop;
+            MeasuredMCTSPlayer mcts = new MeasuredMCTSPlayer(params, bean);
+            List<AbstractPlayer> players = new ArrayList<>();
+            players.add(mcts);
+            for (int p = 1; p < nPlayers; p++)
+                players.add(new RandomPlayer(new Random(seed + p)));
+
+            Game game = gameType.createGameInstance(nPlayers, seed);
+            for (int i = 0; i < warmup + nGames; i++) {
+                if (i == warmup)
+                    mcts.clear();
+                game.reset(players, seed + i);
+                game.run();
+            }
+            double seconds = mcts.nanos / 1e9;
+            System.out.printf("%-20s %14.0f %14.0f %14.1f%n", gameType.name(),
+                    mcts.iterations / seconds, mcts.bytes / (double) mcts.iterations, mcts.bytes / 1e6 / seconds);
+        }
+    }
+
+    /**
+     * Records the number of iterations (visits to the root), the wall-clock time and the bytes allocated by each search
+     */
+    private static class MeasuredMCTSPlayer extends MCTSPlayer {
+        final com.sun.management.ThreadMXBean bean;
+        long iterations, nanos, bytes;
+
+        MeasuredMCTSPlayer(MCTSParams params, com.sun.management.ThreadMXBean bean) {
+            super(params, "MCTS");
+            this.bean = bean;
+        }
+
+        void clear() {
+            iterations = 0;
+            nanos = 0;
+            bytes = 0;
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState gameState, List<AbstractAction> actions) {
+            long startBytes = bean.getCurrentThreadAllocatedBytes();
+            long start = System.nanoTime();
+            AbstractAction retValue = super._getAction(gameState, actions);
+            nanos += System.nanoTime() - start;
+            bytes += bean.getCurrentThreadAllocatedBytes() - startBytes;
+            iterations += root.getVisits();
+            return retValue;
+        }
+    }
+}
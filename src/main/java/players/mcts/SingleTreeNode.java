@@ -22,7 +22,16 @@ import static utilities.Utils.*;
 
 public class SingleTreeNode {
 
-    private final Map<AbstractAction, Integer> nValidVisits = new HashMap<>();
+    // Layout of the statistics held for each action in actionStats
+    private static final int STATS_VISITS = 0, STATS_VALUE = 1, STATS_SQUARES = 2, STATS_VALID_VISITS = 3,
+            STATS_PENDING = 4, STATS_ADVANTAGE = 5, STATS_SIZE = 6;
+    private static final double[] NO_STATS = new double[0];
+    private static final int[] NO_SLOTS = new int[0];
+    private static final AbstractAction[] NO_ACTIONS = new AbstractAction[0];
+    private static final SingleTreeNode[][] NO_CHILDREN = new SingleTreeNode[0][];
+    // the fraction of params.maxTreeNodes that pruneTree() cuts the tree back to
+    private static final double PRUNE_TO = 0.75;
+
     // State in this node (closed loop)
     protected AbstractGameState state;
     // State in this node (open loop - this is updated by onward trajectory....be very careful about using)
@@ -43,13 +52,42 @@ public class SingleTreeNode {
     protected AbstractAction actionToReach;
     // Number of visits to this node
     protected int nVisits;
+    // Number of iterations (in a tree parallel search) that have passed through this node and not yet been backed up
+    int pendingVisits;
     protected int rolloutActionsTaken;
     // variables to track rollout - these were originally local in rollout(); but
     // having them on the node reduces verbiage in passing to advance() to check rollout termination in some edge cases
     // (specifically when using SelfOnly trees, with START/END_TURN/ROUND rollout termination conditions
     protected int rolloutDepth, roundAtStartOfRollout, turnAtStartOfRollout, lastActorInRollout;
     List<AbstractAction> actionsFromOpenLoopState = new ArrayList<>();
-    Map<AbstractAction, Double> advantagesOfActionsFromOLS = new HashMap<>();
+    // the slot (see actionSlots) of each action in actionsFromOpenLoopState
+    private int[] slotsFromOpenLoopState = NO_SLOTS;
+    // Each action is given a dense slot the first time it is seen at this node. The statistics for the action are then
+    // held at actionStats[slot * STATS_SIZE + STATS_xxx], and its child nodes at slotChildren[slot], so that selection
+    // and descent can work through the slots without hashing the actions. actionSlots is only needed to find the slots
+    // for a newly computed list of actions (see setActionsFromOpenLoopState()).
+    // Visits and values are the totals over all the child nodes for the action (from the perspective of decisionPlayer),
+    // and are kept in step with the child nodes during backUp()
+    private final Map<AbstractAction, Integer> actionSlots = new HashMap<>();
+    private int nSlots;
+    private double[] actionStats = NO_STATS;
+    // the action (a copy) for each slot
+    private AbstractAction[] slotActions = NO_ACTIONS;
+    // Children of this node for each slot, or null if the action has not been expanded. This is an Array because we
+    // have to cater for the possibility that the next decision could be by any player - each of which would transition
+    // to a different Node OpenLoop search. (Closed Loop will only ever have one position in the array populated: and
+    // similarly if we are using a SelfOnly tree).
+    private SingleTreeNode[][] slotChildren = NO_CHILDREN;
+    // the slot in the parent of the action that reaches this node
+    int slotInParent = -1;
+    // The node this was reached from on the current iteration, and the slot there of the action taken. Only used when
+    // nodes are shared through the transposition table, as the parent is then just the first node to have reached this
+    SingleTreeNode pathParent;
+    int pathSlot = -1;
+    // Nodes by position (root only). Null unless params.transpositionTableSize > 0 and the game maintains a state hash
+    Map<Long, SingleTreeNode> transpositionTable;
+    // Number of nodes in the tree (root only), which pruneTree() keeps within params.maxTreeNodes
+    int treeSize;
     // Depth of this node
     int depth;
     // the id of the player who makes the decision at this node
@@ -62,20 +100,36 @@ public class SingleTreeNode {
     SingleTreeNode root;
     // Parent of this node
     SingleTreeNode parent;
-    // Children of this node. The value is an Array because we have to cater for the possibility that the next decision
-    // could be by any player - each of which would transition to a different Node OpenLoop search. (Closed Loop will
-    // only ever have one position in the array populated: and similarly if we are using a SelfOnly tree).
-    Map<AbstractAction, SingleTreeNode[]> children = new HashMap<>();
-    List<Map<AbstractAction, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
-    ToDoubleBiFunction<AbstractAction, AbstractGameState> advantageFunction = (a, s) -> advantagesOfActionsFromOLS.getOrDefault(a, 0.0);
+    MASTStatistics MASTStatistics;
     ToDoubleBiFunction<AbstractAction, AbstractGameState> MASTFunction;
     // The total value of all trajectories through this node (one element per player)
     private double[] totValue;
     private double[] totSquares;
     private Supplier<? extends SingleTreeNode> factory;
     // Total value of this node
-    List<Pair<Integer, AbstractAction>> actionsInTree;
-    List<Pair<Integer, AbstractAction>> actionsInRollout;
+    ActionPath actionsInTree;
+    ActionPath actionsInRollout;
+    // Buffers reused by every iteration of a search (on the root), so that an iteration allocates as little as possible
+    private double[] startingValues, rolloutValues, backUpValues, backUpSquares;
+    // Iterations (root only) whose rollouts have finished, waiting to be evaluated together (params.leafBatchSize > 1)
+    private List<PendingLeaf> pendingLeaves;
+
+    // An iteration whose final rollout state has not yet been evaluated
+    private static class PendingLeaf {
+        final SingleTreeNode node;
+        final AbstractGameState leafState;
+        final double[] startingValues;
+        final ActionPath actionsInTree, actionsInRollout;  // only kept if they are needed for MAST
+
+        PendingLeaf(SingleTreeNode node, AbstractGameState leafState, double[] startingValues,
+                    ActionPath actionsInTree, ActionPath actionsInRollout) {
+            this.node = node;
+            this.leafState = leafState;
+            this.startingValues = startingValues;
+            this.actionsInTree = actionsInTree;
+            this.actionsInRollout = actionsInRollout;
+        }
+    }
 
     protected SingleTreeNode() {
 
@@ -85,32 +139,334 @@ public class SingleTreeNode {
     public static SingleTreeNode createRootNode(MCTSPlayer player, AbstractGameState state, Random rnd, Supplier<? extends SingleTreeNode> factory) {
         SingleTreeNode retValue = factory.get();
         retValue.factory = factory;
-        retValue.decisionPlayer = state.getCurrentPlayer();
-        retValue.params = player.params;
-        retValue.forwardModel = player.getForwardModel();
-        retValue.heuristic = player.heuristic;
-        retValue.opponentHeuristic = player.opponentHeuristic;
-        retValue.rnd = rnd;
-        retValue.opponentModels = new AbstractPlayer[state.getNPlayers()];
-        for (int p = 0; p < retValue.opponentModels.length; p++) {
-            if (p == retValue.decisionPlayer)
-                retValue.opponentModels[p] = player.rolloutStrategy;
+        retValue.setRootFields(player, state, rnd);
+        retValue.instantiate(null, null, state);
+        retValue.treeSize = 1;
+        return retValue;
+    }
+
+    private void setRootFields(MCTSPlayer player, AbstractGameState state, Random rnd) {
+        decisionPlayer = state.getCurrentPlayer();
+        params = player.params;
+        forwardModel = player.getForwardModel();
+        heuristic = player.heuristic;
+        opponentHeuristic = player.opponentHeuristic;
+        this.rnd = rnd;
+        opponentModels = new AbstractPlayer[state.getNPlayers()];
+        for (int p = 0; p < opponentModels.length; p++) {
+            if (p == decisionPlayer)
+                opponentModels[p] = player.rolloutStrategy;
             else
-                retValue.opponentModels[p] = player.getOpponentModel(p);
+                opponentModels[p] = player.getOpponentModel(p);
+        }
+        transpositionTable = null;
+        if (params.transpositionTableSize > 0 && state.hasStateHash() && !params.reuseTree &&
+                params.parallelMode == MCTSEnums.ParallelMode.NONE &&
+                (params.opponentTreePolicy == OneTree || params.opponentTreePolicy == SelfOnly)) {
+            int maxSize = params.transpositionTableSize;
+            // access order, so that the least recently used positions are dropped first
+            transpositionTable = new LinkedHashMap<Long, SingleTreeNode>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, SingleTreeNode> eldest) {
+                    return size() > maxSize;
+                }
+            };
         }
         // only root node maintains MAST statistics
-        retValue.MASTStatistics = new ArrayList<>();
-        for (int i = 0; i < state.getNPlayers(); i++)
-            retValue.MASTStatistics.add(new HashMap<>());
-        retValue.MASTFunction = (a, s) -> {
-            Map<AbstractAction, Pair<Integer, Double>> MAST = retValue.MASTStatistics.get(retValue.decisionPlayer);
-            if (MAST.containsKey(a)) {
-                Pair<Integer, Double> stats = MAST.get(a);
-                return stats.b / (stats.a + retValue.params.epsilon);
+        MASTStatistics = new MASTStatistics(state.getNPlayers());
+        MASTFunction = (a, s) -> MASTStatistics.meanValue(decisionPlayer, a, 0.0);
+    }
+
+    /**
+     * Follows the actions actually taken since this root node was searched down the tree, to find the node
+     * for the decision we now have to make.
+     *
+     * @param actionsTaken - (player, action) for each action taken since the state at this node
+     * @param state        - the current state
+     * @return the node reached, or null if the actions taken leave the tree (or the node does not match the state)
+     */
+    SingleTreeNode findDescendant(List<Pair<Integer, AbstractAction>> actionsTaken, AbstractGameState state) {
+        SingleTreeNode node = this;
+        for (int i = 0; i < actionsTaken.size(); i++) {
+            int actor = actionsTaken.get(i).a;
+            // Other players' actions are not in a SelfOnly tree; they are folded into the transition to our next node
+            if (params.opponentTreePolicy.selfOnlyTree && actor != decisionPlayer)
+                continue;
+            Integer slot = node.actionSlots.get(actionsTaken.get(i).b);
+            SingleTreeNode[] nodeArray = slot == null ? null : node.slotChildren[slot];
+            if (nodeArray == null)
+                return null;
+            int nextPlayer = params.opponentTreePolicy.selfOnlyTree ? decisionPlayer :
+                    i < actionsTaken.size() - 1 ? actionsTaken.get(i + 1).a : state.getCurrentPlayer();
+            SingleTreeNode next = null;
+            if (params.information == Closed_Loop) {
+                for (SingleTreeNode n : nodeArray) {
+                    if (n != null) {
+                        next = n;
+                        break;
+                    }
+                }
+            } else if (nextPlayer >= 0 && nextPlayer < nodeArray.length) {
+                next = nodeArray[nextPlayer];
             }
-            return 0.0;
-        };
-        retValue.instantiate(null, null, state);
+            if (next == null)
+                return null;
+            node = next;
+        }
+        if (node == this || node.terminalNode || node.decisionPlayer != state.getCurrentPlayer())
+            return null;
+        return node;
+    }
+
+    /**
+     * Makes this node (found with findDescendant()) the root of a new search from the given state, keeping all the
+     * statistics gathered below it. The available actions are recalculated from the actual state, and any children
+     * for actions that are no longer legal are removed (see retainSlots()).
+     * In Closed Loop the node states further down are kept; like the search itself, this assumes that the same
+     * actions from the same state always lead to the same state.
+     */
+    void makeRoot(MCTSPlayer player, AbstractGameState state, Random rnd) {
+        SingleTreeNode oldRoot = root;
+        parent = null;
+        actionToReach = null;
+        setRootFields(player, state, rnd);
+        lowReward = oldRoot.lowReward;
+        highReward = oldRoot.highReward;
+        paranoidPlayer = oldRoot.paranoidPlayer;
+        fmCallsCount = 0;
+        copyCount = 0;
+        // re-point every node in the subtree at the new root, and correct the depths
+        Queue<SingleTreeNode> nodeQueue = new ArrayDeque<>();
+        nodeQueue.add(this);
+        while (!nodeQueue.isEmpty()) {
+            SingleTreeNode node = nodeQueue.poll();
+            node.root = this;
+            node.depth = node.parent == null ? 0 : node.parent.depth + 1;
+            node.params = params;
+            node.heuristic = heuristic;
+            node.opponentModels = opponentModels;
+            node.forwardModel = forwardModel;
+            node.rnd = rnd;
+            node.rootChanged();
+            addChildNodes(node, nodeQueue);
+        }
+
+        round = state.getRoundCounter();
+        turn = state.getTurnCounter();
+        turnOwner = state.getCurrentPlayer();
+        if (params.information != Closed_Loop) {
+            copyCount++;
+            this.state = state.copy();
+        } else {
+            this.state = state;
+        }
+        setActionsFromOpenLoopState(state);
+        retainSlots();
+        treeSize = 0;
+        nodeQueue.add(this);
+        while (!nodeQueue.isEmpty()) {
+            treeSize++;
+            addChildNodes(nodeQueue.poll(), nodeQueue);
+        }
+    }
+
+    /**
+     * Removes the slots for all actions not in actionsFromOpenLoopState, and renumbers the others (in the order of
+     * actionsFromOpenLoopState) so that the slots stay dense.
+     * The subtrees below the actions removed are returned to the pool the tree was built from (if it was built by a
+     * NodePool), and the visits and values that went through them no longer count towards this node, so that they do
+     * not skew the exploration terms of the actions that are left.
+     */
+    private void retainSlots() {
+        boolean[] retained = new boolean[nSlots];
+        for (int slot : slotsFromOpenLoopState)
+            retained[slot] = true;
+        NodePool pool = factory instanceof NodePool ? (NodePool) factory : null;
+        for (int slot = 0; slot < nSlots; slot++) {
+            if (retained[slot] || slotChildren[slot] == null)
+                continue;
+            for (SingleTreeNode child : slotChildren[slot]) {
+                if (child == null)
+                    continue;
+                nVisits -= child.nVisits;
+                for (int p = 0; p < totValue.length; p++) {
+                    totValue[p] -= child.totValue[p];
+                    totSquares[p] -= child.totSquares[p];
+                }
+                release(child, null, pool);
+            }
+        }
+        int n = slotsFromOpenLoopState.length;
+        AbstractAction[] newActions = new AbstractAction[Math.max(n, slotActions.length)];
+        SingleTreeNode[][] newChildren = new SingleTreeNode[newActions.length][];
+        double[] newStats = new double[newActions.length * STATS_SIZE];
+        actionSlots.clear();
+        for (int i = 0; i < n; i++) {
+            int old = slotsFromOpenLoopState[i];
+            newActions[i] = slotActions[old];
+            newChildren[i] = slotChildren[old];
+            System.arraycopy(actionStats, old * STATS_SIZE, newStats, i * STATS_SIZE, STATS_SIZE);
+            actionSlots.put(newActions[i], i);
+            if (newChildren[i] != null)
+                for (SingleTreeNode child : newChildren[i])
+                    if (child != null) child.slotInParent = i;
+            slotsFromOpenLoopState[i] = i;
+        }
+        slotActions = newActions;
+        slotChildren = newChildren;
+        actionStats = newStats;
+        nSlots = n;
+        recomputeActionStats();
+    }
+
+    private static void addChildNodes(SingleTreeNode node, Collection<SingleTreeNode> nodes) {
+        for (int slot = 0; slot < node.nSlots; slot++) {
+            SingleTreeNode[] nodeArray = node.slotChildren[slot];
+            if (nodeArray != null)
+                for (SingleTreeNode child : nodeArray)
+                    if (child != null) nodes.add(child);
+        }
+    }
+
+    /**
+     * Called on every node in the tree when the root is moved by makeRoot(), once the node and all its ancestors
+     * point at the new root
+     */
+    protected void rootChanged() {
+    }
+
+    /**
+     * Returns this node to the state it was in when constructed, so that a NodePool can hand it out again. Arrays
+     * that are sized by the game or by the actions seen (statistics, buffers) are zeroed and kept, as most nodes in
+     * a game need the same sizes; nothing else is kept.
+     * Subclasses that add fields should override this to clear them as well.
+     */
+    protected void clear() {
+        state = null;
+        openLoopState = null;
+        params = null;
+        forwardModel = null;
+        opponentModels = null;
+        rnd = null;
+        heuristic = null;
+        opponentHeuristic = null;
+        fmCallsCount = 0;
+        copyCount = 0;
+        paranoidPlayer = -1;
+        actionToReach = null;
+        nVisits = 0;
+        pendingVisits = 0;
+        rolloutActionsTaken = 0;
+        rolloutDepth = roundAtStartOfRollout = turnAtStartOfRollout = lastActorInRollout = 0;
+        actionsFromOpenLoopState = new ArrayList<>();
+        slotsFromOpenLoopState = NO_SLOTS;
+        actionSlots.clear();
+        Arrays.fill(actionStats, 0, nSlots * STATS_SIZE, 0.0);
+        Arrays.fill(slotActions, 0, nSlots, null);
+        Arrays.fill(slotChildren, 0, nSlots, null);
+        nSlots = 0;
+        slotInParent = -1;
+        pathParent = null;
+        pathSlot = -1;
+        transpositionTable = null;
+        treeSize = 0;
+        depth = 0;
+        decisionPlayer = 0;
+        round = turn = turnOwner = 0;
+        terminalNode = false;
+        highReward = Double.NEGATIVE_INFINITY;
+        lowReward = Double.POSITIVE_INFINITY;
+        root = null;
+        parent = null;
+        MASTStatistics = null;
+        MASTFunction = null;
+        if (totValue != null) {
+            Arrays.fill(totValue, 0.0);
+            Arrays.fill(totSquares, 0.0);
+        }
+        factory = null;
+        if (actionsInTree != null) {
+            actionsInTree.clear();
+            actionsInRollout.clear();
+        }
+    }
+
+    /**
+     * Called before each iteration when params.maxTreeNodes is set, to keep the tree (or trees) within it
+     */
+    protected void enforceNodeBudget() {
+        pruneTree(params.maxTreeNodes);
+    }
+
+    /**
+     * Once the tree (from this root) has reached maxNodes, removes the least visited subtrees until it is back to
+     * PRUNE_TO of that, returning their nodes to the pool the tree was built from (if it was built by a NodePool).
+     * The root and its children are always kept, as are nodes that iterations still in progress have passed through
+     * (see addPending()). The statistics of a removed node no longer count towards the action that reaches it, so
+     * if that action is chosen again a new node is expanded for it as if for the first time.
+     * This is not done with a transposition table, as a node may then have more than one parent.
+     */
+    void pruneTree(int maxNodes) {
+        if (treeSize < maxNodes || transpositionTable != null)
+            return;
+        List<SingleTreeNode> candidates = new ArrayList<>();
+        Queue<SingleTreeNode> nodeQueue = new ArrayDeque<>();
+        addChildNodes(this, nodeQueue);
+        while (!nodeQueue.isEmpty()) {
+            SingleTreeNode node = nodeQueue.poll();
+            if (node.depth > 1 && node.pendingVisits == 0)
+                candidates.add(node);
+            addChildNodes(node, nodeQueue);
+        }
+        // least visited first, and deepest first among those with the same visits (so leaves go before their parents)
+        candidates.sort(Comparator.comparingInt((SingleTreeNode n) -> n.nVisits).thenComparingInt(n -> -n.depth));
+        NodePool pool = factory instanceof NodePool ? (NodePool) factory : null;
+        int target = (int) (maxNodes * PRUNE_TO);
+        for (int i = 0; i < candidates.size() && treeSize > target; i++) {
+            SingleTreeNode node = candidates.get(i);
+            if (node.root == null)
+                continue;  // already removed with an ancestor
+            SingleTreeNode parent = node.parent;
+            SingleTreeNode[] nodeArray = parent.slotChildren[node.slotInParent];
+            boolean others = false;
+            for (int p = 0; p < nodeArray.length; p++) {
+                if (nodeArray[p] == node)
+                    nodeArray[p] = null;
+                else if (nodeArray[p] != null)
+                    others = true;
+            }
+            if (!others)
+                parent.slotChildren[node.slotInParent] = null;
+            parent.addToActionStats(node.slotInParent * STATS_SIZE, -node.nVisits,
+                    -node.totValue[parent.decisionPlayer], -node.totSquares[parent.decisionPlayer]);
+            int removed = release(node, null, pool);
+            treeSize -= removed;
+            if (pool != null)
+                pool.addPruned(removed);
+        }
+    }
+
+    /**
+     * Clears every node in the subtree below (and including) top, except for the subtree below keep, and offers them
+     * to the pool (if there is one). A node reached more than once (through a transposition table) is only counted
+     * and cleared once.
+     *
+     * @return the number of nodes cleared
+     */
+    static int release(SingleTreeNode top, SingleTreeNode keep, NodePool pool) {
+        int retValue = 0;
+        Queue<SingleTreeNode> nodeQueue = new ArrayDeque<>();
+        nodeQueue.add(top);
+        while (!nodeQueue.isEmpty()) {
+            SingleTreeNode node = nodeQueue.poll();
+            if (node == keep || node.root == null)
+                continue;
+            addChildNodes(node, nodeQueue);
+            node.clear();
+            retValue++;
+            if (pool != null)
+                pool.offer(node);
+        }
         return retValue;
     }
 
@@ -118,6 +474,7 @@ public class SingleTreeNode {
                                                  Supplier<? extends SingleTreeNode> factory) {
         SingleTreeNode retValue = factory.get();
         retValue.instantiate(parent, actionToReach, state);
+        retValue.root.treeSize++;
         return retValue;
     }
 
@@ -145,8 +502,10 @@ public class SingleTreeNode {
             depth = 0;
         }
 
-        totValue = new double[state.getNPlayers()];
-        totSquares = new double[state.getNPlayers()];
+        if (totValue == null || totValue.length != state.getNPlayers()) {
+            totValue = new double[state.getNPlayers()];
+            totSquares = new double[state.getNPlayers()];
+        }
         if (params.information != Closed_Loop && (params.maintainMasterState || depth == 0)) {
             // if we're using open loop, then we need to make sure the reference state is never changed
             // however this is only used at the root - and we can switch the copy off for other nodes for performance
@@ -179,49 +538,155 @@ public class SingleTreeNode {
         // so check the MCTSParams as well
         openLoopState = actionState;
         if (actionState.getCurrentPlayer() == this.decisionPlayer) {
-            actionsFromOpenLoopState = forwardModel.computeAvailableActions(actionState);
-            if (actionsFromOpenLoopState.size() != actionsFromOpenLoopState.stream().distinct().count())
-                throw new AssertionError("Duplicate actions found in action list: " +
-                        actionsFromOpenLoopState.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
-            if (params.expansionPolicy == MAST) {
-                advantagesOfActionsFromOLS = actionsFromOpenLoopState.stream()
-                        .collect(toMap(a -> a, a -> root.MASTFunction.applyAsDouble(a, actionState)));
-            } else {
-                if (params.advantageFunction != null)
-                    advantagesOfActionsFromOLS = actionsFromOpenLoopState.stream()
-                            .collect(toMap(a -> a, a -> params.advantageFunction.evaluateAction(a, actionState)));
+            List<AbstractAction> actions = forwardModel.computeAvailableActions(actionState);
+            // In most games the actions are the same (and in the same order) each time a node is passed through, in
+            // which case the slots are unchanged and there is no need to look them up
+            if (!sameActionsAsBefore(actions))
+                slotsFromOpenLoopState = lookUpSlots(actions);
+            actionsFromOpenLoopState = actions;
+            for (int i = 0; i < slotsFromOpenLoopState.length; i++) {
+                AbstractAction action = actions.get(i);
+                int slot = slotsFromOpenLoopState[i];
+                if (params.expansionPolicy == MAST)
+                    actionStats[slot * STATS_SIZE + STATS_ADVANTAGE] = root.MASTFunction.applyAsDouble(action, actionState);
+                else if (params.advantageFunction != null)
+                    actionStats[slot * STATS_SIZE + STATS_ADVANTAGE] = params.advantageFunction.evaluateAction(action, actionState);
             }
-            for (AbstractAction action : actionsFromOpenLoopState) {
-                if (!children.containsKey(action)) {
-                    children.put(action.copy(), null); // mark a new node to be expanded
-                    // This *does* rely on a good equals method being implemented for Actions
-                    if (!children.containsKey(action))
-                        throw new AssertionError("We have an action that does not obey the equals/hashcode contract" + action);
+        }
+    }
+
+    private boolean sameActionsAsBefore(List<AbstractAction> actions) {
+        if (actions.size() != slotsFromOpenLoopState.length)
+            return false;
+        for (int i = 0; i < slotsFromOpenLoopState.length; i++) {
+            if (!actions.get(i).equals(slotActions[slotsFromOpenLoopState[i]]))
+                return false;
+        }
+        return true;
+    }
+
+    private int[] lookUpSlots(List<AbstractAction> actions) {
+        int[] retValue = new int[actions.size()];
+        // usually the only actions ever seen here, so the statistics are sized to fit (unless a recycled node
+        // already has room)
+        if (nSlots == 0 && slotActions.length < retValue.length)
+            growSlots(retValue.length);
+        for (int i = 0; i < retValue.length; i++) {
+            AbstractAction action = actions.get(i);
+            Integer slot = actionSlots.get(action);
+            if (slot == null) {
+                slot = addSlot(action.copy());  // and mark a new node to be expanded
+                // This *does* rely on a good equals method being implemented for Actions
+                if (!actionSlots.containsKey(action))
+                    throw new AssertionError("We have an action that does not obey the equals/hashcode contract" + action);
+            }
+            retValue[i] = slot;
+        }
+        boolean[] seen = new boolean[nSlots];
+        for (int slot : retValue) {
+            if (seen[slot])
+                throw new AssertionError("Duplicate actions found in action list: " +
+                        actions.stream().map(a -> "\t" + a.toString() + "\n").collect(joining()));
+            seen[slot] = true;
+        }
+        return retValue;
+    }
+
+    private int addSlot(AbstractAction actionCopy) {
+        int slot = nSlots++;
+        actionSlots.put(actionCopy, slot);
+        if (slotActions.length < nSlots)
+            growSlots(Math.max(nSlots, 2 * slotActions.length));
+        slotActions[slot] = actionCopy;
+        return slot;
+    }
+
+    private void growSlots(int capacity) {
+        slotActions = Arrays.copyOf(slotActions, capacity);
+        slotChildren = Arrays.copyOf(slotChildren, capacity);
+        actionStats = Arrays.copyOf(actionStats, capacity * STATS_SIZE);
+    }
+
+    /**
+     * @return the slot of an action in actionsFromOpenLoopState, which is found by identity, so that the action does
+     * not have to be hashed (or, for any other action, the slot from slotFor())
+     */
+    private int slotOf(AbstractAction action) {
+        for (int i = 0; i < slotsFromOpenLoopState.length; i++) {
+            if (actionsFromOpenLoopState.get(i) == action)
+                return slotsFromOpenLoopState[i];
+        }
+        return slotFor(action);
+    }
+
+    /**
+     * @return the slot for the action at this node (adding one, as an unexpanded child, if it has not been seen before)
+     */
+    private int slotFor(AbstractAction action) {
+        Integer slot = actionSlots.get(action);
+        return slot == null ? addSlot(action.copy()) : slot;
+    }
+
+    private int[] slotsFor(List<AbstractAction> actions) {
+        if (actions == actionsFromOpenLoopState)
+            return slotsFromOpenLoopState;
+        int[] retValue = new int[actions.size()];
+        for (int i = 0; i < retValue.length; i++)
+            retValue[i] = slotFor(actions.get(i));
+        return retValue;
+    }
+
+    private double advantageOf(AbstractAction action) {
+        Integer slot = actionSlots.get(action);
+        return slot == null ? 0.0 : actionStats[slot * STATS_SIZE + STATS_ADVANTAGE];
+    }
+
+    /**
+     * Sets the visits and values for each action in actionStats from the child nodes
+     */
+    private void recomputeActionStats() {
+        for (int slot = 0; slot < nSlots; slot++) {
+            int s = slot * STATS_SIZE;
+            actionStats[s + STATS_VISITS] = 0;
+            actionStats[s + STATS_VALUE] = 0.0;
+            actionStats[s + STATS_SQUARES] = 0.0;
+            if (slotChildren[slot] != null) {
+                for (SingleTreeNode node : slotChildren[slot]) {
+                    if (node != null)
+                        addToActionStats(s, node.nVisits, node.totValue[decisionPlayer], node.totSquares[decisionPlayer]);
                 }
             }
         }
     }
 
+    private void addToActionStats(int statsIndex, int visits, double value, double squares) {
+        actionStats[statsIndex + STATS_VISITS] += visits;
+        actionStats[statsIndex + STATS_VALUE] += value;
+        actionStats[statsIndex + STATS_SQUARES] += squares;
+    }
+
     /**
      * Performs full MCTS search, using the defined budget limits.
      */
     public void mctsSearch() {
+        mctsSearch(params.budget);
+    }
 
-        // Variables for tracking time budget
-        double avgTimeTaken;
-        double acumTimeTaken = 0;
-        long remaining;
-        int remainingLimit = params.breakMS;
-        ElapsedCpuTimer elapsedTimer = new ElapsedCpuTimer();
-        if (params.budgetType == BUDGET_TIME) {
-            elapsedTimer.setMaxTimeMillis(params.budget);
-        }
+    /**
+     * Performs full MCTS search, with the given budget (in the units of the budget type in the parameters)
+     */
+    public void mctsSearch(int budget) {
+
+        // Timer for the time budget (one for the whole search, read only every params.timeCheckInterval iterations)
+        ElapsedCpuTimer elapsedTimer = params.budgetType == BUDGET_TIME ? new ElapsedCpuTimer() : null;
 
         // Tracking number of iterations for iteration budget
         int numIters = 0;
         rolloutActionsTaken = 0;
         boolean stop = false;
         while (!stop) {
+            if (params.maxTreeNodes > 0)
+                enforceNodeBudget();
             switch (params.information) {
                 case Closed_Loop:
                     openLoopState = state;
@@ -231,14 +696,11 @@ public class SingleTreeNode {
                     copyCount++;
                     break;
                 case Information_Set:
-                    openLoopState = state.copy(decisionPlayer);
+                    openLoopState = determinise(state);
                     copyCount++;
                     break;
             }
 
-            // New timer for this iteration
-            ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
-
             // Selection + expansion: navigate tree until a node not fully expanded is found, add a new node to the tree
             oneSearchIteration();
 
@@ -246,25 +708,218 @@ public class SingleTreeNode {
             numIters++;
             //       System.out.printf("MCTS Iteration %d, timeLeft: %d\n", numIters, elapsedTimer.remainingTimeMillis());
             // Check stopping condition
-            PlayerConstants budgetType = params.budgetType;
-            if (budgetType == BUDGET_TIME) {
-                // Time budget
-                acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
-                avgTimeTaken = acumTimeTaken / numIters;
-                remaining = elapsedTimer.remainingTimeMillis();
-                stop = remaining <= 2 * avgTimeTaken || remaining <= remainingLimit;
-            } else if (budgetType == BUDGET_ITERATIONS) {
-                // Iteration budget
-                stop = numIters >= params.budget;
-            } else if (budgetType == BUDGET_FM_CALLS) {
-                // FM calls budget
-                stop = fmCallsCount > params.budget || numIters > params.budget;
-            } else if (budgetType == BUDGET_COPY_CALLS) {
-                stop = copyCount > params.budget || numIters > params.budget;
-            } else if (budgetType == BUDGET_FMANDCOPY_CALLS) {
-                stop = (copyCount + fmCallsCount) > params.budget || numIters > params.budget;
+            if (params.budgetType == BUDGET_TIME) {
+                stop = timeBudgetUsed(elapsedTimer, budget, numIters);
+            } else {
+                stop = budgetUsed(budget, numIters);
+            }
+        }
+        evaluateLeafBatch();
+    }
+
+    /**
+     * Checks the stopping condition for BUDGET_TIME. To save reading the CPU clock on every iteration, it is only read
+     * every params.timeCheckInterval iterations; the search then stops while there is still time for that many
+     * iterations (plus one) at the average time per iteration so far.
+     */
+    private boolean timeBudgetUsed(ElapsedCpuTimer elapsedTimer, int budget, int numIters) {
+        int interval = Math.max(1, params.timeCheckInterval);
+        if (numIters % interval != 0)
+            return false;
+        long elapsed = elapsedTimer.elapsedNanos();
+        long remaining = budget * 1000000L - elapsed;
+        double avgTimeTaken = (double) elapsed / numIters;
+        return remaining <= (interval + 1) * avgTimeTaken || remaining <= params.breakMS * 1000000L;
+    }
+
+    /**
+     * Checks the stopping condition for all budget types other than BUDGET_TIME
+     */
+    private boolean budgetUsed(int budget, int numIters) {
+        PlayerConstants budgetType = params.budgetType;
+        if (budgetType == BUDGET_ITERATIONS) {
+            // Iteration budget
+            return numIters >= budget;
+        } else if (budgetType == BUDGET_FM_CALLS) {
+            // FM calls budget
+            return fmCallsCount > budget || numIters > budget;
+        } else if (budgetType == BUDGET_COPY_CALLS) {
+            return copyCount > budget || numIters > budget;
+        } else if (budgetType == BUDGET_FMANDCOPY_CALLS) {
+            return (copyCount + fmCallsCount) > budget || numIters > budget;
+        }
+        return false;
+    }
+
+    /**
+     * A new determinisation of the state, for one Information_Set iteration. Where the game supports it this is a
+     * plain copy with only the components hidden from the decision player re-sampled in place (with this node's
+     * random number generator, so that each iteration sees a different determinisation); otherwise it is left to
+     * the game's copy(decisionPlayer).
+     */
+    AbstractGameState determinise(AbstractGameState state) {
+        if (params.redeterminise && state.canRedeterminise()) {
+            AbstractGameState retValue = state.copy();
+            retValue.redeterminise(decisionPlayer, rnd);
+            return retValue;
+        }
+        return state.copy(decisionPlayer);
+    }
+
+    /**
+     * The search run by each of the threads in tree parallelisation (ParallelMode.TREE), which all share this tree
+     * (and the budget, except with BUDGET_TIME, where each thread searches for the full time).
+     * Selection, expansion and backup change the tree, and also use the nodes to hold the state of the current
+     * iteration, so they are done one thread at a time while holding the lock on this root node. The rollout and
+     * the evaluation of its final state (which is most of the work in most games) then run in parallel, on a
+     * separate node that uses the worker's own forward model, rollout policy and opponent models.
+     * Until it is backed up each iteration counts as a virtual loss on the nodes it passed through, so that
+     * the other threads are pushed towards different parts of the tree.
+     *
+     * @param worker      - provides the forward model and rollout policies for this thread
+     * @param budget      - the budget for the whole search (or for this thread with BUDGET_TIME)
+     * @param startVisits - visits to this node before the search started (each iteration adds one)
+     */
+    void treeParallelSearch(MCTSPlayer worker, int budget, int startVisits) {
+        SingleTreeNode roller = factory.get();
+        roller.root = roller;
+        roller.params = params;
+        roller.heuristic = heuristic;
+        roller.decisionPlayer = decisionPlayer;
+        roller.forwardModel = worker.getForwardModel();
+        roller.rnd = worker.rnd;
+        roller.opponentModels = new AbstractPlayer[opponentModels.length];
+        for (int p = 0; p < opponentModels.length; p++)
+            roller.opponentModels[p] = p == decisionPlayer ? worker.rolloutStrategy : worker.getOpponentModel(p);
+
+        ElapsedCpuTimer elapsedTimer = params.budgetType == BUDGET_TIME ? new ElapsedCpuTimer() : null;
+        double[] startingValues = new double[state.getNPlayers()];
+        ActionPath treeActions = new ActionPath();
+        roller.actionsInRollout = new ActionPath();
+        int numIters = 0;
+        boolean stop = false;
+        while (!stop) {
+            AbstractGameState iterationState;
+            switch (params.information) {
+                case Closed_Loop:
+                    iterationState = state;
+                    break;
+                case Open_Loop:
+                    iterationState = state.copy();
+                    roller.copyCount++;
+                    break;
+                default:
+                    iterationState = roller.determinise(state);
+                    roller.copyCount++;
             }
+            for (int i = 0; i < startingValues.length; i++)
+                startingValues[i] = heuristic.evaluateState(iterationState, i);
+            treeActions.clear();
+
+            SingleTreeNode selected;
+            synchronized (this) {
+                // iterations in progress on other threads will use up the rest of the budget
+                if (params.budgetType != BUDGET_TIME && budgetUsed(budget, nVisits + pendingVisits - startVisits))
+                    break;
+                if (params.maxTreeNodes > 0)
+                    enforceNodeBudget();
+                openLoopState = iterationState;
+                selected = treePolicy(treeActions);
+                // in open loop this is iterationState, moved on to the selected node
+                roller.openLoopState = params.information == Closed_Loop ? selected.state : selected.openLoopState;
+                addPending(selected, 1);
+            }
+
+            roller.state = selected.state;
+            roller.actionsInRollout.clear();
+            int lastActorInTree = treeActions.lastActor(decisionPlayer);
+            double[] delta = roller.rollout(startingValues, lastActorInTree);
+
+            synchronized (this) {
+                addPending(selected, -1);
+                selected.backUp(delta);
+                updateMASTStatistics(treeActions, roller.actionsInRollout, delta);
+                rolloutActionsTaken += roller.actionsInRollout.size();
+                fmCallsCount += roller.fmCallsCount;
+                copyCount += roller.copyCount;
+                roller.fmCallsCount = 0;
+                roller.copyCount = 0;
+                numIters++;
+                if (params.budgetType != BUDGET_TIME)
+                    stop = budgetUsed(budget, nVisits - startVisits);
+            }
+            if (params.budgetType == BUDGET_TIME)
+                stop = timeBudgetUsed(elapsedTimer, budget, numIters);
         }
+        if (params.maxTreeNodes > 0 && factory instanceof NodePool)
+            ((NodePool) factory).release(roller, null);
+    }
+
+    /**
+     * Marks (or with -1 unmarks) an iteration that has passed through this node and its ancestors, but has not yet
+     * been backed up. Until then it counts as a visit that lost in ucb().
+     */
+    private static void addPending(SingleTreeNode selected, int change) {
+        for (SingleTreeNode n = selected; n != null; n = n.parent) {
+            n.pendingVisits += change;
+            if (n.parent != null)
+                n.parent.actionStats[n.slotInParent * STATS_SIZE + STATS_PENDING] += change;
+        }
+    }
+
+    /**
+     * Adds the statistics of the root of another tree, searched independently from the same decision, to this one.
+     * This is used for root parallelisation: only this node and its immediate children are updated (children only
+     * found in the other tree are moved across), which is all that bestAction() needs.
+     */
+    void mergeRootStatistics(SingleTreeNode other) {
+        nVisits += other.nVisits;
+        fmCallsCount += other.fmCallsCount;
+        copyCount += other.copyCount;
+        for (int i = 0; i < totValue.length; i++) {
+            totValue[i] += other.totValue[i];
+            totSquares[i] += other.totSquares[i];
+        }
+        lowReward = Math.min(lowReward, other.lowReward);
+        highReward = Math.max(highReward, other.highReward);
+        for (int otherSlot = 0; otherSlot < other.nSlots; otherSlot++) {
+            int slot = slotFor(other.slotActions[otherSlot]);
+            actionStats[slot * STATS_SIZE + STATS_VALID_VISITS] += other.actionStats[otherSlot * STATS_SIZE + STATS_VALID_VISITS];
+            SingleTreeNode[] theirs = other.slotChildren[otherSlot];
+            SingleTreeNode[] ours = slotChildren[slot];
+            if (ours == null) {
+                if (theirs != null) {
+                    slotChildren[slot] = theirs;
+                    for (SingleTreeNode node : theirs)
+                        if (node != null) node.slotInParent = slot;
+                }
+                continue;
+            }
+            if (theirs == null)
+                continue;
+            for (int i = 0; i < theirs.length; i++) {
+                if (theirs[i] == null)
+                    continue;
+                if (ours[i] == null) {
+                    ours[i] = theirs[i];
+                    ours[i].slotInParent = slot;
+                } else {
+                    ours[i].nVisits += theirs[i].nVisits;
+                    for (int p = 0; p < ours[i].totValue.length; p++) {
+                        ours[i].totValue[p] += theirs[i].totValue[p];
+                        ours[i].totSquares[p] += theirs[i].totSquares[p];
+                    }
+                }
+            }
+        }
+        List<AbstractAction> allActions = new ArrayList<>(actionsFromOpenLoopState);
+        for (AbstractAction action : other.actionsFromOpenLoopState) {
+            if (!allActions.contains(action))
+                allActions.add(action);
+        }
+        slotsFromOpenLoopState = slotsFor(allActions);
+        actionsFromOpenLoopState = allActions;
+        recomputeActionStats();
     }
 
     /**
@@ -272,11 +927,18 @@ public class SingleTreeNode {
      * Its result is purely stored in the tree generated from root
      */
     protected void oneSearchIteration() {
-        double[] startingValues = IntStream.range(0, openLoopState.getNPlayers())
-                .mapToDouble(i -> heuristic.evaluateState(openLoopState, i)).toArray();
-
-        actionsInTree = new ArrayList<>();
-        actionsInRollout = new ArrayList<>();
+        int nPlayers = openLoopState.getNPlayers();
+        if (startingValues == null || startingValues.length != nPlayers)
+            startingValues = new double[nPlayers];
+        for (int i = 0; i < nPlayers; i++)
+            startingValues[i] = heuristic.evaluateState(openLoopState, i);
+
+        if (actionsInTree == null) {
+            actionsInTree = new ActionPath();
+            actionsInRollout = new ActionPath();
+        }
+        actionsInTree.clear();
+        actionsInRollout.clear();
 
         SingleTreeNode selected = treePolicy(actionsInTree);
         if (selected == this && openLoopState.isNotTerminalForPlayer(decisionPlayer) && nVisits > 3)
@@ -286,7 +948,20 @@ public class SingleTreeNode {
         // although if we have no decisions to make - this is fine
 
         // Monte carlo rollout: return value of MC rollout from the newly added node
-        int lastActorInTree = actionsInTree.isEmpty() ? decisionPlayer : actionsInTree.get(actionsInTree.size() - 1).a;
+        int lastActorInTree = actionsInTree.lastActor(decisionPlayer);
+        if (params.leafBatchSize > 1 && transpositionTable == null) {
+            // the final state is evaluated later, along with those of the next few iterations
+            AbstractGameState leafState = selected.rolloutToLeaf(lastActorInTree);
+            rolloutActionsTaken += actionsInRollout.size();
+            if (pendingLeaves == null)
+                pendingLeaves = new ArrayList<>(params.leafBatchSize);
+            pendingLeaves.add(new PendingLeaf(selected, leafState, startingValues.clone(),
+                    params.useMAST ? actionsInTree.copy() : null, params.useMAST ? actionsInRollout.copy() : null));
+            addPending(selected, 1);
+            if (pendingLeaves.size() >= params.leafBatchSize)
+                evaluateLeafBatch();
+            return;
+        }
         double[] delta = selected.rollout(startingValues, lastActorInTree);
         // Back up the value of the rollout through the tree
         rolloutActionsTaken += actionsInRollout.size();
@@ -295,22 +970,44 @@ public class SingleTreeNode {
         updateMASTStatistics(actionsInTree, actionsInRollout, delta);
     }
 
+    /**
+     * Evaluates the final states of the rollouts held back by oneSearchIteration() with a single call to
+     * heuristic.evaluateStates(), and then backs each of them up. While waiting, each of these iterations counts as a
+     * virtual loss on the nodes it passed through (as for ParallelMode.TREE), so that the iterations in a batch
+     * spread out across the tree.
+     * The valid visits for each node in Open Loop and Information_Set are recorded against the actions available on
+     * the most recent pass through it, which may be from a later iteration in the same batch.
+     * This is not used with a transposition table, as the path taken through shared nodes is only held until the next
+     * iteration.
+     */
+    private void evaluateLeafBatch() {
+        if (pendingLeaves == null || pendingLeaves.isEmpty())
+            return;
+        List<AbstractGameState> leafStates = new ArrayList<>(pendingLeaves.size());
+        for (PendingLeaf leaf : pendingLeaves)
+            leafStates.add(leaf.leafState);
+        double[][] values = heuristic.evaluateStates(leafStates);
+        for (int i = 0; i < pendingLeaves.size(); i++) {
+            PendingLeaf leaf = pendingLeaves.get(i);
+            double[] delta = values[i];
+            for (int p = 0; p < delta.length; p++) {
+                delta[p] -= leaf.startingValues[p];
+                if (Double.isNaN(delta[p]))
+                    throw new AssertionError("Illegal heuristic value - should be a number");
+            }
+            addPending(leaf.node, -1);
+            leaf.node.backUp(delta);
+            updateMASTStatistics(leaf.actionsInTree, leaf.actionsInRollout, delta);
+        }
+        pendingLeaves.clear();
+    }
+
     protected void updateMASTStatistics(List<Pair<Integer, AbstractAction>> tree, List<Pair<Integer, AbstractAction>> rollout, double[] value) {
         if (params.useMAST) {
-            List<Pair<Integer, AbstractAction>> MASTActions = new ArrayList<>();
-            switch (params.MAST) {
-                case Rollout:
-                    MASTActions = rollout;
-                    break;
-                case Tree:
-                    MASTActions = tree;
-                    break;
-                case Both:
-                    MASTActions = rollout;
-                    MASTActions.addAll(tree);
-                    break;
-            }
-            root.MASTBackup(MASTActions, value);
+            if (params.MAST == MCTSEnums.MASTType.Rollout || params.MAST == MCTSEnums.MASTType.Both)
+                root.MASTBackup(rollout, value);
+            if (params.MAST == MCTSEnums.MASTType.Tree || params.MAST == MCTSEnums.MASTType.Both)
+                root.MASTBackup(tree, value);
         }
     }
 
@@ -319,21 +1016,21 @@ public class SingleTreeNode {
      * (this is called often enough it can make a measurable difference)
      */
     protected int actionVisits(AbstractAction action) {
-        int retValue = 0;
-        SingleTreeNode[] nodes = children.get(action);
-        if (nodes != null) {
-            for (SingleTreeNode node : nodes) {
-                if (node != null)
-                    retValue += node.nVisits;
-            }
-        }
-        return retValue;
+        Integer slot = actionSlots.get(action);
+        return slot == null ? 0 : (int) actionStats[slot * STATS_SIZE + STATS_VISITS];
     }
 
     private int validVisitsFor(AbstractAction action) {
         if (params.information == Closed_Loop)
             return nVisits;
-        return nValidVisits.getOrDefault(action, 1);
+        Integer slot = actionSlots.get(action);
+        return slot == null ? 1 : validVisitsForSlot(slot);
+    }
+
+    private int validVisitsForSlot(int slot) {
+        if (params.information == Closed_Loop)
+            return nVisits;
+        return Math.max(1, (int) actionStats[slot * STATS_SIZE + STATS_VALID_VISITS]);
     }
 
     /**
@@ -341,24 +1038,17 @@ public class SingleTreeNode {
      * (this is called often enough it can make a measurable difference)
      */
     protected double actionTotValue(AbstractAction action, int playerId) {
-        double retValue = 0.0;
-        SingleTreeNode[] nodes = children.get(action);
-        if (nodes != null) {
-            for (SingleTreeNode node : nodes) {
-                if (node != null)
-                    retValue += node.totValue[playerId];
-            }
+        if (playerId == decisionPlayer) {
+            Integer slot = actionSlots.get(action);
+            return slot == null ? 0.0 : actionStats[slot * STATS_SIZE + STATS_VALUE];
         }
-        return retValue;
-    }
-
-    private double actionSquaredValue(AbstractAction action, int playerId) {
         double retValue = 0.0;
-        SingleTreeNode[] nodes = children.get(action);
+        Integer slot = actionSlots.get(action);
+        SingleTreeNode[] nodes = slot == null ? null : slotChildren[slot];
         if (nodes != null) {
             for (SingleTreeNode node : nodes) {
                 if (node != null)
-                    retValue += node.totSquares[playerId];
+                    retValue += node.totValue[playerId];
             }
         }
         return retValue;
@@ -369,12 +1059,19 @@ public class SingleTreeNode {
      * For this reason not converted to old-style java loop as there would be no performance gain
      */
     int[] actionVisits() {
-        return children.values().stream()
-                .filter(Objects::nonNull)
-                .mapToInt(arr -> Arrays.stream(arr).filter(Objects::nonNull).mapToInt(n -> n.nVisits).sum())
+        return IntStream.range(0, nSlots)
+                .filter(slot -> slotChildren[slot] != null)
+                .map(slot -> (int) actionStats[slot * STATS_SIZE + STATS_VISITS])
                 .toArray();
     }
 
+    /**
+     * @return the number of actions seen at this node (whether or not they have been expanded)
+     */
+    int childCount() {
+        return nSlots;
+    }
+
     /**
      * Selection + expansion steps.
      * - Tree is traversed until a node not fully expanded is found.
@@ -382,7 +1079,7 @@ public class SingleTreeNode {
      *
      * @return - new node added to the tree.
      */
-    protected SingleTreeNode treePolicy(List<Pair<Integer, AbstractAction>> treeActions) {
+    protected SingleTreeNode treePolicy(ActionPath treeActions) {
 
         SingleTreeNode cur = this;
         int actingPlayer = cur.decisionPlayer;
@@ -415,23 +1112,41 @@ public class SingleTreeNode {
                 }
                 cur = cur.nextNodeInTree(chosen);
                 // else we keep cur, but will exit immediately
-                treeActions.add(new Pair<>(actingPlayer, chosen));
+                treeActions.push(actingPlayer, chosen);
             }
         }
         return cur;
     }
 
-    protected List<AbstractAction> actionsToConsider(List<AbstractAction> allAvailable, int usedElsewhere) {
-        if (!allAvailable.isEmpty() && params.progressiveWideningConstant >= 1.0) {
+    /**
+     * @return the indices in actionsFromOpenLoopState of the actions to consider with progressive widening, or null
+     * if all of them are to be considered
+     */
+    private int[] actionsToConsider() {
+        if (params.progressiveWideningConstant < 1.0)
+            return null;
+        return actionsToConsider(IntStream.range(0, slotsFromOpenLoopState.length).toArray(), 0);
+    }
+
+    /**
+     * @param indices       - indices in actionsFromOpenLoopState of the actions available
+     * @param usedElsewhere - the number of actions already considered that count towards the progressive widening
+     * @return the indices of those actions with the highest advantage, up to the progressive widening limit
+     */
+    private int[] actionsToConsider(int[] indices, int usedElsewhere) {
+        if (indices.length > 0 && params.progressiveWideningConstant >= 1.0) {
             int actionsToConsider = (int) Math.floor(params.progressiveWideningConstant * Math.pow(nVisits + 1, params.progressiveWideningExponent));
-            actionsToConsider = Math.min(actionsToConsider - usedElsewhere, allAvailable.size());
+            actionsToConsider = Math.min(actionsToConsider - usedElsewhere, indices.length);
             // takes account of the expanded actions
-            if (actionsToConsider <= 0) return new ArrayList<>();
+            if (actionsToConsider <= 0) return NO_SLOTS;
             // sort in advantage order (descending)
-            allAvailable.sort(Comparator.comparingDouble(a -> -advantagesOfActionsFromOLS.getOrDefault(a, 0.0)));
-            return allAvailable.subList(0, actionsToConsider);
+            return Arrays.stream(indices).boxed()
+                    .sorted(Comparator.comparingDouble(i -> -actionStats[slotsFromOpenLoopState[i] * STATS_SIZE + STATS_ADVANTAGE]))
+                    .limit(actionsToConsider)
+                    .mapToInt(Integer::intValue)
+                    .toArray();
         }
-        return allAvailable;
+        return indices;
     }
 
     /**
@@ -441,11 +1156,26 @@ public class SingleTreeNode {
         // first cater for an edge case with progressive widening
         // where the expanded children may include available actions not in the current pruning width
         // this can occur where we have different available actions (actionsFromOpenLoopState) on each iteration
-        List<AbstractAction> topActions = params.progressiveWideningConstant >= 1.0
-                ? actionsToConsider(actionsFromOpenLoopState, 0)
-                : actionsFromOpenLoopState;
-        List<AbstractAction> allUnexpanded = topActions.stream().filter(a -> children.get(a) == null).collect(toList());
-        return actionsToConsider(allUnexpanded, topActions.size() - allUnexpanded.size());
+        int[] topActions = actionsToConsider();
+        int nTop = topActions == null ? slotsFromOpenLoopState.length : topActions.length;
+        // a plain loop, as once a node is fully expanded this is called on every pass and (almost always) finds nothing
+        int[] allUnexpanded = null;
+        int nUnexpanded = 0;
+        for (int j = 0; j < nTop; j++) {
+            int i = topActions == null ? j : topActions[j];
+            if (slotChildren[slotsFromOpenLoopState[i]] == null) {
+                if (allUnexpanded == null)
+                    allUnexpanded = new int[nTop - j];
+                allUnexpanded[nUnexpanded++] = i;
+            }
+        }
+        if (allUnexpanded == null)
+            return Collections.emptyList();
+        int[] chosen = actionsToConsider(Arrays.copyOf(allUnexpanded, nUnexpanded), nTop - nUnexpanded);
+        List<AbstractAction> retValue = new ArrayList<>(chosen.length);
+        for (int i : chosen)
+            retValue.add(actionsFromOpenLoopState.get(i));
+        return retValue;
     }
 
     /**
@@ -457,22 +1187,17 @@ public class SingleTreeNode {
         // the expansion order will use the actionValueFunction (if it exists, or the MAST order if specified)
         // else pick a random unchosen action
 
-        Collections.shuffle(notChosen);
+        Collections.shuffle(notChosen, rnd);
 
         AbstractAction chosen = null;
 
-        ToDoubleBiFunction<AbstractAction, AbstractGameState> valueFunction = params.expansionPolicy == MAST ? MASTFunction : advantageFunction;
-        if (valueFunction != null) {
-            double bestValue = Double.NEGATIVE_INFINITY;
-            for (AbstractAction action : notChosen) {
-                double estimate = valueFunction.applyAsDouble(action, openLoopState);
-                if (estimate > bestValue) {
-                    bestValue = estimate;
-                    chosen = action;
-                }
+        double bestValue = Double.NEGATIVE_INFINITY;
+        for (AbstractAction action : notChosen) {
+            double estimate = params.expansionPolicy == MAST ? MASTFunction.applyAsDouble(action, openLoopState) : advantageOf(action);
+            if (estimate > bestValue) {
+                bestValue = estimate;
+                chosen = action;
             }
-        } else {
-            chosen = notChosen.get(0);
         }
         if (chosen == null)
             throw new AssertionError("We have somehow failed to pick an action to expand");
@@ -481,15 +1206,52 @@ public class SingleTreeNode {
     }
 
     protected SingleTreeNode expandNode(AbstractAction actionCopy, AbstractGameState nextState) {
-        // then instantiate a new node
         int nextPlayer = params.opponentTreePolicy.selfOnlyTree ? decisionPlayer : nextState.getCurrentPlayer();
-        SingleTreeNode tn = SingleTreeNode.createChildNode(this, actionCopy, nextState, factory);
+        int slot = slotOf(actionCopy);
+        SingleTreeNode tn = root.transpositionTable == null ? null : transposition(nextState);
+        if (tn == null) {
+            // then instantiate a new node
+            tn = SingleTreeNode.createChildNode(this, actionCopy, nextState, factory);
+            tn.slotInParent = slot;
+            if (root.transpositionTable != null)
+                root.transpositionTable.put(transpositionKey(nextState), tn);
+        } else if (params.information != Closed_Loop) {
+            tn.setActionsFromOpenLoopState(nextState);
+        }
+        tn.pathParent = this;
+        tn.pathSlot = slot;
         SingleTreeNode[] nodeArray = new SingleTreeNode[nextState.getNPlayers()];
         nodeArray[nextPlayer] = tn; // we store this by id of the player who will take their turn next
-        children.put(actionCopy, nodeArray);
+        slotChildren[slot] = nodeArray;
+        // the action may have had children before (if it was removed when the tree was re-used, for example)
+        int s = slot * STATS_SIZE;
+        actionStats[s + STATS_VISITS] = 0;
+        actionStats[s + STATS_VALUE] = 0.0;
+        actionStats[s + STATS_SQUARES] = 0.0;
         return tn;
     }
 
+    private static long transpositionKey(AbstractGameState state) {
+        return 31 * state.getStateHash() + state.getCurrentPlayer();
+    }
+
+    /**
+     * Looks up a node already in the tree for the given state (reached by a different sequence of actions).
+     * Nodes on the path taken to this one in the current iteration are excluded, as sharing them would create a cycle.
+     *
+     * @return the node, or null if there is none that can be used
+     */
+    private SingleTreeNode transposition(AbstractGameState nextState) {
+        SingleTreeNode node = root.transpositionTable.get(transpositionKey(nextState));
+        if (node == null)
+            return null;
+        for (SingleTreeNode n = this; n != null; n = n == root ? null : n.pathParent) {
+            if (n == node)
+                return null;
+        }
+        return node;
+    }
+
 
     /**
      * Advance the current game state with the given action, count the FM call and compute the next available actions.
@@ -530,7 +1292,7 @@ public class SingleTreeNode {
             AbstractAction action = oppModel.getAction(gs, availableActions);
             if (inRollout) {
                 rolloutDepth++;
-                root.actionsInRollout.add(new Pair<>(gs.getCurrentPlayer(), action));
+                root.actionsInRollout.push(gs.getCurrentPlayer(), action);
                 lastActorInRollout = gs.getCurrentPlayer();
             }
             forwardModel.next(gs, action);
@@ -548,7 +1310,17 @@ public class SingleTreeNode {
         if (params.opponentTreePolicy == SelfOnly && openLoopState != null && openLoopState.getCurrentPlayer() != decisionPlayer)
             throw new AssertionError("An error has occurred. SelfOnly should only call uct when we are moving.");
 
-        List<AbstractAction> availableActions = actionsToConsider(actionsFromOpenLoopState, 0);
+        List<AbstractAction> availableActions = actionsFromOpenLoopState;
+        int[] slots = slotsFromOpenLoopState;
+        int[] indices = actionsToConsider();
+        if (indices != null) {
+            availableActions = new ArrayList<>(indices.length);
+            slots = new int[indices.length];
+            for (int j = 0; j < indices.length; j++) {
+                availableActions.add(actionsFromOpenLoopState.get(indices[j]));
+                slots[j] = slotsFromOpenLoopState[indices[j]];
+            }
+        }
         if (availableActions.isEmpty())
             throw new AssertionError("We need to have at least one option");
         AbstractAction actionChosen;
@@ -560,7 +1332,7 @@ public class SingleTreeNode {
                 case AlphaGo:
                 case UCB_Tuned:
                     // These just vary on the form of the exploration term in a UCB algorithm
-                    actionChosen = ucb(availableActions);
+                    actionChosen = ucb(availableActions, slots);
                     break;
                 case EXP3:
                 case RegretMatching:
@@ -579,15 +1351,20 @@ public class SingleTreeNode {
 
     protected SingleTreeNode nextNodeInTree(AbstractAction actionChosen) {
         // Only advance the state if this is open loop
-        SingleTreeNode[] nodeArray = children.get(actionChosen);
+        int slot = slotOf(actionChosen);
+        SingleTreeNode[] nodeArray = slotChildren[slot];
         if (params.information == Closed_Loop) {
             // in this case we have determinism...there should just be a single child node in the array...so we get that
-            Optional<SingleTreeNode> next = Arrays.stream(nodeArray).filter(Objects::nonNull).findFirst();
-            if (next.isPresent()) {
-                return next.get();
-            } else {
-                throw new AssertionError("We have no node to move to...");
+            for (SingleTreeNode next : nodeArray) {
+                if (next != null) {
+                    if (root.transpositionTable != null) {
+                        next.pathParent = this;
+                        next.pathSlot = slot;
+                    }
+                    return next;
+                }
             }
+            throw new AssertionError("We have no node to move to...");
         } else {
             int nextPlayer = params.opponentTreePolicy.selfOnlyTree ? decisionPlayer : openLoopState.getCurrentPlayer();
             SingleTreeNode nextNode = nodeArray[nextPlayer];
@@ -597,35 +1374,55 @@ public class SingleTreeNode {
                     throw new AssertionError("Not sure this should be possible though");
                 nodeArray[nextPlayer] = SingleTreeNode.createChildNode(this, actionChosen.copy(), openLoopState, factory);
                 nextNode = nodeArray[nextPlayer];
+                nextNode.slotInParent = slot;
             } else if (params.opponentTreePolicy.selfOnlyTree && nextNode.decisionPlayer != decisionPlayer) {
+                // the statistics of the node replaced no longer count towards the action
+                addToActionStats(nextNode.slotInParent * STATS_SIZE, -nextNode.nVisits,
+                        -nextNode.totValue[decisionPlayer], -nextNode.totSquares[decisionPlayer]);
                 nodeArray[nextPlayer] = SingleTreeNode.createChildNode(this, actionChosen.copy(), openLoopState, factory);
+                nextNode.slotInParent = -1;
                 nextNode = nodeArray[nextPlayer];
+                nextNode.slotInParent = slot;
             } else {
                 // pick up the existing one, and set the state
                 nextNode.setActionsFromOpenLoopState(openLoopState);
             }
             // we also need to check to see if there are any new actions on this transition
+            if (root.transpositionTable != null) {
+                nextNode.pathParent = this;
+                nextNode.pathSlot = slot;
+            }
             return nextNode;
         }
     }
 
-    private AbstractAction ucb(List<AbstractAction> availableActions) {
+    /**
+     * @param availableActions - the actions to choose from
+     * @param slots            - the slot of each of the availableActions, which holds the statistics for the action
+     */
+    private AbstractAction ucb(List<AbstractAction> availableActions, int[] slots) {
         // Find child with highest UCB value
         AbstractAction bestAction = null;
         double bestValue = -Double.MAX_VALUE;
 
-        double nodeValue = totValue[decisionPlayer] / nVisits;
+        // (a node may be passed through again before its first visit has been backed up, with params.leafBatchSize)
+        double nodeValue = nVisits == 0 ? 0.0 : totValue[decisionPlayer] / nVisits;
         // nodeValue is the value of the state, V(s), and is used as a baseline when we use an Advantage function later
 
-        for (AbstractAction action : availableActions) {
-            SingleTreeNode[] childArray = children.get(action);
-            if (childArray == null)
-                throw new AssertionError("Should not be here with a null child array");
+        for (int i = 0; i < slots.length; i++) {
+            AbstractAction action = availableActions.get(i);
+            int s = slots[i] * STATS_SIZE;
 
             // Find child value
-            double hvVal = actionTotValue(action, decisionPlayer);
-
-            int actionVisits = actionVisits(action);
+            double hvVal = actionStats[s + STATS_VALUE];
+
+            int actionVisits = (int) actionStats[s + STATS_VISITS];
+            int pending = (int) actionStats[s + STATS_PENDING];
+            if (pending > 0) {
+                // iterations still in progress below this action on other threads are counted as visits that lost
+                actionVisits += pending;
+                hvVal -= pending * params.virtualLoss;
+            }
             double childValue = hvVal / (actionVisits + params.epsilon);
 
             // consider OMA term
@@ -653,7 +1450,7 @@ public class SingleTreeNode {
             // consider any progressive bias term
             if (params.biasVisits > 0) {
                 double beta = Math.sqrt(params.biasVisits / (double) (params.biasVisits + 3 * actionVisits));
-                childValue = (1.0 - beta) * childValue + beta * (advantagesOfActionsFromOLS.getOrDefault(action, 0.0) + nodeValue);
+                childValue = (1.0 - beta) * childValue + beta * (actionStats[s + STATS_ADVANTAGE] + nodeValue);
             }
 
             if (params.normaliseRewards) {
@@ -661,7 +1458,7 @@ public class SingleTreeNode {
             }
 
             // default to standard UCB
-            int effectiveTotalVisits = validVisitsFor(action) + 1;
+            int effectiveTotalVisits = validVisitsForSlot(slots[i]) + 1;
             double explorationTerm = params.K * Math.sqrt(Math.log(effectiveTotalVisits) / (actionVisits + params.epsilon));
             // unless we are using a variant
             switch (params.treePolicy) {
@@ -671,13 +1468,13 @@ public class SingleTreeNode {
                 case UCB_Tuned:
                     double range = root.highReward - root.lowReward;
                     if (range < 1e-6) range = 1e-6;
-                    double meanSq = actionSquaredValue(action, decisionPlayer) / (actionVisits + params.epsilon);
+                    double meanSq = actionStats[s + STATS_SQUARES] / (actionVisits + params.epsilon);
                     double standardVar = 0.25;
                     if (params.normaliseRewards) {
                         // we also need to standardise the sum of squares to calculate the variance
                         meanSq = (meanSq
                                 + root.lowReward * root.lowReward
-                                - 2 * root.lowReward * actionTotValue(action, decisionPlayer) / (actionVisits + params.epsilon)
+                                - 2 * root.lowReward * actionStats[s + STATS_VALUE] / (actionVisits + params.epsilon)
                         ) / (range * range);
                     } else {
                         // we need to modify the standard variance as it is not on a 0..1 basis (which is where 0.25 comes from)
@@ -723,7 +1520,7 @@ public class SingleTreeNode {
         double meanActionValue = (actionValue / actionVisits);
         if (params.biasVisits > 0) {
             double beta = Math.sqrt(params.biasVisits / (double) (params.biasVisits + 3 * actionVisits));
-            meanActionValue = (1.0 - beta) * meanActionValue + beta * advantagesOfActionsFromOLS.getOrDefault(action, 0.0);
+            meanActionValue = (1.0 - beta) * meanActionValue + beta * advantageOf(action);
         }
         // we then normalise to [0, 1], or we subtract the mean action value to get an advantage (and reduce risk of
         // NaN or Infinities when we exponentiate)
@@ -744,7 +1541,7 @@ public class SingleTreeNode {
             return 0.0;
         if (params.biasVisits > 0) {
             double beta = Math.sqrt(params.biasVisits / (double) (params.biasVisits + 3 * actionVisits));
-            actionValue = (1.0 - beta) * actionValue + beta * ((totValue[decisionPlayer] / nVisits) + advantagesOfActionsFromOLS.getOrDefault(action, 0.0));
+            actionValue = (1.0 - beta) * actionValue + beta * ((totValue[decisionPlayer] / nVisits) + advantageOf(action));
         }
         // potential value is our estimate of our accumulated reward if we had always taken this action
         double potentialValue = actionValue * nVisits / actionVisits;
@@ -752,6 +1549,8 @@ public class SingleTreeNode {
         if (regret < 0.0 && params.treePolicy == MCTSEnums.TreePolicy.RM_Plus) {
             // in this case we set our regret to zero if it is negative
             // by updating the node statistics
+            if (parent != null && parent.decisionPlayer == decisionPlayer)
+                parent.actionStats[slotInParent * STATS_SIZE + STATS_VALUE] += potentialValue - totValue[decisionPlayer];
             totValue[decisionPlayer] = potentialValue;
         }
         if (params.treePolicy == MCTSEnums.TreePolicy.Hedge) {
@@ -789,6 +1588,26 @@ public class SingleTreeNode {
      * @return - value of rollout.
      */
     protected double[] rollout(double[] startingValues, int lastActor) {
+        AbstractGameState rolloutState = rolloutToLeaf(lastActor);
+        // Evaluate final state and return normalised score (in a buffer that is overwritten by the next rollout)
+        if (root.rolloutValues == null || root.rolloutValues.length != rolloutState.getNPlayers())
+            root.rolloutValues = new double[rolloutState.getNPlayers()];
+        double[] retValue = root.rolloutValues;
+
+        for (int i = 0; i < retValue.length; i++) {
+            retValue[i] = heuristic.evaluateState(rolloutState, i) - startingValues[i];
+            if (Double.isNaN(retValue[i]))
+                throw new AssertionError("Illegal heuristic value - should be a number");
+        }
+        return retValue;
+    }
+
+    /**
+     * Plays out the rollout from this node, without evaluating the state it ends in.
+     *
+     * @return - the state at the end of the rollout
+     */
+    protected AbstractGameState rolloutToLeaf(int lastActor) {
         rolloutDepth = 0; // counting from end of tree
         lastActorInRollout = lastActor;
         roundAtStartOfRollout = openLoopState.getRoundCounter();
@@ -812,19 +1631,11 @@ public class SingleTreeNode {
                     throw new AssertionError("No actions available in rollout!");
                 AbstractAction next = opponentModels[rolloutState.getCurrentPlayer()].getAction(rolloutState, availableActions);
                 lastActorInRollout = rolloutState.getCurrentPlayer();
-                root.actionsInRollout.add(new Pair<>(lastActorInRollout, next));
+                root.actionsInRollout.push(lastActorInRollout, next);
                 advance(rolloutState, next, true);
             }
         }
-        // Evaluate final state and return normalised score
-        double[] retValue = new double[rolloutState.getNPlayers()];
-
-        for (int i = 0; i < retValue.length; i++) {
-            retValue[i] = heuristic.evaluateState(rolloutState, i) - startingValues[i];
-            if (Double.isNaN(retValue[i]))
-                throw new AssertionError("Illegal heuristic value - should be a number");
-        }
-        return retValue;
+        return rolloutState;
     }
 
     /**
@@ -859,16 +1670,46 @@ public class SingleTreeNode {
      */
     protected void backUp(double[] result) {
         SingleTreeNode n = this;
-        double[] squaredResults = new double[result.length];
-        for (int i = 0; i < result.length; i++)
-            squaredResults[i] = result[i] * result[i];
+        // the value added to each node for each player is the same all the way up the tree
+        if (root.backUpValues == null || root.backUpValues.length != result.length) {
+            root.backUpValues = new double[result.length];
+            root.backUpSquares = new double[result.length];
+        }
+        double[] values = root.backUpValues;
+        double[] squares = root.backUpSquares;
+        switch (params.opponentTreePolicy) {
+            case SelfOnly:
+                for (int j = 0; j < result.length; j++) {
+                    values[j] = result[root.decisionPlayer];
+                    squares[j] = result[root.decisionPlayer] * result[root.decisionPlayer];
+                }
+                break;
+            case OneTree:
+            case MultiTree:
+            case OMA_All:
+            case OMA:
+                if (params.paranoid) {
+                    int paranoid = root.paranoidPlayer == -1 ? root.decisionPlayer : root.paranoidPlayer;
+                    for (int j = 0; j < result.length; j++) {
+                        values[j] = j == paranoid ? result[paranoid] : -result[paranoid];
+                        squares[j] = result[paranoid] * result[paranoid];
+                    }
+                } else {
+                    for (int j = 0; j < result.length; j++) {
+                        values[j] = result[j];
+                        squares[j] = result[j] * result[j];
+                    }
+                }
+                break;
+        }
 
         if (params.normaliseRewards || params.treePolicy == MCTSEnums.TreePolicy.UCB_Tuned) {
-            DoubleSummaryStatistics stats = Arrays.stream(result).summaryStatistics();
-            if (n.root.lowReward > stats.getMin())
-                n.root.lowReward = stats.getMin();
-            if (n.root.highReward < stats.getMax())
-                n.root.highReward = stats.getMax();
+            for (double r : result) {
+                if (root.lowReward > r)
+                    root.lowReward = r;
+                if (root.highReward < r)
+                    root.highReward = r;
+            }
         }
         while (n != null) {
             if (params.discardStateAfterEachIteration) {
@@ -880,55 +1721,34 @@ public class SingleTreeNode {
             // Here we look at actionsFromOpenLoopState to see which ones were valid
             // when we passed through, and keep track of valid visits
             if (params.information != Closed_Loop)
-                for (AbstractAction action : n.actionsFromOpenLoopState) {
-                    if (!n.nValidVisits.containsKey(action))
-                        n.nValidVisits.put(action, 1);
-                    else
-                        n.nValidVisits.put(action, n.nValidVisits.get(action) + 1);
-                }
-            switch (params.opponentTreePolicy) {
-                case SelfOnly:
-                    for (int j = 0; j < result.length; j++) {
-                        n.totValue[j] += result[root.decisionPlayer];
-                        n.totSquares[j] += squaredResults[root.decisionPlayer];
-                    }
-                    break;
-                case OneTree:
-                case MultiTree:
-                case OMA_All:
-                case OMA:
-                    if (params.paranoid) {
-                        int paranoid = root.paranoidPlayer == -1 ? root.decisionPlayer : root.paranoidPlayer;
-                        for (int j = 0; j < result.length; j++) {
-                            if (j == paranoid) {
-                                n.totValue[j] += result[paranoid];
-                                n.totSquares[j] += squaredResults[paranoid];
-                            } else {
-                                n.totValue[j] -= result[paranoid];
-                                n.totSquares[j] += squaredResults[paranoid];
-                            }
-                        }
-                    } else {
-                        for (int j = 0; j < result.length; j++) {
-                            n.totValue[j] += result[j];
-                            n.totSquares[j] += squaredResults[j];
-                        }
-                    }
-                    break;
+                for (int slot : n.slotsFromOpenLoopState)
+                    n.actionStats[slot * STATS_SIZE + STATS_VALID_VISITS]++;
+            for (int j = 0; j < result.length; j++) {
+                n.totValue[j] += values[j];
+                n.totSquares[j] += squares[j];
             }
-            n = n.parent;
+            // with a transposition table, a node may have several parents; we back up along the path actually taken
+            boolean shared = root.transpositionTable != null;
+            SingleTreeNode next = shared ? (n == root ? null : n.pathParent) : n.parent;
+            int slot = shared ? n.pathSlot : n.slotInParent;
+            if (next != null && slot >= 0) {
+                int p = next.decisionPlayer;
+                next.addToActionStats(slot * STATS_SIZE, 1, values[p], squares[p]);
+            }
+            n = next;
         }
     }
 
 
     protected void MASTBackup(List<Pair<Integer, AbstractAction>> rolloutActions, double[] delta) {
-        for (Pair<Integer, AbstractAction> pair : rolloutActions) {
-            AbstractAction action = pair.b;
-            int player = pair.a;
-            Pair<Integer, Double> stats = MASTStatistics.get(player).getOrDefault(action, new Pair<>(0, 0.0));
-            stats.a++;  // visits
-            stats.b += delta[player];   // value
-            MASTStatistics.get(player).put(action.copy(), stats);
+        if (rolloutActions instanceof ActionPath) {
+            // read the stacks directly rather than through the Pairs
+            ActionPath path = (ActionPath) rolloutActions;
+            for (int i = 0; i < path.size(); i++)
+                MASTStatistics.update(path.actor(i), path.action(i), delta[path.actor(i)]);
+        } else {
+            for (Pair<Integer, AbstractAction> pair : rolloutActions)
+                MASTStatistics.update(pair.a, pair.b, delta[pair.a]);
         }
     }
 
@@ -955,14 +1775,12 @@ public class SingleTreeNode {
             // (and this is good, as it throws an error as a bug-check if this is not true).
             bestAction = treePolicyAction(false);
         } else {
-            for (AbstractAction action : children.keySet()) {
-                if (!children.containsKey(action)) {
-                    throw new AssertionError("Hashcode / equals contract issue for " + action);
-                }
-                if (children.get(action) != null) {
-                    double childValue = actionVisits(action); // if ROBUST
+            for (int slot = 0; slot < nSlots; slot++) {
+                if (slotChildren[slot] != null) {
+                    int s = slot * STATS_SIZE;
+                    double childValue = actionStats[s + STATS_VISITS]; // if ROBUST
                     if (policy == SIMPLE)
-                        childValue = actionTotValue(action, decisionPlayer) / (actionVisits(action) + params.epsilon);
+                        childValue = actionStats[s + STATS_VALUE] / (actionStats[s + STATS_VISITS] + params.epsilon);
 
                     // Apply small noise to break ties randomly
                     childValue = noise(childValue, params.epsilon, rnd.nextDouble());
@@ -970,7 +1788,7 @@ public class SingleTreeNode {
                     // Save best value
                     if (childValue > bestValue) {
                         bestValue = childValue;
-                        bestAction = action;
+                        bestAction = slotActions[slot];
                     }
                 }
             }
@@ -979,7 +1797,9 @@ public class SingleTreeNode {
         if (bestAction == null) {
             if (nVisits == 1) {
                 System.out.println("Only one visit to root node - insufficient information - hopefully due to JVM warming up");
-                bestAction = children.keySet().stream().findFirst().orElseThrow(() -> new AssertionError("No children"));
+                if (nSlots == 0)
+                    throw new AssertionError("No children");
+                bestAction = slotActions[0];
             } else
                 throw new AssertionError("Unexpected - no selection made.");
         }
@@ -1005,8 +1825,15 @@ public class SingleTreeNode {
         return totValue;
     }
 
+    /**
+     * @return the child nodes for each action seen at this node (null for an action that has not been expanded). This
+     * is a copy, built from the slots on each call; it is not changed by further search
+     */
     public Map<AbstractAction, SingleTreeNode[]> getChildren() {
-        return children;
+        Map<AbstractAction, SingleTreeNode[]> retValue = new LinkedHashMap<>();
+        for (int slot = 0; slot < nSlots; slot++)
+            retValue.put(slotActions[slot], slotChildren[slot]);
+        return retValue;
     }
 
     public AbstractAction getActionToReach() {
@@ -1053,16 +1880,16 @@ public class SingleTreeNode {
 
     public List<SingleTreeNode> allNodesInTree() {
         List<SingleTreeNode> retValue = new ArrayList<>();
+        // nodes shared through the transposition table are reachable from more than one parent
+        Set<SingleTreeNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
         Queue<SingleTreeNode> nodeQueue = new ArrayDeque<>();
         nodeQueue.add(this);
         while (!nodeQueue.isEmpty()) {
             SingleTreeNode node = nodeQueue.poll();
+            if (!visited.add(node))
+                continue;
             retValue.add(node);
-            nodeQueue.addAll(node.getChildren().values().stream()
-                    .filter(Objects::nonNull)
-                    .flatMap(Arrays::stream)
-                    .filter(Objects::nonNull)
-                    .collect(toList()));
+            addChildNodes(node, nodeQueue);
         }
         return retValue;
     }
@@ -1080,10 +1907,9 @@ public class SingleTreeNode {
                     .collect(joining(", "));
         }
         retValue.append(String.format("%d total visits, value %s, with %d children, depth %d, FMCalls %d: \n",
-                nVisits, valueString, children.size(), depth, fmCallsCount));
+                nVisits, valueString, nSlots, depth, fmCallsCount));
         // sort all actions by visit count
-        List<AbstractAction> sortedActions = children.keySet().stream()
-                .filter(Objects::nonNull)
+        List<AbstractAction> sortedActions = Arrays.stream(slotActions, 0, nSlots)
                 .sorted(Comparator.comparingInt(a -> -actionVisits(a)))
                 .collect(toList());
 
@@ -1,5 +1,7 @@
 package players.mcts;
 
+import core.actions.AbstractAction;
+
 import java.util.*;
 import java.util.stream.IntStream;
 
@@ -36,18 +38,23 @@ public class TreeStatistics {
         int maxActions = 0;
         int totalActions = 0;
         int oneAction = 0;
+        // nodes shared through a transposition table are reachable from more than one parent, and are counted once
+        Set<SingleTreeNode> visited = Collections.newSetFromMap(new IdentityHashMap<>());
         while (!nodeQueue.isEmpty()) {
             SingleTreeNode node = nodeQueue.poll();
+            if (!visited.add(node))
+                continue;
             if (node.depth < maxDepth) {
                 nodesAtDepth[node.depth]++;
                 if (node.terminalNode)
                     gameTerminalNodesAtDepth[node.depth]++;
-                totalActions += node.children.size();
-                if (node.children.size() == 1)
+                Map<AbstractAction, SingleTreeNode[]> children = node.getChildren();
+                totalActions += children.size();
+                if (children.size() == 1)
                     oneAction++;
-                if (node.children.size() > maxActions)
-                    maxActions = node.children.size();
-                for (SingleTreeNode child : node.children.values().stream()
+                if (children.size() > maxActions)
+                    maxActions = children.size();
+                for (SingleTreeNode child : children.values().stream()
                         .filter(Objects::nonNull)
                         .flatMap(Arrays::stream)
                         .filter(Objects::nonNull)
@@ -55,7 +62,7 @@ public class TreeStatistics {
                     if (child != null)
                         nodeQueue.add(child);
                 }
-                if (node.children.values().stream().allMatch(Objects::isNull))
+                if (children.values().stream().allMatch(Objects::isNull))
                     leavesAtDepth[node.depth]++;
             }
             if (node.depth > greatestDepth)
@@ -16,21 +16,27 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
     protected int nonRepairCount;
     AbstractAction[] actions;         // Actions in individual. Intended max length of individual = actions.length
     AbstractGameState[] gameStates;   // Game states in individual.
+    double[] scores;                  // Heuristic value of gameStates[i + 1], cached for closed loop
+    int consistentTo;                 // gameStates[0..consistentTo] are known to follow from the actions (closed loop)
+    boolean closedLoop;               // If true, stored states are reused until the first gene that changes
+    boolean debug = false;            // If true, rollout() keeps a local record of what it replaced
     double value;                     // Fitness of individual, to be maximised.
     int length;                       // Actual length of individual, <= actions.length
     double discountFactor;            // Discount factor for calculating rewards
     IStateHeuristic heuristic;
     AbstractPlayer rolloutPolicy;
-    private Random gen;               // Random generator
+    Random gen;                       // Random generator
 
     RHEAIndividual(int L, double discountFactor, AbstractForwardModel fm, AbstractGameState gs,
                    int playerID, Random gen, IStateHeuristic heuristic,
-                   AbstractPlayer rolloutPolicy) {
+                   AbstractPlayer rolloutPolicy, boolean closedLoop) {
         // Initialize
         this.gen = gen;
         this.discountFactor = discountFactor;
+        this.closedLoop = closedLoop;
         actions = new AbstractAction[L];
         gameStates = new AbstractGameState[L + 1];
+        scores = new double[L];
         this.heuristic = heuristic;
         this.rolloutPolicy = rolloutPolicy;
 
@@ -43,24 +49,46 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
     RHEAIndividual(RHEAIndividual I) {
         actions = new AbstractAction[I.actions.length];
         gameStates = new AbstractGameState[I.gameStates.length];
+        scores = new double[I.scores.length];
         length = I.length;
         discountFactor = I.discountFactor;
         heuristic = I.heuristic;
         rolloutPolicy = I.rolloutPolicy.copy();
+        closedLoop = I.closedLoop;
+        consistentTo = I.consistentTo;
+        debug = I.debug;
 
         for (int i = 0; i < length; i++) {
             actions[i] = I.actions[i]; //.copy();
             gameStates[i] = I.gameStates[i]; //.copy(); // Should not need to copy game states, as we always copy before we use!
         }
+        if (closedLoop) {
+            // the state reached at the end is needed if nothing is changed before it
+            gameStates[length] = I.gameStates[length];
+            System.arraycopy(I.scores, 0, scores, 0, length);
+        }
 
         value = I.value;
         gen = I.gen;
     }
 
+    /**
+     * In closed loop, marks the genes from the first one that differs from parent as needing a new rollout; the
+     * stored states before that point (taken from parent) still follow from the actions.
+     */
+    void inheritStatesFrom(RHEAIndividual parent) {
+        int same = 0;
+        while (same < length && same < parent.consistentTo && actions[same].equals(parent.actions[same]))
+            same++;
+        consistentTo = same;
+    }
+
     /**
      * Mutates this individual, by picking an index and changing all genes from that point on.
      * Updates the length of the individual in case the rollout hits game end.
      * Also evaluates the individual as a rollout is needed for mutation, and updates the value.
+     * In closed loop, a mutation that picks the action already there changes nothing, and if no gene has changed
+     * then there is no rollout at all.
      *
      * @param fm       - forward model
      * @param playerID - ID of player, used in evaluation of fitness
@@ -74,11 +102,20 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
             int position = gen.nextInt(length); // we only consider actions up to the end of the game (which will therefore increase mutation rate towards game end)
             if (gameStates[position] != null) {
                 List<AbstractAction> available = fm.computeAvailableActions(gameStates[position]);
-                actions[position] = available.get(gen.nextInt(available.size()));
+                AbstractAction action = available.get(gen.nextInt(available.size()));
+                if (closedLoop && action.equals(actions[position]))
+                    continue;
+                actions[position] = action;
                 if (position < startIndex)
                     startIndex = position;  // start the rollout from the first mutation
             }
         }
+        if (closedLoop) {
+            startIndex = Math.min(startIndex, consistentTo);
+            if (startIndex >= length)
+                return new Pair<>(0, 0);
+        }
+        startIndex = Math.min(startIndex, length);
 
         // Perform rollout and return number of FM calls taken.
         if (gameStates[startIndex] == null) {
@@ -99,21 +136,22 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
      * @return - number of calls to the FM.next() function
      */
     public Pair<Integer, Integer> rollout(AbstractForwardModel fm, int startIndex, int playerID, boolean repair) {
-        length = 0;
+        length = startIndex;
         double delta = 0;
         double previousScore = 0;
         int fmCalls = 0, copyCalls = 0;
-        AbstractGameState gs = gameStates[startIndex].copy();
+        // stored states are never advanced themselves (we copy before each next()), so this needs no copy
+        AbstractGameState gs = gameStates[startIndex];
 
-        // This lot are a local record for use in debugging; Very useful, with no compute overhead for keeping a local copy
-        AbstractGameState[] oldGameStates = new AbstractGameState[gameStates.length];
-        List<AbstractAction>[] availableActions = new List[gameStates.length];
-        AbstractAction[] oldActions = new AbstractAction[actions.length];
-        boolean[] illegalActions = new boolean[actions.length];
+        // This lot are a local record for use in debugging; only kept if debug is set
+        AbstractGameState[] oldGameStates = debug ? new AbstractGameState[gameStates.length] : null;
+        List<AbstractAction>[] availableActions = debug ? new List[gameStates.length] : null;
+        AbstractAction[] oldActions = debug ? new AbstractAction[actions.length] : null;
+        boolean[] illegalActions = debug ? new boolean[actions.length] : null;
 
         for (int i = 0; i < startIndex; i++) {
             double score;
-            score = heuristic.evaluateState(gameStates[i + 1], playerID);
+            score = closedLoop ? scores[i] : heuristic.evaluateState(gameStates[i + 1], playerID);
             if (Double.isNaN(score))
                 throw new AssertionError("Illegal heuristic value - should be a number");
             delta += Math.pow(discountFactor, i) * (score - previousScore);
@@ -129,11 +167,14 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                 AbstractGameState gsCopy = gs.copy();
                 copyCalls++;
                 List<AbstractAction> currentActions = fm.computeAvailableActions(gsCopy);
-                availableActions[i] = currentActions;
                 boolean illegalAction = !currentActions.contains(actions[i]);
-                illegalActions[i] = illegalAction;
+                if (debug) {
+                    availableActions[i] = currentActions;
+                    illegalActions[i] = illegalAction;
+                }
                 if (illegalAction || actions[i] == null) {
-                    oldActions[i] = actions[i];
+                    if (debug)
+                        oldActions[i] = actions[i];
                     action = rolloutPolicy.getAction(gsCopy, currentActions);
                     if (repair || actions[i] == null) // if we are repairing then we override an illegal action with a random legitimate one
                         actions[i] = action;
@@ -143,8 +184,6 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                     action = actions[i];
                     nonRepairCount++;
                 }
-                // TODO: Add a closed loop option to not copy the state (expensively) if the action is valid, but jump to the next state stored
-                // TODO: When implemented, this will also need to take account of shiftLeft
                 fm.next(gsCopy, action.copy());
                 fmCalls++;
 
@@ -159,7 +198,8 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                     fm.next(gsCopy, moves.get(gen.nextInt(moves.size())));
                     fmCalls++;
                 }
-                oldGameStates[i+1] = gameStates[i+1];
+                if (debug)
+                    oldGameStates[i + 1] = gameStates[i + 1];
                 gameStates[i + 1] = gsCopy;
                 // Individual length increased
                 length++;
@@ -169,6 +209,7 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
                 score = heuristic.evaluateState(gameStates[i + 1], playerID);
                 if (Double.isNaN(score))
                     throw new AssertionError("Illegal heuristic value - should be a number");
+                scores[i] = score;
                 delta += Math.pow(discountFactor, i) * (score - previousScore);
                 previousScore = score;
 
@@ -180,6 +221,7 @@ public class RHEAIndividual implements Comparable<RHEAIndividual> {
         }
 //        this.value = gs.getScore(playerID);
         this.value = delta;
+        consistentTo = length;
         return new Pair<>(fmCalls, copyCalls);
     }
 
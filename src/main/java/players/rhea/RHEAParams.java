@@ -23,6 +23,10 @@ public class RHEAParams extends PlayerParameters
     public boolean shiftLeft;
     public IStateHeuristic heuristic = AbstractGameState::getGameScore;
     public boolean useMAST;
+    // If true, individuals keep their stored states up to their first changed gene, and are only re-rolled from there
+    public boolean closedLoop;
+    // The number of worker threads the population is mutated and evaluated on in each generation
+    public int nThreads = 1;
 
 
     public RHEAParams() {
@@ -43,6 +47,8 @@ public class RHEAParams extends PlayerParameters
         addTunableParameter("mutationCount", 1, Arrays.asList(1, 3, 10));
         addTunableParameter("heuristic", (IStateHeuristic) AbstractGameState::getGameScore);
         addTunableParameter("useMAST", false, Arrays.asList(false, true));
+        addTunableParameter("closedLoop", false, Arrays.asList(false, true));
+        addTunableParameter("nThreads", 1);
     }
 
     @Override
@@ -59,6 +65,8 @@ public class RHEAParams extends PlayerParameters
         shiftLeft = (boolean) getParameterValue("shiftLeft");
         mutationCount = (int) getParameterValue("mutationCount");
         useMAST = (boolean) getParameterValue("useMAST");
+        closedLoop = (boolean) getParameterValue("closedLoop");
+        nThreads = (int) getParameterValue("nThreads");
         heuristic = (IStateHeuristic) getParameterValue("heuristic");
         if (heuristic instanceof TunableParameters) {
             TunableParameters tunableHeuristic = (TunableParameters) heuristic;
@@ -83,6 +91,8 @@ public class RHEAParams extends PlayerParameters
          retValue.mutationCount = mutationCount;
          retValue.heuristic = heuristic;
          retValue.useMAST = useMAST;
+         retValue.closedLoop = closedLoop;
+         retValue.nThreads = nThreads;
          return retValue;
     }
 
@@ -1,23 +1,29 @@
 package players.rhea;
 
+import core.AbstractForwardModel;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
 import players.PlayerConstants;
 import players.mcts.MASTPlayer;
+import players.mcts.MASTStatistics;
 import players.simple.RandomPlayer;
 import utilities.ElapsedCpuTimer;
 import utilities.Pair;
-import utilities.Utils;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RHEAPlayer extends AbstractPlayer {
     private static final AbstractPlayer randomPlayer = new RandomPlayer();
+    // In closed loop, the number of generations in a row that cost no FM or copy calls after which we stop
+    private static final int MAX_IDLE_GENERATIONS = 10;
     private final Random randomGenerator;
     RHEAParams params;
-    List<Map<AbstractAction, Pair<Integer, Double>>> MASTStatistics; // a list of one Map per player. Action -> (visits, totValue)
+    MASTStatistics MASTStatistics;
     protected List<RHEAIndividual> population = new ArrayList<>();
     // Budgets
     protected double timePerIteration = 0, timeTaken = 0, initTime = 0;
@@ -26,6 +32,7 @@ public class RHEAPlayer extends AbstractPlayer {
     protected int copyCalls = 0;
     protected int repairCount, nonRepairCount;
     private MASTPlayer mastPlayer;
+    private ExecutorService executor;
 
     public RHEAPlayer() {
         this(System.currentTimeMillis());
@@ -43,9 +50,7 @@ public class RHEAPlayer extends AbstractPlayer {
 
     @Override
     public void initializePlayer(AbstractGameState state) {
-        MASTStatistics = new ArrayList<>();
-        for (int i = 0; i < state.getNPlayers(); i++)
-            MASTStatistics.add(new HashMap<>());
+        MASTStatistics = new MASTStatistics(state.getNPlayers());
         population = new ArrayList<>();
     }
 
@@ -60,15 +65,10 @@ public class RHEAPlayer extends AbstractPlayer {
         nonRepairCount = 0;
 
         if (params.useMAST) {
-            if (MASTStatistics == null) {
-                MASTStatistics = new ArrayList<>();
-                for (int i = 0; i < stateObs.getNPlayers(); i++)
-                    MASTStatistics.add(new HashMap<>());
-            } else {
-                MASTStatistics = MASTStatistics.stream()
-                        .map(m -> Utils.decay(m, params.discountFactor))
-                        .collect(Collectors.toList());
-            }
+            if (MASTStatistics == null)
+                MASTStatistics = new MASTStatistics(stateObs.getNPlayers());
+            else
+                MASTStatistics.decay(params.discountFactor);
             mastPlayer = new MASTPlayer(new Random(params.getRandomSeed()));
             mastPlayer.setStats(MASTStatistics);
         }
@@ -89,7 +89,8 @@ public class RHEAPlayer extends AbstractPlayer {
             for (int i = 0; i < params.populationSize; ++i) {
                 if (!budgetLeft(timer)) break;
                 population.add(new RHEAIndividual(params.horizon, params.discountFactor, getForwardModel(), stateObs,
-                        getPlayerID(), randomGenerator, params.heuristic, params.useMAST ? mastPlayer : randomPlayer));
+                        getPlayerID(), randomGenerator, params.heuristic, params.useMAST ? mastPlayer : randomPlayer,
+                        params.closedLoop));
                 fmCalls += population.get(i).length;
                 copyCalls += population.get(i).length;
             }
@@ -98,8 +99,19 @@ public class RHEAPlayer extends AbstractPlayer {
         population.sort(Comparator.naturalOrder());
         initTime = timer.elapsedMillis();
         // Run evolution
+        int idleGenerations = 0;
         while (budgetLeft(timer)) {
+            int callsBefore = fmCalls + copyCalls;
             runIteration();
+            // In closed loop a generation in which every mutation re-picked the same actions costs nothing, and is
+            // common with few legal actions or a small population. A long run of them means there is (almost surely)
+            // nothing left to search, and with a budget of only FM and/or copy calls the loop would never end
+            if (params.closedLoop && (params.budgetType == PlayerConstants.BUDGET_FM_CALLS ||
+                    params.budgetType == PlayerConstants.BUDGET_FMANDCOPY_CALLS)) {
+                idleGenerations = fmCalls + copyCalls == callsBefore ? idleGenerations + 1 : 0;
+                if (idleGenerations >= MAX_IDLE_GENERATIONS)
+                    break;
+            }
         }
 
         timeTaken = timer.elapsedMillis();
@@ -135,6 +147,14 @@ public class RHEAPlayer extends AbstractPlayer {
     }
 
     private RHEAIndividual crossover(RHEAIndividual p1, RHEAIndividual p2) {
+        RHEAIndividual child = crossoverActions(p1, p2);
+        // In closed loop the child keeps the states of p1, which are still good up to its first new action
+        if (params.closedLoop)
+            child.inheritStatesFrom(p1);
+        return child;
+    }
+
+    private RHEAIndividual crossoverActions(RHEAIndividual p1, RHEAIndividual p2) {
         switch (params.crossoverType) {
             case NONE: // we just take the first parent
                 return new RHEAIndividual(p1);
@@ -151,12 +171,14 @@ public class RHEAPlayer extends AbstractPlayer {
 
     private RHEAIndividual uniformCrossover(RHEAIndividual p1, RHEAIndividual p2) {
         RHEAIndividual child = new RHEAIndividual(p1);
-        copyCalls += child.length;
+        if (!params.closedLoop)
+            copyCalls += child.length;
         int min = Math.min(p1.length, p2.length);
         for (int i = 0; i < min; ++i) {
             if (randomGenerator.nextFloat() >= 0.5f) {
                 child.actions[i] = p2.actions[i];
-                child.gameStates[i] = p2.gameStates[i]; //.copy();
+                if (!params.closedLoop)
+                    child.gameStates[i] = p2.gameStates[i]; //.copy();
             }
         }
         return child;
@@ -164,25 +186,30 @@ public class RHEAPlayer extends AbstractPlayer {
 
     private RHEAIndividual onePointCrossover(RHEAIndividual p1, RHEAIndividual p2) {
         RHEAIndividual child = new RHEAIndividual(p1);
-        copyCalls += child.length;
+        if (!params.closedLoop)
+            copyCalls += child.length;
         int tailLength = Math.min(p1.length, p2.length) / 2;
 
         for (int i = 0; i < tailLength; ++i) {
             child.actions[child.length - 1 - i] = p2.actions[p2.length - 1 - i];
-            child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
+            if (!params.closedLoop)
+                child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
         }
         return child;
     }
 
     private RHEAIndividual twoPointCrossover(RHEAIndividual p1, RHEAIndividual p2) {
         RHEAIndividual child = new RHEAIndividual(p1);
-        copyCalls += child.length;
+        if (!params.closedLoop)
+            copyCalls += child.length;
         int tailLength = Math.min(p1.length, p2.length) / 3;
         for (int i = 0; i < tailLength; ++i) {
             child.actions[i] = p2.actions[i];
-            child.gameStates[i] = p2.gameStates[i]; //.copy();
             child.actions[child.length - 1 - i] = p2.actions[p2.length - 1 - i];
-            child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
+            if (!params.closedLoop) {
+                child.gameStates[i] = p2.gameStates[i]; //.copy();
+                child.gameStates[child.length - 1 - i] = p2.gameStates[p2.length - 1 - i]; //.copy();
+            }
         }
         return child;
     }
@@ -249,14 +276,13 @@ public class RHEAPlayer extends AbstractPlayer {
             population.add(child);
         }
 
-        for (RHEAIndividual individual : population) {
-            Pair<Integer, Integer> calls = individual.mutate(getForwardModel(), getPlayerID(), params.mutationCount);
-            fmCalls += calls.a;
-            copyCalls += calls.b;
-            repairCount += individual.repairCount;
-            nonRepairCount += individual.nonRepairCount;
-            if (params.useMAST)
-                MASTBackup(individual.actions, individual.value, getPlayerID());
+        if (params.nThreads > 1) {
+            mutateInParallel();
+        } else {
+            for (RHEAIndividual individual : population) {
+                Pair<Integer, Integer> calls = individual.mutate(getForwardModel(), getPlayerID(), params.mutationCount);
+                recordMutation(individual, calls);
+            }
         }
 
         //sort
@@ -275,15 +301,81 @@ public class RHEAPlayer extends AbstractPlayer {
     }
 
 
+    private void recordMutation(RHEAIndividual individual, Pair<Integer, Integer> calls) {
+        fmCalls += calls.a;
+        copyCalls += calls.b;
+        repairCount += individual.repairCount;
+        nonRepairCount += individual.nonRepairCount;
+        if (params.useMAST)
+            MASTBackup(individual.actions, individual.value, getPlayerID());
+    }
+
+    /**
+     * Parallel version of the mutation loop in runIteration(). The population is split into nThreads contiguous
+     * blocks, each mutated (and so evaluated) on a worker with its own forward model, random generator and rollout
+     * policy; these are all set up here, so the search is repeatable from the same seed.
+     * The budget counts and MAST statistics are then updated in population order, as in the serial version; but the
+     * rollouts in a generation do not see the MAST updates from each other.
+     */
+    private void mutateInParallel() {
+        int n = population.size();
+        int nWorkers = Math.min(params.nThreads, n);
+        List<Future<List<Pair<Integer, Integer>>>> blocks = new ArrayList<>(nWorkers);
+        for (int w = 0; w < nWorkers; w++) {
+            List<RHEAIndividual> block = population.subList(w * n / nWorkers, (w + 1) * n / nWorkers);
+            AbstractForwardModel fm = getForwardModel().copy();
+            Random rnd = new Random(randomGenerator.nextLong());
+            AbstractPlayer rolloutPolicy = params.useMAST ? mastPlayer.copy() : new RandomPlayer(new Random(rnd.nextLong()));
+            for (RHEAIndividual individual : block) {
+                individual.gen = rnd;
+                individual.rolloutPolicy = rolloutPolicy;
+            }
+            int playerID = getPlayerID();
+            blocks.add(getExecutor().submit(() -> {
+                List<Pair<Integer, Integer>> calls = new ArrayList<>(block.size());
+                for (RHEAIndividual individual : block)
+                    calls.add(individual.mutate(fm, playerID, params.mutationCount));
+                return calls;
+            }));
+        }
+        try {
+            int next = 0;
+            for (Future<List<Pair<Integer, Integer>>> block : blocks)
+                for (Pair<Integer, Integer> calls : block.get())
+                    recordMutation(population.get(next++), calls);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during RHEA search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error in RHEA search thread", e.getCause());
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(params.nThreads, r -> {
+                Thread thread = new Thread(r, "RHEA-" + this);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    @Override
+    public void finalizePlayer(AbstractGameState state) {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
+    }
+
     protected void MASTBackup(AbstractAction[] rolloutActions, double delta, int player) {
         for (int i = 0; i < rolloutActions.length; i++) {
             AbstractAction action = rolloutActions[i];
             if (action == null)
                 break;
-            Pair<Integer, Double> stats = MASTStatistics.get(player).getOrDefault(action, new Pair<>(0, 0.0));
-            stats.a++;  // visits
-            stats.b += delta;   // value
-            MASTStatistics.get(player).put(action.copy(), stats);
+            MASTStatistics.update(player, action, delta);
         }
     }
 
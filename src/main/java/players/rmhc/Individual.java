@@ -15,7 +15,7 @@ public class Individual implements Comparable {
     int length;                       // Actual length of individual, <= actions.length
     double discountFactor;            // Discount factor for calculating rewards
 
-    private Random gen;               // Random generator
+    Random gen;                       // Random generator
     IStateHeuristic heuristic;
 
     Individual(int L, double discountFactor, AbstractForwardModel fm, AbstractGameState gs, int playerID, Random gen, IStateHeuristic heuristic) {
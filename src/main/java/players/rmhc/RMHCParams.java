@@ -8,6 +8,8 @@ import java.util.*;
 public class RMHCParams extends PlayerParameters {
     public int horizon = 10;
     public double discountFactor = 0.9;
+    // The number of mutations of the current best individual evaluated at the same time in each iteration
+    public int nThreads = 1;
 
     public RMHCParams() {
         this(System.currentTimeMillis());
@@ -17,6 +19,7 @@ public class RMHCParams extends PlayerParameters {
         super(seed);
         addTunableParameter("horizon", 10, Arrays.asList(1, 3, 5, 10, 20, 30));
         addTunableParameter("discountFactor", 0.9, Arrays.asList(0.5, 0.8, 0.9, 0.95, 0.99, 0.999, 1.0));
+        addTunableParameter("nThreads", 1);
     }
 
     @Override
@@ -24,6 +27,7 @@ public class RMHCParams extends PlayerParameters {
         super._reset();
         horizon = (int) getParameterValue("horizon");
         discountFactor = (double) getParameterValue("discountFactor");
+        nThreads = (int) getParameterValue("nThreads");
     }
 
     @Override
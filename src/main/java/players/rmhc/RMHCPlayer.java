@@ -1,5 +1,6 @@
 package players.rmhc;
 
+import core.AbstractForwardModel;
 import core.AbstractGameState;
 import core.AbstractPlayer;
 import core.actions.AbstractAction;
@@ -8,6 +9,10 @@ import players.PlayerConstants;
 import utilities.ElapsedCpuTimer;
 
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 
 public class RMHCPlayer extends AbstractPlayer {
@@ -19,9 +24,12 @@ public class RMHCPlayer extends AbstractPlayer {
 
     // Budgets
     private double avgTimeTaken = 0, acumTimeTaken = 0;
-    private int numIters = 0;
+    protected int numIters = 0;
+    // calls to runIteration(), which with nThreads > 1 each take several iterations
+    private int numRounds = 0;
     private int fmCalls = 0;
     private int copyCalls = 0;
+    private ExecutorService executor;
 
     public RMHCPlayer() {
         this(System.currentTimeMillis());
@@ -59,6 +67,7 @@ public class RMHCPlayer extends AbstractPlayer {
         avgTimeTaken = 0;
         acumTimeTaken = 0;
         numIters = 0;
+        numRounds = 0;
         fmCalls = 0;
         copyCalls = 0;
 
@@ -104,22 +113,91 @@ public class RMHCPlayer extends AbstractPlayer {
      */
     private void runIteration(AbstractGameState stateObs) {
         ElapsedCpuTimer elapsedTimerIteration = new ElapsedCpuTimer();
+        if (params.nThreads > 1) {
+            runParallelIteration(Math.min(params.nThreads, iterationsLeft()));
+        } else {
+            // Create new individual through mutation
+            Individual newIndividual = new Individual(bestIndividual);
+            copyCalls += newIndividual.length;
+            int statesUpdated = newIndividual.mutate(getForwardModel(), getPlayerID());
+            fmCalls += statesUpdated;
+            copyCalls += statesUpdated; // as mutate() copyies once each time it applies the forward model
+
+            // Keep new individual if better than current
+            if (newIndividual.value > bestIndividual.value)
+                bestIndividual = newIndividual;
+            numIters++;
+        }
 
-        // Create new individual through mutation
-        Individual newIndividual = new Individual(bestIndividual);
-        copyCalls += newIndividual.length;
-        int statesUpdated = newIndividual.mutate(getForwardModel(), getPlayerID());
-        fmCalls += statesUpdated;
-        copyCalls += statesUpdated; // as mutate() copyies once each time it applies the forward model
+        // Update budgets; the time check is against the time for a whole call, however many iterations that is
+        numRounds++;
+        acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
+        avgTimeTaken = acumTimeTaken / numRounds;
+    }
 
-        // Keep new individual if better than current
-        if (newIndividual.value > bestIndividual.value)
-            bestIndividual = newIndividual;
+    /**
+     * @return the number of iterations left (at least one) if the budget limits them, and otherwise Integer.MAX_VALUE
+     */
+    private int iterationsLeft() {
+        if (params.budgetType == PlayerConstants.BUDGET_ITERATIONS || params.budgetType == PlayerConstants.BUDGET_COPY_CALLS)
+            return Math.max(1, params.budget - numIters);
+        return Integer.MAX_VALUE;
+    }
 
-        // Update budgets
-        numIters++;
-        acumTimeTaken += (elapsedTimerIteration.elapsedMillis());
-        avgTimeTaken = acumTimeTaken / numIters;
+    /**
+     * Parallel version of runIteration(): nMutants (up to nThreads) mutations of the current best individual are
+     * evaluated at the same time, each on a worker with its own copy of the individual, forward model and random
+     * generator (all set up here, so the search is repeatable from the same seed).
+     * Each counts as one iteration, and the mutations are then compared with the best in turn; unlike the serial
+     * version, all of them start from the same parent.
+     */
+    private void runParallelIteration(int nMutants) {
+        List<Individual> mutants = new ArrayList<>(nMutants);
+        List<Future<Integer>> results = new ArrayList<>(nMutants);
+        for (int t = 0; t < nMutants; t++) {
+            Individual mutant = new Individual(bestIndividual);
+            copyCalls += mutant.length;
+            mutant.gen = new Random(randomGenerator.nextLong());
+            AbstractForwardModel fm = getForwardModel().copy();
+            int playerID = getPlayerID();
+            mutants.add(mutant);
+            results.add(getExecutor().submit(() -> mutant.mutate(fm, playerID)));
+        }
+        try {
+            for (int t = 0; t < nMutants; t++) {
+                int statesUpdated = results.get(t).get();
+                fmCalls += statesUpdated;
+                copyCalls += statesUpdated;
+                Individual mutant = mutants.get(t);
+                if (mutant.value > bestIndividual.value)
+                    bestIndividual = mutant;
+                numIters++;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during RMHC search", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error in RMHC search thread", e.getCause());
+        }
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(params.nThreads, r -> {
+                Thread thread = new Thread(r, "RMHC-" + this);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    @Override
+    public void finalizePlayer(AbstractGameState state) {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
     }
 
 //    public static void main(String[] args){
@@ -8,8 +8,13 @@ import core.actions.AbstractAction;
 import core.interfaces.IStateHeuristic;
 import core.turnorders.StandardTurnOrder;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static utilities.Utils.noise;
 
@@ -17,6 +22,13 @@ public class OSLAPlayer extends AbstractPlayer {
 
     private Random random; // random generator for noise
     public double epsilon = 1e-6;
+    // With more than one, each action is evaluated over several samples, each from a fresh determinisation of the
+    // state, and the actions are whittled down by successive halving (see _getAction()).
+    // This is the average number of samples per action, so a decision takes samples * actions.size() in all.
+    public int samples = 1;
+    // The number of threads samples are evaluated on, when samples > 1
+    public int nThreads = 1;
+    private ExecutorService executor;
     // Heuristics used for the agent
     IStateHeuristic heuristic;
 
@@ -39,51 +51,172 @@ public class OSLAPlayer extends AbstractPlayer {
         setName("OSLA");
     }
 
+    /**
+     * Each action is evaluated by applying it to a copy of the state, and then playing random actions to the end of
+     * the round. With samples == 1 each action gets one sample, from a copy of the state as observed, in turn on the
+     * calling thread (whatever nThreads), and the best is returned. Otherwise see successiveHalving().
+     */
     @Override
     public AbstractAction _getAction(AbstractGameState gs, List<AbstractAction> actions) {
+        if (samples > 1)
+            return successiveHalving(gs, actions);
 
         double maxQ = Double.NEGATIVE_INFINITY;
         AbstractAction bestAction = null;
         int playerID = gs.getCurrentPlayer();
 
-        double[] valState = new double[actions.size()];
-        for (int actionIndex = 0; actionIndex < actions.size(); actionIndex++) {
-            AbstractAction action = actions.get(actionIndex);
-            AbstractGameState gsCopy = gs.copy();
+        for (AbstractAction action : actions) {
+            double value = sample(gs.copy(), action, playerID, getForwardModel(), random);
+            double Q = noise(value, this.epsilon, this.random.nextDouble());
+            if (Q > maxQ) {
+                maxQ = Q;
+                bestAction = action;
+            }
+        }
 
-            getForwardModel().next(gsCopy, action);
+        return bestAction;
+    }
 
-            if (gs instanceof AbstractGameStateWithTurnOrder && ((AbstractGameStateWithTurnOrder)gsCopy).getTurnOrder() instanceof StandardTurnOrder) {
-                advanceToEndOfRoundWithRandomActions(gsCopy, playerID);
+    /**
+     * The budget of samples * actions.size() samples, each from a fresh determinisation of the state, is spent by
+     * successive halving over the actions. This is split equally between ceil(log2(actions.size())) rounds: in each
+     * round every action still in contention gets an equal share of the samples for that round, and then the worse
+     * half (by mean value over all samples so far) is dropped. If a round cannot give one sample to every action left,
+     * the halving stops there; the last round gets all the budget left, so the total is never more than the budget.
+     * The best remaining action is returned.
+     */
+    private AbstractAction successiveHalving(AbstractGameState gs, List<AbstractAction> actions) {
+        int nActions = actions.size();
+        if (nActions == 1)
+            return actions.get(0);
+        int playerID = gs.getCurrentPlayer();
+        double[] totValue = new double[nActions];
+        int[] nSamples = new int[nActions];
+        List<Integer> survivors = new ArrayList<>(nActions);
+        for (int a = 0; a < nActions; a++)
+            survivors.add(a);
+
+        int rounds = 32 - Integer.numberOfLeadingZeros(nActions - 1);
+        int budget = samples * nActions;
+        int budgetPerRound = budget / rounds;
+        int used = 0;
+        for (int round = 0; round < rounds; round++) {
+            int remaining = budget - used;
+            int perAction = round == rounds - 1 ? remaining / survivors.size() :
+                    Math.min(Math.max(1, budgetPerRound / survivors.size()), remaining / survivors.size());
+            if (perAction == 0)
+                break;  // survivors is still in order of value from the last round
+            List<Integer> sampledActions = new ArrayList<>(perAction * survivors.size());
+            for (int a : survivors)
+                for (int i = 0; i < perAction; i++)
+                    sampledActions.add(a);
+            double[] values = sampleAll(gs, actions, sampledActions, playerID);
+            used += values.length;
+            for (int i = 0; i < values.length; i++) {
+                totValue[sampledActions.get(i)] += values[i];
+                nSamples[sampledActions.get(i)]++;
             }
 
-            if (heuristic != null) {
-                valState[actionIndex] = heuristic.evaluateState(gsCopy, playerID);
-            } else {
-                valState[actionIndex] = gsCopy.getHeuristicScore(playerID);
-            }
+            // ties are broken at random
+            double[] Q = new double[nActions];
+            for (int a : survivors)
+                Q[a] = noise(totValue[a] / nSamples[a], this.epsilon, this.random.nextDouble());
+            survivors.sort((a, b) -> Double.compare(Q[b], Q[a]));
+            if (round < rounds - 1)
+                survivors = survivors.subList(0, (survivors.size() + 1) / 2);
+        }
+        return actions.get(survivors.get(0));
+    }
 
-            double Q = noise(valState[actionIndex], this.epsilon, this.random.nextDouble());
-            //     System.out.println(Arrays.stream(valState).mapToObj(v -> String.format("%1.3f", v)).collect(Collectors.joining("\t")));
+    /**
+     * Takes one sample for each entry in sampledActions (which are indices into actions), spread over nThreads
+     * threads, each with its own forward model. The determinised copies of the state, and a random seed for each
+     * sample, are taken here, so that the samples are the same whatever the number of threads.
+     */
+    private double[] sampleAll(AbstractGameState gs, List<AbstractAction> actions, List<Integer> sampledActions, int playerID) {
+        int n = sampledActions.size();
+        double[] values = new double[n];
+        AbstractGameState[] states = new AbstractGameState[n];
+        long[] seeds = new long[n];
+        for (int i = 0; i < n; i++) {
+            states[i] = gs.copy(playerID);
+            seeds[i] = random.nextLong();
+        }
+        int nBlocks = Math.min(nThreads, n);
+        List<Future<?>> blocks = new ArrayList<>(nBlocks);
+        for (int b = 0; b < nBlocks; b++) {
+            int from = b * n / nBlocks, to = (b + 1) * n / nBlocks;
+            AbstractForwardModel fm = nBlocks == 1 ? getForwardModel() : getForwardModel().copy();
+            Runnable block = () -> {
+                for (int i = from; i < to; i++)
+                    values[i] = sample(states[i], actions.get(sampledActions.get(i)).copy(), playerID, fm, new Random(seeds[i]));
+            };
+            if (nBlocks == 1)
+                block.run();
+            else
+                blocks.add(getExecutor().submit(block));
+        }
+        try {
+            for (Future<?> block : blocks)
+                block.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted during OSLA evaluation", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error in OSLA evaluation thread", e.getCause());
+        }
+        return values;
+    }
 
-            if (Q > maxQ) {
-                maxQ = Q;
-                bestAction = action;
-            }
+    /**
+     * Applies action to gsCopy, plays random actions to the end of the round (if the game has a standard turn order)
+     * and returns the value of the state reached
+     */
+    private double sample(AbstractGameState gsCopy, AbstractAction action, int playerID, AbstractForwardModel fm, Random rnd) {
+        fm.next(gsCopy, action);
+
+        if (gsCopy instanceof AbstractGameStateWithTurnOrder && ((AbstractGameStateWithTurnOrder)gsCopy).getTurnOrder() instanceof StandardTurnOrder) {
+            advanceToEndOfRoundWithRandomActions(gsCopy, playerID, fm, rnd);
         }
 
-        return bestAction;
+        if (heuristic != null) {
+            return heuristic.evaluateState(gsCopy, playerID);
+        } else {
+            return gsCopy.getHeuristicScore(playerID);
+        }
     }
 
     @Override
     public OSLAPlayer copy() {
-        return new OSLAPlayer(heuristic, new Random(random.nextInt()));
+        OSLAPlayer retValue = new OSLAPlayer(heuristic, new Random(random.nextInt()));
+        retValue.epsilon = epsilon;
+        retValue.samples = samples;
+        retValue.nThreads = nThreads;
+        return retValue;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            executor = Executors.newFixedThreadPool(nThreads, r -> {
+                Thread thread = new Thread(r, "OSLA-" + this);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return executor;
+    }
+
+    @Override
+    public void finalizePlayer(AbstractGameState state) {
+        if (executor != null) {
+            executor.shutdown();
+            executor = null;
+        }
     }
 
-    private void advanceToEndOfRoundWithRandomActions(AbstractGameState gsCopy, int startingPlayer) {
+    private void advanceToEndOfRoundWithRandomActions(AbstractGameState gsCopy, int startingPlayer, AbstractForwardModel fm, Random random) {
         // we assume that every other player now has to make a decision
         RandomPlayer rnd = new RandomPlayer(random);
-        AbstractForwardModel fm = getForwardModel();
         if (gsCopy.getCurrentPlayer() == startingPlayer) {
             // first get to the end of our actions
             while (gsCopy.getCurrentPlayer() == startingPlayer && gsCopy.isNotTerminal()) {
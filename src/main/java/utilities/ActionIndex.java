@@ -0,0 +1,45 @@
+package utilities;
+
+import core.actions.AbstractAction;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Gives each distinct action (by equals() and hashCode()) a small integer ID, starting from 0, the first time it is
+ * registered. IDs are never reused or changed, so statistics about actions can be kept in plain arrays indexed by ID
+ * for as long as the index is kept (typically one game).
+ * Lookups may be made from any number of threads at once.
+ */
+public class ActionIndex {
+
+    private final Map<AbstractAction, Integer> ids = new ConcurrentHashMap<>();
+    private int size;
+
+    /**
+     * @return the ID of the action, or -1 if it has not been registered (it is not then registered)
+     */
+    public int idOf(AbstractAction action) {
+        Integer id = ids.get(action);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * @return the ID of the action, registering a copy of it with the next free ID if it has not been seen before
+     */
+    public int register(AbstractAction action) {
+        Integer id = ids.get(action);
+        if (id != null)
+            return id;
+        synchronized (this) {
+            return ids.computeIfAbsent(action.copy(), a -> size++);
+        }
+    }
+
+    /**
+     * @return the number of actions registered (one more than the highest ID)
+     */
+    public synchronized int size() {
+        return size;
+    }
+}
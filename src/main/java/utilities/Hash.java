@@ -1,34 +1,27 @@
 package utilities;
 
-import java.util.HashMap;
-
+/**
+ * Maps property names to the integer keys used in Component property maps.
+ * The key of a name is its String hash code, so no table is kept: this is safe to use from any number of threads,
+ * and the hash code is cached by the String itself.
+ */
 public class Hash
 {
-    private static Hash hash;
-
-    private HashMap<String, Integer> hashmap;
+    private static final Hash hash = new Hash();
 
     public static Hash GetInstance()
     {
-        if(hash == null)
-            hash = new Hash();
         return hash;
     }
 
     private Hash()
     {
-        hashmap = new HashMap<>();
     }
 
 
     public int hash(String key)
     {
-        if(hashmap.containsKey(key))
-            return hashmap.get(key);
-
-        int newValue = key.hashCode();
-        hashmap.put(key, newValue);
-        return newValue;
+        return key.hashCode();
     }
 
 }
@@ -255,6 +255,27 @@ public abstract class Utils {
                 .collect(toMap(key -> key, key -> decay(map.get(key), gamma)));
     }
 
+    /**
+     * Decays statistics held in parallel arrays by gamma, in place, in the same way as decay(Pair, gamma)
+     *
+     * @param counts - the count for each entry
+     * @param values - the total value for each entry
+     * @param gamma  - the decay (no decay unless 0 <= gamma < 1)
+     */
+    public static void decay(int[] counts, double[] values, double gamma) {
+        if (gamma < 1.0 && gamma >= 0.0) {
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    values[i] = 0.0;
+                    continue;
+                }
+                double oldCount = counts[i];
+                counts[i] = (int) (oldCount * gamma);
+                values[i] = values[i] * counts[i] / oldCount;
+            }
+        }
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> T getArg(String[] args, String name, T defaultValue) {
         Optional<String> raw = Arrays.stream(args).filter(i -> i.toLowerCase().startsWith(name.toLowerCase() + "=")).findFirst();
@@ -0,0 +1,28 @@
+package utilities;
+
+/**
+ * Keys for Zobrist hashing of game states (see AbstractGameState.getStateHash()).
+ * A game gives each feature of its position (a grid cell, a card, an edge...) an index, and each value that feature
+ * can take (the token in the cell, the deck holding the card...) another index. The hash of a position is then the XOR
+ * of key(feature, value) over all the features, and can be kept up to date by XOR-ing out the old key and XOR-ing in
+ * the new one as each feature changes.
+ * The keys are computed from the indices with the SplitMix64 mixing function rather than drawn from a table, so no
+ * table is kept, they are the same on every run, and they are safe to use from any number of threads.
+ */
+public class ZobristKeys {
+
+    private ZobristKeys() {
+    }
+
+    /**
+     * @param feature - index of the feature of the position
+     * @param value   - index of the value of that feature
+     * @return a pseudo-random 64-bit key, unique (with very high probability) to the (feature, value) pair
+     */
+    public static long key(int feature, int value) {
+        long z = (((long) feature << 32) | (value & 0xFFFFFFFFL)) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
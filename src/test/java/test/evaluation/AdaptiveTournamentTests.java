@@ -0,0 +1,84 @@
+package test.evaluation;
+
+import core.AbstractPlayer;
+import evaluation.tournaments.RoundRobinTournament;
+import games.GameType;
+import org.junit.Test;
+import players.simple.OSLAPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static evaluation.tournaments.AbstractTournament.TournamentMode.ADAPTIVE;
+import static org.junit.Assert.*;
+
+public class AdaptiveTournamentTests {
+
+    // OSLA (agent 0) wins or draws nearly every game of TicTacToe against a random player, so its match-ups are
+    // settled quickly; the two random players (agents 1 and 2) are evenly matched
+    private RoundRobinTournament runTournament(int nThreads, int maxGamesPerMatchUp) {
+        List<AbstractPlayer> agents = new ArrayList<>();
+        agents.add(new OSLAPlayer(new Random(12)));
+        for (int i = 1; i < 3; i++)
+            agents.add(new RandomPlayer(new Random(31 + i)));
+        RoundRobinTournament tournament = new RoundRobinTournament(agents, GameType.TicTacToe, 2, 40,
+                ADAPTIVE, GameType.TicTacToe.createParameters(42));
+        tournament.setVerbose(false);
+        tournament.setResultsFile("");
+        tournament.setNThreads(nThreads);
+        if (maxGamesPerMatchUp > 0)
+            tournament.setMaxGamesPerMatchUp(maxGamesPerMatchUp);
+        tournament.runTournament();
+        return tournament;
+    }
+
+    @Test
+    public void settledMatchUpsStopEarly() {
+        RoundRobinTournament tournament = runTournament(1, 40);
+        // 6 match-ups of 40 games each; with no extra games allowed, those OSLA is in stop early
+        assertTrue(tournament.getGamesSaved() > 0);
+        assertEquals(240, tournament.getGamesPlayed() + tournament.getGamesSaved());
+        assertTrue(tournament.getWinRate(0) > tournament.getWinRate(1));
+        assertTrue(tournament.getWinRate(0) > tournament.getWinRate(2));
+    }
+
+    @Test
+    public void gamesSavedGoToCloseMatchUps() {
+        RoundRobinTournament capped = runTournament(1, 40);
+        RoundRobinTournament adaptive = runTournament(1, 0);
+        assertTrue(adaptive.getGamesPlayed() > capped.getGamesPlayed());
+        assertTrue(adaptive.getGamesPlayed() <= 240);
+        assertEquals(240, adaptive.getGamesPlayed() + adaptive.getGamesSaved());
+    }
+
+    @Test
+    public void significanceMustBeBelowAHalf() {
+        List<AbstractPlayer> agents = new ArrayList<>();
+        for (int i = 0; i < 2; i++)
+            agents.add(new RandomPlayer(new Random(i)));
+        RoundRobinTournament tournament = new RoundRobinTournament(agents, GameType.TicTacToe, 2, 10,
+                ADAPTIVE, GameType.TicTacToe.createParameters(42));
+        for (double significance : new double[]{0.0, 0.5, 1.0, -0.05}) {
+            try {
+                tournament.setSignificance(significance);
+                fail("accepted significance " + significance);
+            } catch (IllegalArgumentException expected) {
+                // as intended
+            }
+        }
+        tournament.setSignificance(0.01);
+    }
+
+    @Test
+    public void resultsDoNotDependOnThreadCount() {
+        RoundRobinTournament two = runTournament(2, 0);
+        RoundRobinTournament three = runTournament(3, 0);
+        assertEquals(two.getGamesPlayed(), three.getGamesPlayed());
+        for (int i = 0; i < 3; i++) {
+            assertEquals(two.getWinRate(i), three.getWinRate(i), 1e-9);
+            assertEquals(two.getOrdinalRank(i), three.getOrdinalRank(i), 1e-9);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package test.evaluation;
+
+import core.AbstractPlayer;
+import core.Game;
+import evaluation.listeners.IGameListener;
+import evaluation.metrics.Event;
+import evaluation.tournaments.RoundRobinTournament;
+import games.GameType;
+import org.junit.Test;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static evaluation.tournaments.AbstractTournament.TournamentMode.NO_SELF_PLAY;
+import static org.junit.Assert.*;
+
+public class ParallelTournamentTests {
+
+    static class GameOverCounter implements IGameListener {
+        List<Integer> gameIDs = new ArrayList<>();
+        Game game;
+
+        @Override
+        public void onEvent(Event event) {
+            if (event.type == Event.GameEvent.GAME_OVER) {
+                assertFalse(event.state.isNotTerminal());
+                gameIDs.add(event.state.getGameID());
+            }
+        }
+
+        @Override
+        public void allGamesFinished() {
+        }
+
+        @Override
+        public void setGame(Game game) {
+            this.game = game;
+        }
+
+        @Override
+        public Game getGame() {
+            return game;
+        }
+    }
+
+    // Only interested in actions taken, and checks that each has the state at the time
+    static class ActionTakenRecorder extends GameOverCounter {
+        int actionsTaken, lastTick;
+
+        @Override
+        public void onEvent(Event event) {
+            assertEquals(Event.GameEvent.ACTION_TAKEN, event.type);
+            // a game's ticks go up one at a time, from 1 after its first action
+            int tick = event.state.getGameTick();
+            assertTrue(tick == lastTick + 1 || tick == 1);
+            lastTick = tick;
+            actionsTaken++;
+        }
+
+        @Override
+        public Set<Event.GameEvent> getEventsOfInterest() {
+            return EnumSet.of(Event.GameEvent.ACTION_TAKEN);
+        }
+    }
+
+    // Records every event as text, in the order the listener sees them (component IDs depend on the thread that
+    // created the game, so actions are recorded by description)
+    static class EventSequenceRecorder extends GameOverCounter {
+        List<String> events = new ArrayList<>();
+
+        @Override
+        public void onEvent(Event event) {
+            String action = event.action == null ? "" : event.action.getString(event.state);
+            events.add(event.type + " " + event.state.getGameTick() + " " + event.state.getCurrentPlayer() + " "
+                    + action + " " + Arrays.toString(event.state.getPlayerResults()));
+        }
+    }
+
+    private RoundRobinTournament runTournament(int nThreads, IGameListener counter) {
+        List<AbstractPlayer> agents = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            agents.add(new RandomPlayer(new Random(31 + i)));
+        RoundRobinTournament tournament = new RoundRobinTournament(agents, GameType.TicTacToe, 2, 10,
+                NO_SELF_PLAY, GameType.TicTacToe.createParameters(42));
+        tournament.setVerbose(false);
+        tournament.setResultsFile("");
+        tournament.setNThreads(nThreads);
+        tournament.addListener(counter);
+        tournament.runTournament();
+        return tournament;
+    }
+
+    @Test
+    public void resultsDoNotDependOnThreadCount() {
+        GameOverCounter twoCounter = new GameOverCounter();
+        GameOverCounter fourCounter = new GameOverCounter();
+        RoundRobinTournament two = runTournament(2, twoCounter);
+        RoundRobinTournament four = runTournament(4, fourCounter);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(two.getWinRate(i), four.getWinRate(i), 1e-9);
+            assertEquals(two.getOrdinalRank(i), four.getOrdinalRank(i), 1e-9);
+        }
+        // 6 match-ups of 10 games each, every one passed on to the listener once
+        assertEquals(60, twoCounter.gameIDs.size());
+        assertEquals(60, fourCounter.gameIDs.size());
+    }
+
+    @Test
+    public void parallelResultsMatchSequential() {
+        EventSequenceRecorder serialEvents = new EventSequenceRecorder();
+        EventSequenceRecorder parallelEvents = new EventSequenceRecorder();
+        RoundRobinTournament serial = runTournament(1, serialEvents);
+        RoundRobinTournament parallel = runTournament(3, parallelEvents);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(serial.getWinRate(i), parallel.getWinRate(i), 1e-9);
+            assertEquals(serial.getOrdinalRank(i), parallel.getOrdinalRank(i), 1e-9);
+        }
+        assertFalse(serialEvents.events.isEmpty());
+        assertEquals(serialEvents.events, parallelEvents.events);
+    }
+
+    @Test
+    public void onlyEventsOfInterestAreRecorded() {
+        ActionTakenRecorder parallel = new ActionTakenRecorder();
+        runTournament(3, parallel);
+        assertTrue(parallel.actionsTaken > 60);
+    }
+}
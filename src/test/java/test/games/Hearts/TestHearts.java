@@ -6,7 +6,10 @@ import core.CoreConstants;
 import core.actions.AbstractAction;
 import core.components.Deck;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 
 import games.Hearts.actions.Play;
 import games.Hearts.components.HeartsForwardModel;
@@ -247,9 +250,9 @@ public class TestHearts {
         assertEquals(2, gameState.getFirstPlayer());
 
         // Verify that the winning player has the trick cards
-        assertTrue(gameState.trickDecks.get(2).contains(play0.card));
-        assertTrue(gameState.trickDecks.get(2).contains(play1.card));
-        assertTrue(gameState.trickDecks.get(2).contains(play2.card));
+        assertTrue(gameState.getPlayerTrickDecks().get(2).contains(play0.card));
+        assertTrue(gameState.getPlayerTrickDecks().get(2).contains(play1.card));
+        assertTrue(gameState.getPlayerTrickDecks().get(2).contains(play2.card));
     }
 
     @Test
@@ -286,12 +289,12 @@ public class TestHearts {
         assertTrue(gameState.currentRoundCards.isEmpty());
 
         // Verify that the winning player has the trick cards
-        assertTrue(gameState.trickDecks.get(2).contains(play0.card));
-        assertTrue(gameState.trickDecks.get(2).contains(play1.card));
-        assertTrue(gameState.trickDecks.get(2).contains(play2.card));
+        assertTrue(gameState.getPlayerTrickDecks().get(2).contains(play0.card));
+        assertTrue(gameState.getPlayerTrickDecks().get(2).contains(play1.card));
+        assertTrue(gameState.getPlayerTrickDecks().get(2).contains(play2.card));
 
         // If cards go to winning player, check their deck size.
-        assertEquals(3, gameState.trickDecks.get(2).getSize());
+        assertEquals(3, gameState.getPlayerTrickDecks().get(2).getSize());
     }
 
     @Test
@@ -386,30 +389,40 @@ public class TestHearts {
 
     @Test
     public void testCalculatePoints() {
-        // Create a trick deck for a player with some cards
-        Deck<FrenchCard> deck = new Deck<>(("Player " + 0 + " deck"), 0, CoreConstants.VisibilityMode.VISIBLE_TO_OWNER);
-        deck.add(new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Hearts, 2)); // 1 point
-        deck.add(new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Spades, 12)); // 13 points
-
-        // Set the trick deck in the game state
-        gameState.trickDecks.add(0, deck);
+        // Give a player some cards from won tricks
+        gameState.addToTrickDeck(0, new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Hearts, 2)); // 1 point
+        gameState.addToTrickDeck(0, new FrenchCard(FrenchCard.FrenchCardType.Number, FrenchCard.Suite.Spades, 12)); // 13 points
 
         // Calculate points
         gameState.calculatePoints(0);
 
-        // Test that the correct number of points was calculated
+        // Test that the correct number of points was calculated, and the trick deck emptied
         assertEquals(14, gameState.getPlayerPoints(0));
+        assertEquals(0, gameState.getPlayerTrickDecks().get(0).getSize());
+        assertEquals(gameState.computeStateHash(), gameState.getStateHash());
     }
 
     @Test
     public void testGetPlayerPoints() {
         // Set some points for a player
-        gameState.playerPoints.put(0, 10);
+        gameState.setPlayerPoints(0, 10);
 
         // Test that the correct number of points is returned
         assertEquals(10, gameState.getPlayerPoints(0));
     }
 
+    @Test
+    public void testSetPlayerPointsKeepsTotals() {
+        gameState.setPlayerPoints(0, 40);
+        gameState.setPlayerPoints(1, 25);
+        assertEquals(40, gameState.getMaxPlayerPoints());
+
+        // lowering the highest score brings the maximum down to the next one
+        gameState.setPlayerPoints(0, 10);
+        assertEquals(25, gameState.getMaxPlayerPoints());
+        assertEquals(gameState.computeStateHash(), gameState.getStateHash());
+    }
+
     @Test
     public void testGetGameScore() {
         // Set the game state
@@ -462,9 +475,9 @@ public class TestHearts {
         gameState.setGamePhase(HeartsGameState.Phase.PLAYING);
 
         // Set some points for players
-        gameState.playerPoints.put(0, 10);
-        gameState.playerPoints.put(1, 30);
-        gameState.playerPoints.put(2, 15);
+        gameState.setPlayerPoints(0, 10);
+        gameState.setPlayerPoints(1, 30);
+        gameState.setPlayerPoints(2, 15);
 
 
         // Test getOrdinalPosition
@@ -472,20 +485,101 @@ public class TestHearts {
         assertEquals(1, ordinal);  // Assuming that player 0 has more points than player 1
     }
 
+    @Test
+    public void testSameSeedDealsSameHands() {
+        HeartsGameState first = new HeartsGameState(new HeartsParameters(42), 4);
+        HeartsGameState second = new HeartsGameState(new HeartsParameters(42), 4);
+        forwardModel.setup(first);
+        forwardModel.setup(second);
+        for (int i = 0; i < 4; i++)
+            assertEquals(first.getPlayerDecks().get(i).toString(), second.getPlayerDecks().get(i).toString());
+
+        // Copies carry the game stream with them, so they deal the same next hand as the original
+        HeartsGameState copy = (HeartsGameState) first.copy();
+        forwardModel._setupRound(first);
+        forwardModel._setupRound(copy);
+        for (int i = 0; i < 4; i++)
+            assertEquals(first.getPlayerDecks().get(i).toString(), copy.getPlayerDecks().get(i).toString());
+    }
 
+    @Test
+    public void testSuccessiveDeterminisationsDiffer() {
+        forwardModel.setup(gameState);
+        gameState.getCoreGameParameters().partialObservable = true;
+        HeartsGameState copy1 = (HeartsGameState) gameState.copy(0);
+        HeartsGameState copy2 = (HeartsGameState) gameState.copy(0);
+        assertEquals(gameState.getPlayerDecks().get(0).toString(), copy1.getPlayerDecks().get(0).toString());
+        assertEquals(gameState.getPlayerDecks().get(0).toString(), copy2.getPlayerDecks().get(0).toString());
+        assertNotEquals(copy1.getPlayerDecks().get(1).toString(), copy2.getPlayerDecks().get(1).toString());
+    }
 
+    @Test
+    public void testAvailableActionsAreInterned() {
+        forwardModel.setup(gameState);
+        List<AbstractAction> first = forwardModel._computeAvailableActions(gameState);
+        List<AbstractAction> buffer = new ArrayList<>();
+        buffer.add(new Pass(2, gameState.getPlayerDecks().get(2).get(0)));
+        forwardModel.fillAvailableActions(gameState, buffer);
+        assertEquals(first.size(), buffer.size());
+        for (int i = 0; i < first.size(); i++)
+            assertSame(first.get(i), buffer.get(i));
+
+        // Copies share the same interned actions
+        HeartsGameState copy = (HeartsGameState) gameState.copy();
+        List<AbstractAction> copyActions = forwardModel._computeAvailableActions(copy);
+        for (int i = 0; i < first.size(); i++)
+            assertSame(first.get(i), copyActions.get(i));
+    }
 
+    @Test
+    public void testRunningScoresMatchScoreMap() {
+        forwardModel.setup(gameState);
+        Random rnd = new Random(7);
+        while (gameState.isNotTerminal()) {
+            List<AbstractAction> available = forwardModel.computeAvailableActions(gameState);
+            forwardModel.next(gameState, available.get(rnd.nextInt(available.size())));
+            int max = 0;
+            for (int points : gameState.getPlayerPointsMap().values())
+                max = Math.max(max, points);
+            assertEquals(max, gameState.getMaxPlayerPoints());
+        }
+        assertTrue(gameState.getMaxPlayerPoints() >= 100);
+    }
 
+    @Test
+    public void testHighCardCountsFollowHands() {
+        forwardModel.setup(gameState);
+        Random rnd = new Random(11);
+        for (int step = 0; step < 30; step++) {
+            List<AbstractAction> available = forwardModel.computeAvailableActions(gameState);
+            forwardModel.next(gameState, available.get(rnd.nextInt(available.size())));
+            HeartsGameState copy = (HeartsGameState) gameState.copy(0);
+            for (HeartsGameState state : Arrays.asList(gameState, copy)) {
+                for (int p = 0; p < 3; p++) {
+                    long highCards = state.getPlayerDecks().get(p).getComponents().stream()
+                            .filter(card -> card.number > HeartsGameState.HIGH_CARD_THRESHOLD).count();
+                    assertEquals(highCards, state.getHighCardsInHand(p));
+                    for (double threshold : new double[]{0.0, 7.5, 12.0, 14.0}) {
+                        long above = state.getPlayerDecks().get(p).getComponents().stream()
+                                .filter(card -> card.number > threshold).count();
+                        assertEquals(above, state.getCardsInHandAbove(p, threshold));
+                    }
+                }
+            }
+        }
+    }
 
-
-
-
-
+    @Test
+    public void testCopiesShareCanonicalCards() {
+        forwardModel.setup(gameState);
+        HeartsGameState copy = (HeartsGameState) gameState.copy();
+        for (int p = 0; p < 3; p++) {
+            List<FrenchCard> hand = gameState.getPlayerDecks().get(p).getComponents();
+            List<FrenchCard> copyHand = copy.getPlayerDecks().get(p).getComponents();
+            for (int i = 0; i < hand.size(); i++) {
+                assertSame(FrenchCard.of(hand.get(i).ordinal()), hand.get(i));
+                assertSame(hand.get(i), copyHand.get(i));
+            }
+        }
+    }
 }
-
-
-
-
-
-
-
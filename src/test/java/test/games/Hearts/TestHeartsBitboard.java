@@ -0,0 +1,115 @@
+package test.games.Hearts;
+
+import core.actions.AbstractAction;
+import core.components.Deck;
+import core.components.FrenchCard;
+import games.Hearts.actions.Pass;
+import games.Hearts.actions.Play;
+import games.Hearts.components.*;
+import org.junit.*;
+
+import java.util.*;
+
+import static games.Hearts.components.HeartsBitboardGameState.*;
+import static org.junit.Assert.*;
+
+public class TestHeartsBitboard {
+
+    HeartsForwardModel fm = new HeartsForwardModel();
+    HeartsBitboardForwardModel bitFM = new HeartsBitboardForwardModel();
+
+    private long toMask(Deck<FrenchCard> deck) {
+        long mask = 0L;
+        for (FrenchCard card : deck.getComponents())
+            mask |= 1L << cardIndex(card);
+        return mask;
+    }
+
+    private long toMask(List<AbstractAction> actions) {
+        long mask = 0L;
+        for (AbstractAction action : actions)
+            mask |= 1L << cardIndex(action instanceof Play ? ((Play) action).card : ((Pass) action).card1);
+        return mask;
+    }
+
+    private void playAndCompare(int nPlayers, long seed) {
+        Random rnd = new Random(seed);
+        HeartsGameState hgs = new HeartsGameState(new HeartsParameters(seed), nPlayers);
+        HeartsBitboardGameState bgs = new HeartsBitboardGameState(new HeartsParameters(seed), nPlayers);
+        fm.setup(hgs);
+        bitFM.setup(bgs);
+
+        // With the same seed both engines deal the same hands, so the two games match card for card
+        int decisions = 0;
+        while (hgs.isNotTerminal() && decisions < 5000) {
+            assertEquals(hgs.getGamePhase(), bgs.getGamePhase());
+            assertEquals(hgs.getCurrentPlayer(), bgs.getCurrentPlayer());
+            for (int p = 0; p < nPlayers; p++) {
+                assertEquals(toMask(hgs.getPlayerDecks().get(p)), bgs.getPlayerHand(p));
+                assertEquals(hgs.getPlayerPoints(p), bgs.getPlayerPoints(p));
+                assertEquals(hgs.playerTricksTaken[p], bgs.getPlayerTricksTaken(p));
+                assertEquals(hgs.getHeuristicScore(p), bgs.getHeuristicScore(p), 1e-9);
+            }
+
+            List<AbstractAction> actions = fm.computeAvailableActions(hgs);
+            List<AbstractAction> bitActions = bitFM.computeAvailableActions(bgs);
+            assertEquals(actions.size(), bitActions.size());
+            assertEquals(toMask(actions), toMask(bitActions));
+
+            AbstractAction chosen = actions.get(rnd.nextInt(actions.size()));
+            int card = cardIndex(chosen instanceof Play ? ((Play) chosen).card : ((Pass) chosen).card1);
+            AbstractAction bitChosen = bitActions.stream()
+                    .filter(a -> cardIndex(a instanceof Play ? ((Play) a).card : ((Pass) a).card1) == card)
+                    .findFirst().orElseThrow(AssertionError::new);
+            fm.next(hgs, chosen);
+            bitFM.next(bgs, bitChosen);
+            decisions++;
+        }
+        assertFalse(hgs.isNotTerminal());
+        assertFalse(bgs.isNotTerminal());
+        for (int p = 0; p < nPlayers; p++) {
+            assertEquals(hgs.getGameScore(p), bgs.getGameScore(p), 0.0);
+            assertEquals(hgs.getPlayerResults()[p], bgs.getPlayerResults()[p]);
+        }
+    }
+
+    @Test
+    public void sameGameAsHeartsForwardModel() {
+        for (int nPlayers = 3; nPlayers <= 7; nPlayers++)
+            playAndCompare(nPlayers, 341 + nPlayers);
+    }
+
+    @Test
+    public void cardIndicesRoundTrip() {
+        for (int i = 0; i < N_CARDS; i++)
+            assertEquals(i, cardIndex(card(i)));
+        assertEquals(13, penaltyPoints(1L << QUEEN_OF_SPADES));
+        assertEquals(26, penaltyPoints(HEARTS_MASK | 1L << QUEEN_OF_SPADES));
+        assertEquals(16, countAbove(~0L >>> 12, 10.0));
+    }
+
+    @Test
+    public void copyIsIndependent() {
+        HeartsBitboardGameState bgs = new HeartsBitboardGameState(new HeartsParameters(3), 4);
+        bitFM.setup(bgs);
+        HeartsBitboardGameState copy = (HeartsBitboardGameState) bgs.copy();
+        assertEquals(bgs.hashCode(), copy.hashCode());
+        bitFM.next(copy, bitFM.computeAvailableActions(copy).get(0));
+        assertNotEquals(bgs.getPlayerHand(0), copy.getPlayerHand(0));
+        assertEquals(13, Long.bitCount(bgs.getPlayerHand(0)));
+    }
+
+    @Test
+    public void partialObservableCopyKeepsOwnHandAndHandSizes() {
+        HeartsBitboardGameState bgs = new HeartsBitboardGameState(new HeartsParameters(3), 4);
+        bitFM.setup(bgs);
+        HeartsBitboardGameState copy = (HeartsBitboardGameState) bgs.copy(1);
+        assertEquals(bgs.getPlayerHand(1), copy.getPlayerHand(1));
+        long all = 0L;
+        for (int p = 0; p < 4; p++) {
+            assertEquals(13, Long.bitCount(copy.getPlayerHand(p)));
+            all |= copy.getPlayerHand(p);
+        }
+        assertEquals(52, Long.bitCount(all));
+    }
+}
@@ -0,0 +1,53 @@
+package test.games;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistoryTests {
+
+    Random rnd = new Random(5521);
+
+    // SushiGo's ChooseCard describes the card by looking it up in the current hand, so its text is only right
+    // against the state the action was taken in
+    @Test
+    public void actionTextIsTakenFromTheStateBeforeTheAction() {
+        Game game = GameType.SushiGo.createGameInstance(3, 408);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        List<String> expected = new ArrayList<>();
+        AbstractGameState midGame = null;
+        while (state.isNotTerminal()) {
+            List<AbstractAction> actions = fm.computeAvailableActions(state);
+            AbstractAction action = actions.get(rnd.nextInt(actions.size()));
+            expected.add("Player " + state.getCurrentPlayer() + " : " + action.getString(state));
+            fm.next(state, action);
+            if (midGame == null && expected.size() == 10)
+                midGame = state.copy();
+        }
+        assertNotNull(midGame);
+        // the copy shares the first ten entries, and reads them first
+        assertInOrder(expected.subList(0, 10), midGame.getHistoryAsText());
+        assertInOrder(expected, state.getHistoryAsText());
+    }
+
+    private static void assertInOrder(List<String> expected, List<String> history) {
+        Iterator<String> iterator = history.iterator();
+        for (String text : expected) {
+            boolean found = false;
+            while (!found && iterator.hasNext())
+                found = iterator.next().equals(text);
+            assertTrue("missing " + text, found);
+        }
+    }
+}
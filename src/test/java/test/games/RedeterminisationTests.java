@@ -0,0 +1,158 @@
+package test.games;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.components.Component;
+import core.components.Deck;
+import games.GameType;
+import games.Hearts.components.HeartsBitboardForwardModel;
+import games.Hearts.components.HeartsBitboardGameState;
+import games.Hearts.components.HeartsGameState;
+import games.Hearts.components.HeartsParameters;
+import games.explodingkittens.ExplodingKittensGameState;
+import games.explodingkittens.cards.ExplodingKittensCard;
+import games.loveletter.LoveLetterGameState;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.MCTSPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.Assert.*;
+
+/**
+ * redeterminise() re-samples the hidden parts of a state in place; these tests check that it keeps everything the
+ * observing player can see, and the rules of each game.
+ */
+public class RedeterminisationTests {
+
+    Random rnd = new Random(3381);
+
+    private void playRandomGames(GameType gameType, int nPlayers, int nGames, Consumer<AbstractGameState> check) {
+        for (int g = 0; g < nGames; g++) {
+            Game game = gameType.createGameInstance(nPlayers, 611 + g);
+            AbstractGameState state = game.getGameState();
+            AbstractForwardModel fm = game.getForwardModel();
+            assertTrue(state.canRedeterminise());
+            while (state.isNotTerminal()) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                fm.next(state, actions.get(rnd.nextInt(actions.size())));
+                check.accept(state);
+            }
+        }
+    }
+
+    private static <C extends Component> List<String> contents(List<? extends Deck<C>> decks) {
+        List<String> retValue = new ArrayList<>();
+        for (Deck<C> d : decks)
+            for (C c : d.getComponents())
+                retValue.add(c.toString());
+        Collections.sort(retValue);
+        return retValue;
+    }
+
+    /**
+     * Checks that the player's own hand and the size of every hand are unchanged, and that the same cards are still
+     * in play
+     */
+    private <C extends Component> void checkHands(AbstractGameState state, Function<AbstractGameState, List<? extends Deck<C>>> hands,
+                                                  Function<AbstractGameState, Deck<C>> drawPile) {
+        int player = state.getCurrentPlayer();
+        List<Deck<C>> before = new ArrayList<>(hands.apply(state));
+        before.add(drawPile.apply(state));
+        AbstractGameState copy = state.copy();
+        copy.redeterminise(player, rnd);
+        List<Deck<C>> after = new ArrayList<>(hands.apply(copy));
+        after.add(drawPile.apply(copy));
+        assertEquals(contents(before), contents(after));
+        for (int p = 0; p < state.getNPlayers(); p++)
+            assertEquals(before.get(p).getSize(), after.get(p).getSize());
+        assertEquals(before.get(player).getComponents(), after.get(player).getComponents());
+    }
+
+    @Test
+    public void heartsKeepsOwnHandAndHash() {
+        playRandomGames(GameType.Hearts, 4, 2, state -> {
+            checkHands(state, s -> ((HeartsGameState) s).getPlayerDecks(), s -> ((HeartsGameState) s).getDrawDeck());
+            HeartsGameState copy = (HeartsGameState) state.copy();
+            copy.redeterminise(state.getCurrentPlayer(), rnd);
+            assertEquals(copy.computeStateHash(), copy.getStateHash());
+            for (int p = 0; p < 4; p++) {
+                int high = 0;
+                for (var card : copy.getPlayerDecks().get(p).getComponents())
+                    if (card.number > HeartsGameState.HIGH_CARD_THRESHOLD) high++;
+                assertEquals(high, copy.getHighCardsInHand(p));
+            }
+        });
+    }
+
+    @Test
+    public void loveLetterKeepsOwnHand() {
+        playRandomGames(GameType.LoveLetter, 3, 3, state ->
+                checkHands(state, s -> ((LoveLetterGameState) s).getPlayerHandCards(), s -> ((LoveLetterGameState) s).getDrawPile()));
+    }
+
+    @Test
+    public void explodingKittensNeverDealsAKitten() {
+        playRandomGames(GameType.ExplodingKittens, 3, 3, state -> {
+            checkHands(state, s -> ((ExplodingKittensGameState) s).getPlayerHandCards(), s -> ((ExplodingKittensGameState) s).getDrawPile());
+            ExplodingKittensGameState copy = (ExplodingKittensGameState) state.copy();
+            copy.redeterminise(state.getCurrentPlayer(), rnd);
+            // a kitten is only ever in a hand because it has just been drawn, and it stays there
+            for (int p = 0; p < state.getNPlayers(); p++)
+                assertEquals(kittens(((ExplodingKittensGameState) state).getPlayerHandCards().get(p)),
+                        kittens(copy.getPlayerHandCards().get(p)));
+        });
+    }
+
+    private static List<Integer> kittens(Deck<ExplodingKittensCard> hand) {
+        List<Integer> retValue = new ArrayList<>();
+        for (int i = 0; i < hand.getSize(); i++)
+            if (hand.get(i).cardType == ExplodingKittensCard.CardType.EXPLODING_KITTEN)
+                retValue.add(i);
+        return retValue;
+    }
+
+    @Test
+    public void heartsBitboardRedealsOtherHands() {
+        HeartsBitboardGameState state = new HeartsBitboardGameState(new HeartsParameters(7), 4);
+        new HeartsBitboardForwardModel().setup(state);
+        HeartsBitboardGameState copy = (HeartsBitboardGameState) state.copy();
+        copy.redeterminise(2, rnd);
+        assertEquals(state.getPlayerHand(2), copy.getPlayerHand(2));
+        assertNotEquals(state.getPlayerHand(0), copy.getPlayerHand(0));
+        long all = 0L;
+        for (int p = 0; p < 4; p++) {
+            assertEquals(13, Long.bitCount(copy.getPlayerHand(p)));
+            all |= copy.getPlayerHand(p);
+        }
+        assertEquals(52, Long.bitCount(all));
+    }
+
+    @Test
+    public void informationSetSearchRedeterminises() {
+        for (boolean redeterminise : new boolean[]{true, false}) {
+            MCTSParams params = new MCTSParams(2281);
+            params.information = MCTSEnums.Information.Information_Set;
+            params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+            params.budget = 100;
+            params.redeterminise = redeterminise;
+            List<AbstractPlayer> players = new ArrayList<>();
+            players.add(new MCTSPlayer(params));
+            players.add(new RandomPlayer(new Random(48)));
+            players.add(new RandomPlayer(new Random(49)));
+            Game game = GameType.LoveLetter.createGameInstance(3, 914);
+            game.reset(players);
+            game.run();
+            assertFalse(game.getGameState().isNotTerminal());
+        }
+    }
+}
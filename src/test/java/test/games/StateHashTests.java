@@ -0,0 +1,94 @@
+package test.games;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.Game;
+import core.actions.AbstractAction;
+import core.actions.SetGridValueAction;
+import games.GameType;
+import games.Hearts.components.HeartsGameState;
+import games.connect4.Connect4Constants;
+import games.connect4.Connect4GameState;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.function.BiConsumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * The state hash is updated incrementally by the forward model; these tests check that it is carried over by copies,
+ * and that it depends only on the position reached, not on the order of the actions taken to reach it.
+ */
+public class StateHashTests {
+
+    Random rnd = new Random(4219);
+
+    private void playRandomGames(GameType gameType, int nPlayers, int nGames, BiConsumer<AbstractGameState, AbstractAction> check) {
+        for (int g = 0; g < nGames; g++) {
+            Game game = gameType.createGameInstance(nPlayers, 823 + g);
+            AbstractGameState state = game.getGameState();
+            AbstractForwardModel fm = game.getForwardModel();
+            assertTrue(state.hasStateHash());
+            while (state.isNotTerminal()) {
+                List<AbstractAction> actions = fm.computeAvailableActions(state);
+                AbstractAction action = actions.get(rnd.nextInt(actions.size()));
+                long before = state.getStateHash();
+                fm.next(state, action);
+                assertNotEquals(before, state.getStateHash());
+                assertEquals(state.getStateHash(), state.copy().getStateHash());
+                check.accept(state, action);
+            }
+        }
+    }
+
+    private long playInOrder(Game game, int[] order, AbstractAction[] moves) {
+        AbstractGameState state = game.getGameState().copy();
+        for (int i : order)
+            game.getForwardModel().next(state, moves[i].copy());
+        return state.getStateHash();
+    }
+
+    @Test
+    public void heartsHashMatchesRecomputation() {
+        playRandomGames(GameType.Hearts, 4, 3, (state, action) -> {
+            HeartsGameState hgs = (HeartsGameState) state;
+            assertEquals(hgs.computeStateHash(), hgs.getStateHash());
+            // a copy from a player's perspective redeals the other hands, and its hash follows suit
+            HeartsGameState observed = (HeartsGameState) hgs.copy(hgs.getCurrentPlayer());
+            assertEquals(observed.computeStateHash(), observed.getStateHash());
+        });
+    }
+
+    @Test
+    public void connect4HashIsIndependentOfMoveOrder() {
+        playRandomGames(GameType.Connect4, 2, 5, (state, action) -> {});
+        Game game = GameType.Connect4.createGameInstance(2, 823);
+        int board = ((SetGridValueAction<?>) game.getForwardModel().computeAvailableActions(game.getGameState()).get(0)).getGridBoard();
+        int height = ((Connect4GameState) game.getGameState()).getGridBoard().getHeight();
+        AbstractAction[] moves = new AbstractAction[]{
+                new SetGridValueAction<>(board, 0, height - 1, Connect4Constants.playerMapping.get(0)),
+                new SetGridValueAction<>(board, 1, height - 1, Connect4Constants.playerMapping.get(1)),
+                new SetGridValueAction<>(board, 2, height - 1, Connect4Constants.playerMapping.get(0))};
+        assertEquals(playInOrder(game, new int[]{0, 1, 2}, moves),
+                playInOrder(game, new int[]{2, 1, 0}, moves));
+        assertNotEquals(playInOrder(game, new int[]{0, 1, 2}, moves),
+                playInOrder(game, new int[]{0, 1}, moves));
+    }
+
+    @Test
+    public void dotsAndBoxesHashIsIndependentOfMoveOrder() {
+        playRandomGames(GameType.DotsAndBoxes, 2, 5, (state, action) -> {});
+        Game game = GameType.DotsAndBoxes.createGameInstance(2, 823);
+        List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(game.getGameState());
+        // no box can be completed with only two edges
+        AbstractAction[] moves = new AbstractAction[]{actions.get(0), actions.get(1)};
+        assertEquals(playInOrder(game, new int[]{0, 1}, moves),
+                playInOrder(game, new int[]{1, 0}, moves));
+    }
+
+    @Test
+    public void ticTacToeHashIsCarriedByCopies() {
+        playRandomGames(GameType.TicTacToe, 2, 5, (state, action) -> {});
+    }
+}
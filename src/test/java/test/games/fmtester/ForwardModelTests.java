@@ -84,4 +84,9 @@ public class ForwardModelTests {
         ForwardModelTester fmt = new ForwardModelTester("game=Hearts", "nGames=2", "nPlayers=4");
     }
 
+    @Test
+    public void testHeartsBitboard() {
+        ForwardModelTester fmt = new ForwardModelTester("game=HeartsBitboard", "nGames=2", "nPlayers=4");
+    }
+
 }
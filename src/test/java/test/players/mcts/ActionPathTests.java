@@ -0,0 +1,63 @@
+package test.players.mcts;
+
+import core.actions.AbstractAction;
+import core.actions.DoNothing;
+import org.junit.Test;
+import players.mcts.ActionPath;
+import utilities.Pair;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ActionPathTests {
+
+    @Test
+    public void pushAndReadBack() {
+        ActionPath path = new ActionPath();
+        assertEquals(3, path.lastActor(3));
+        List<AbstractAction> actions = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            actions.add(new DoNothing());
+            path.push(i % 3, actions.get(i));
+        }
+        assertEquals(40, path.size());
+        assertEquals(39 % 3, path.lastActor(3));
+        int i = 0;
+        for (Pair<Integer, AbstractAction> pair : path) {
+            assertEquals(i % 3, pair.a.intValue());
+            assertSame(actions.get(i), pair.b);
+            assertEquals(i % 3, path.actor(i));
+            assertSame(actions.get(i), path.action(i));
+            i++;
+        }
+        assertEquals(40, i);
+    }
+
+    @Test
+    public void clearReusesThePath() {
+        ActionPath path = new ActionPath();
+        AbstractAction first = new DoNothing(), second = new DoNothing();
+        path.push(0, first);
+        ActionPath copy = path.copy();
+        path.clear();
+        assertTrue(path.isEmpty());
+        path.push(1, second);
+        assertEquals(1, path.size());
+        assertEquals(1, path.get(0).a.intValue());
+        assertSame(second, path.get(0).b);
+        // a copy is not changed by later changes to the original
+        assertEquals(1, copy.size());
+        assertEquals(0, copy.get(0).a.intValue());
+        assertSame(first, copy.get(0).b);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void cannotReadPastTheEnd() {
+        ActionPath path = new ActionPath();
+        path.push(0, new DoNothing());
+        path.clear();
+        path.get(0);
+    }
+}
@@ -0,0 +1,147 @@
+package test.players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import games.Hearts.components.HeartsParameters;
+import games.tictactoe.TicTacToeGameParameters;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.SingleTreeNode;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+/**
+ * The statistics for each action are held on the parent node (by slot) as well as on the child nodes. These tests
+ * check that the action chosen at the root from the former matches the statistics summed over the latter.
+ */
+public class ActionStatisticsTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams(9332);
+        params.maxTreeDepth = 20;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 200;
+        params.selectionPolicy = MCTSEnums.SelectionPolicy.ROBUST;
+    }
+
+    private Game createGame(GameType gameType, int nPlayers) {
+        mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        for (int p = 1; p < nPlayers; p++)
+            players.add(new RandomPlayer(new Random(3023 + p)));
+        Game game = gameType == GameType.TicTacToe ?
+                gameType.createGameInstance(nPlayers, new TicTacToeGameParameters(3812)) :
+                gameType.createGameInstance(nPlayers, new HeartsParameters(3812));
+        game.reset(players);
+        return game;
+    }
+
+    private int visits(SingleTreeNode[] nodes) {
+        return nodes == null ? 0 : Arrays.stream(nodes).filter(Objects::nonNull).mapToInt(SingleTreeNode::getVisits).sum();
+    }
+
+    private double meanValue(SingleTreeNode[] nodes, int player) {
+        if (nodes == null)
+            return Double.NEGATIVE_INFINITY;
+        double total = Arrays.stream(nodes).filter(Objects::nonNull).mapToDouble(n -> n.getTotValue()[player]).sum();
+        return total / (visits(nodes) + params.epsilon);
+    }
+
+    private void checkBestAction(SingleTreeNode root, AbstractAction chosen) {
+        Map<AbstractAction, SingleTreeNode[]> children = root.getChildren();
+        Set<Integer> allVisits = new HashSet<>();
+        for (SingleTreeNode[] nodes : children.values())
+            if (nodes != null) allVisits.add(visits(nodes));
+        if (allVisits.size() > 1) {
+            // ROBUST: the most visited action
+            int maxVisits = children.values().stream().mapToInt(this::visits).max().orElseThrow(AssertionError::new);
+            assertEquals(maxVisits, visits(children.get(chosen)));
+        } else {
+            // SIMPLE: the best mean value (to within the noise added to break ties)
+            double best = children.values().stream().mapToDouble(n -> meanValue(n, root.getActor())).max().orElseThrow(AssertionError::new);
+            assertEquals(best, meanValue(children.get(chosen), root.getActor()), 1e-4 * (1.0 + Math.abs(best)));
+        }
+    }
+
+    private void playAndCheck(GameType gameType, int nPlayers, int decisions) {
+        Game game = createGame(gameType, nPlayers);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int checked = 0;
+        while (state.isNotTerminal() && checked < decisions) {
+            int player = state.getCurrentPlayer();
+            AbstractGameState observation = state.copy(player);
+            List<AbstractAction> actions = fm.computeAvailableActions(observation);
+            AbstractAction action = game.getPlayers().get(player).getAction(observation, actions);
+            if (player == 0 && actions.size() > 1) {
+                checked++;
+                checkBestAction(mctsPlayer.getRoot(0), action);
+            }
+            fm.next(state, action);
+        }
+        assertTrue(checked > 0);
+    }
+
+    @Test
+    public void closedLoopTicTacToe() {
+        params.information = MCTSEnums.Information.Closed_Loop;
+        params.discardStateAfterEachIteration = false;
+        playAndCheck(GameType.TicTacToe, 2, 5);
+    }
+
+    @Test
+    public void informationSetHearts() {
+        params.information = MCTSEnums.Information.Information_Set;
+        playAndCheck(GameType.Hearts, 3, 15);
+    }
+
+    @Test
+    public void selfOnlyHearts() {
+        params.information = MCTSEnums.Information.Information_Set;
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.SelfOnly;
+        playAndCheck(GameType.Hearts, 4, 15);
+    }
+
+    @Test
+    public void paranoidUCBTunedHearts() {
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.paranoid = true;
+        params.treePolicy = MCTSEnums.TreePolicy.UCB_Tuned;
+        playAndCheck(GameType.Hearts, 3, 15);
+    }
+
+    @Test
+    public void reusedTreeHearts() {
+        params.information = MCTSEnums.Information.Information_Set;
+        params.reuseTree = true;
+        playAndCheck(GameType.Hearts, 3, 15);
+    }
+
+    @Test
+    public void simpleSelectionTicTacToe() {
+        params.selectionPolicy = MCTSEnums.SelectionPolicy.SIMPLE;
+        params.budget = 50;
+        Game game = createGame(GameType.TicTacToe, 2);
+        AbstractGameState observation = game.getGameState().copy(0);
+        AbstractAction action = mctsPlayer.getAction(observation, game.getForwardModel().computeAvailableActions(observation));
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        double best = root.getChildren().values().stream().mapToDouble(n -> meanValue(n, 0)).max().orElseThrow(AssertionError::new);
+        assertEquals(best, meanValue(root.getChildren().get(action), 0), 1e-4 * (1.0 + Math.abs(best)));
+    }
+}
@@ -0,0 +1,167 @@
+package test.players.mcts;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.interfaces.IStateFeatureVector;
+import core.interfaces.IStateHeuristic;
+import games.GameType;
+import games.Hearts.components.HeartsParameters;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.heuristics.LinearStateHeuristic;
+import players.heuristics.LogisticStateHeuristic;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.SingleTreeNode;
+import players.simple.RandomPlayer;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class LeafBatchTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+    List<Integer> batchSizes = new ArrayList<>();
+
+    // the score of the player, the round and the player index
+    static class HeartsFeatures implements IStateFeatureVector {
+        @Override
+        public double[] featureVector(AbstractGameState state, int playerID) {
+            return new double[]{state.getGameScore(playerID), state.getRoundCounter(), playerID};
+        }
+
+        @Override
+        public String[] names() {
+            return new String[]{"score", "round", "player"};
+        }
+    }
+
+    class CountingHeuristic implements IStateHeuristic {
+        @Override
+        public double evaluateState(AbstractGameState gs, int playerId) {
+            return gs.getHeuristicScore(playerId);
+        }
+
+        @Override
+        public double[][] evaluateStates(List<? extends AbstractGameState> states) {
+            batchSizes.add(states.size());
+            return IStateHeuristic.super.evaluateStates(states);
+        }
+    }
+
+    @Before
+    public void setup() {
+        params = new MCTSParams(9332);
+        params.maxTreeDepth = 20;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 203;
+        params.information = MCTSEnums.Information.Information_Set;
+        params.selectionPolicy = MCTSEnums.SelectionPolicy.ROBUST;
+    }
+
+    private Game createGame() {
+        mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        for (int p = 1; p < 3; p++)
+            players.add(new RandomPlayer(new Random(3023 + p)));
+        Game game = GameType.Hearts.createGameInstance(3, new HeartsParameters(3812));
+        game.reset(players);
+        return game;
+    }
+
+    private SingleTreeNode search(Game game) {
+        AbstractGameState observation = game.getGameState().copy(0);
+        AbstractAction action = mctsPlayer.getAction(observation, game.getForwardModel().computeAvailableActions(observation));
+        assertNotNull(action);
+        return mctsPlayer.getRoot(0);
+    }
+
+    private File coefficients(double... values) throws IOException {
+        File file = File.createTempFile("coefficients", ".txt");
+        file.deleteOnExit();
+        try (FileWriter writer = new FileWriter(file)) {
+            writer.write("bias\t" + String.join("\t", new HeartsFeatures().names()) + "\n");
+            StringJoiner line = new StringJoiner("\t");
+            for (double v : values)
+                line.add(String.valueOf(v));
+            writer.write(line + "\n");
+        }
+        return file;
+    }
+
+    @Test
+    public void leavesAreEvaluatedInBatches() {
+        params.leafBatchSize = 8;
+        params.heuristic = new CountingHeuristic();
+        SingleTreeNode root = search(createGame());
+        assertEquals(params.budget, root.getVisits());
+        // the last batch is whatever is left when the budget runs out
+        assertEquals(params.budget / 8 + 1, batchSizes.size());
+        for (int i = 0; i < batchSizes.size() - 1; i++)
+            assertEquals(8, batchSizes.get(i).intValue());
+        assertEquals(params.budget % 8, batchSizes.get(batchSizes.size() - 1).intValue());
+        int childVisits = root.getChildren().values().stream().filter(Objects::nonNull)
+                .flatMap(Arrays::stream).filter(Objects::nonNull).mapToInt(SingleTreeNode::getVisits).sum();
+        assertEquals(params.budget, childVisits);
+    }
+
+    @Test
+    public void noBatchesByDefault() {
+        params.heuristic = new CountingHeuristic();
+        SingleTreeNode root = search(createGame());
+        assertEquals(params.budget, root.getVisits());
+        assertTrue(batchSizes.isEmpty());
+    }
+
+    @Test
+    public void batchedLinearAndLogisticMatchSingleStates() throws IOException {
+        File file = coefficients(0.1, 0.02, -0.3, 0.05);
+        List<IStateHeuristic> heuristics = List.of(
+                new LinearStateHeuristic(new HeartsFeatures(), file.getPath(), null),
+                new LogisticStateHeuristic(new HeartsFeatures(), file.getPath(), null));
+        Game game = createGame();
+        AbstractGameState state = game.getGameState().copy();
+        List<AbstractGameState> states = new ArrayList<>();
+        Random rnd = new Random(83);
+        // a few states spread out over a game
+        while (state.isNotTerminal()) {
+            if (rnd.nextInt(20) == 0)
+                states.add(state.copy());
+            List<AbstractAction> actions = game.getForwardModel().computeAvailableActions(state);
+            game.getForwardModel().next(state, actions.get(rnd.nextInt(actions.size())));
+        }
+        states.add(state);
+        for (IStateHeuristic heuristic : heuristics) {
+            double[][] batch = heuristic.evaluateStates(states);
+            assertEquals(states.size(), batch.length);
+            for (int i = 0; i < states.size(); i++)
+                for (int p = 0; p < 3; p++)
+                    assertEquals(heuristic.evaluateState(states.get(i), p), batch[i][p], 1e-12);
+        }
+    }
+
+    @Test(expected = AssertionError.class)
+    public void featureVectorMustMatchCoefficients() throws IOException {
+        // one coefficient too few for the feature vector
+        LinearStateHeuristic heuristic = new LinearStateHeuristic(new HeartsFeatures(), coefficients(0.1, 0.02, -0.3).getPath(), null);
+        heuristic.evaluateStates(List.of(createGame().getGameState()));
+    }
+
+    @Test
+    public void searchWithLearnedHeuristic() throws IOException {
+        params.leafBatchSize = 16;
+        params.heuristic = new LogisticStateHeuristic(new HeartsFeatures(), coefficients(0.1, 0.02, -0.3, 0.05).getPath(), null);
+        SingleTreeNode root = search(createGame());
+        assertEquals(params.budget, root.getVisits());
+    }
+}
@@ -0,0 +1,104 @@
+package test.players.mcts;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.actions.SetGridValueAction;
+import games.GameType;
+import games.tictactoe.TicTacToeConstants;
+import games.tictactoe.TicTacToeGameParameters;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MASTStatistics;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.simple.RandomPlayer;
+import utilities.Pair;
+import utilities.Utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MASTStatisticsTests {
+
+    private AbstractAction move(int x, int y) {
+        return new SetGridValueAction<>(1, x, y, TicTacToeConstants.playerMapping.get(0));
+    }
+
+    @Test
+    public void statisticsArePerPlayerAndAction() {
+        MASTStatistics stats = new MASTStatistics(2);
+        stats.update(0, move(0, 0), 1.0);
+        stats.update(0, move(0, 0), 0.0);
+        stats.update(1, move(1, 1), -1.0);
+        // equal actions share statistics
+        stats.update(1, move(1, 1), -2.0);
+
+        assertEquals(2, stats.visits(0, move(0, 0)));
+        assertEquals(0.5, stats.meanValue(0, move(0, 0), 10.0), 1e-9);
+        assertEquals(-1.5, stats.meanValue(1, move(1, 1), 10.0), 1e-9);
+        assertEquals(-3.0, stats.totValue(1, move(1, 1)), 1e-9);
+        assertFalse(stats.contains(1, move(0, 0)));
+        assertEquals(10.0, stats.meanValue(1, move(0, 0), 10.0), 1e-9);
+        assertEquals(10.0, stats.meanValue(0, move(2, 2), 10.0), 1e-9);
+    }
+
+    @Test
+    public void decayMatchesDecayOfPairs() {
+        MASTStatistics stats = new MASTStatistics(1);
+        Pair<Integer, Double> pair = new Pair<>(0, 0.0);
+        for (int i = 0; i < 7; i++) {
+            stats.update(0, move(0, 0), i * 0.3);
+            pair.a++;
+            pair.b += i * 0.3;
+        }
+        stats.update(0, move(1, 0), 2.0);
+        for (double gamma : new double[]{0.9, 0.5, 1.0, 0.5, 0.0}) {
+            stats.decay(gamma);
+            pair = Utils.decay(pair, gamma);
+            assertEquals(pair.a.intValue(), stats.visits(0, move(0, 0)));
+            assertEquals(pair.b, stats.totValue(0, move(0, 0)), 1e-9);
+        }
+        // decayed to nothing, but still seen
+        assertTrue(stats.contains(0, move(1, 0)));
+        assertEquals(0.0, stats.meanValue(0, move(1, 0), 10.0), 1e-9);
+    }
+
+    @Test
+    public void copiesShareIdsButNotStatistics() {
+        MASTStatistics stats = new MASTStatistics(2);
+        stats.update(0, move(0, 0), 1.0);
+        MASTStatistics copy = stats.copy();
+        copy.update(0, move(0, 0), 1.0);
+        copy.update(1, move(2, 1), 1.0);
+        stats.update(0, move(1, 2), 3.0);
+        assertEquals(1, stats.visits(0, move(0, 0)));
+        assertEquals(2, copy.visits(0, move(0, 0)));
+        assertFalse(stats.contains(1, move(2, 1)));
+        assertFalse(copy.contains(0, move(1, 2)));
+    }
+
+    @Test
+    public void searchWithMASTRollouts() {
+        MCTSParams params = new MCTSParams(9332);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 200;
+        params.rolloutLength = 10;
+        params.rolloutType = MCTSEnums.Strategies.MAST;
+        params.useMAST = true;
+        params.MAST = MCTSEnums.MASTType.Both;
+        TestMCTSPlayer mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3024)));
+        Game game = GameType.TicTacToe.createGameInstance(2, new TicTacToeGameParameters(3812));
+        game.reset(players);
+        game.run();
+        AbstractGameState state = game.getGameState();
+        assertFalse(state.isNotTerminal());
+    }
+}
@@ -0,0 +1,159 @@
+package test.players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.NodePool;
+import players.mcts.SingleTreeNode;
+import players.mcts.TreeStatistics;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class NodeBudgetTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams(9332);
+        params.maxTreeDepth = 50;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 1000;
+        params.maxTreeNodes = 300;
+    }
+
+    private Game createGame(GameType gameType) {
+        mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3024)));
+        Game game = gameType.createGameInstance(2, 3812);
+        game.reset(players);
+        return game;
+    }
+
+    private void takeAction(Game game) {
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int player = state.getCurrentPlayer();
+        AbstractGameState observation = state.copy(player);
+        AbstractAction action = game.getPlayers().get(player).getAction(observation, fm.computeAvailableActions(observation));
+        fm.next(state, action);
+    }
+
+    /**
+     * Checks that no node has more visits below it than it has itself
+     */
+    private void checkVisits(SingleTreeNode root) {
+        Deque<SingleTreeNode> nodes = new ArrayDeque<>();
+        nodes.add(root);
+        while (!nodes.isEmpty()) {
+            SingleTreeNode node = nodes.poll();
+            int childVisits = 0;
+            for (SingleTreeNode[] nodeArray : node.getChildren().values())
+                if (nodeArray != null)
+                    for (SingleTreeNode child : nodeArray)
+                        if (child != null) {
+                            childVisits += child.getVisits();
+                            nodes.add(child);
+                        }
+            assertTrue(childVisits <= node.getVisits());
+        }
+    }
+
+    private void playWithinBudget(Game game) {
+        int decisions = 0;
+        while (game.getGameState().isNotTerminal()) {
+            boolean ours = game.getGameState().getCurrentPlayer() == 0;
+            takeAction(game);
+            if (ours) {
+                SingleTreeNode root = mctsPlayer.getRoot(0);
+                assertTrue(new TreeStatistics(root).totalNodes <= params.maxTreeNodes);
+                checkVisits(root);
+                NodePool pool = mctsPlayer.getNodePool();
+                // after the first decision every node comes from those the player already has
+                if (decisions > 0)
+                    assertEquals(0, pool.getAllocated());
+                int rollers = params.parallelMode == MCTSEnums.ParallelMode.TREE ? params.nThreads : 0;
+                assertTrue(pool.size() <= params.maxTreeNodes + rollers);
+                decisions++;
+            }
+        }
+    }
+
+    @Test
+    public void treeIsPrunedToBudget() {
+        Game game = createGame(GameType.Connect4);
+        takeAction(game);
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        assertEquals(params.budget, root.getVisits());
+        assertTrue(new TreeStatistics(root).totalNodes <= params.maxTreeNodes);
+        checkVisits(root);
+        NodePool pool = mctsPlayer.getNodePool();
+        assertTrue(pool.getPruned() > 0);
+        // the nodes pruned are reused later in the same search
+        assertTrue(pool.getRecycled() > 0);
+        assertTrue(pool.getAllocated() <= params.maxTreeNodes);
+    }
+
+    @Test
+    public void nodesAreRecycledAcrossDecisions() {
+        playWithinBudget(createGame(GameType.Connect4));
+    }
+
+    @Test
+    public void nodesAreRecycledWithTreeReuse() {
+        params.reuseTree = true;
+        playWithinBudget(createGame(GameType.Connect4));
+    }
+
+    @Test
+    public void closedLoopWithinBudget() {
+        params.information = MCTSEnums.Information.Closed_Loop;
+        params.discardStateAfterEachIteration = false;
+        playWithinBudget(createGame(GameType.Connect4));
+    }
+
+    @Test
+    public void OMAWithinBudget() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.OMA_All;
+        playWithinBudget(createGame(GameType.Connect4));
+    }
+
+    @Test
+    public void treeParallelWithinBudget() {
+        params.parallelMode = MCTSEnums.ParallelMode.TREE;
+        params.nThreads = 4;
+        playWithinBudget(createGame(GameType.Connect4));
+    }
+
+    @Test
+    public void multiTreeWithinBudget() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.MultiTree;
+        Game game = createGame(GameType.Connect4);
+        while (game.getGameState().isNotTerminal()) {
+            boolean ours = game.getGameState().getCurrentPlayer() == 0;
+            takeAction(game);
+            if (ours) {
+                for (int p = 0; p < 2; p++) {
+                    SingleTreeNode root = mctsPlayer.getRoot(p);
+                    if (root != null)
+                        assertTrue(new TreeStatistics(root).totalNodes <= params.maxTreeNodes / 2);
+                }
+            }
+        }
+    }
+}
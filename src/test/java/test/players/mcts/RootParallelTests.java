@@ -0,0 +1,115 @@
+package test.players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import games.Hearts.components.HeartsParameters;
+import games.tictactoe.TicTacToeGameParameters;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.SingleTreeNode;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class RootParallelTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams(9332);
+        params.maxTreeDepth = 20;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 400;
+        params.parallelMode = MCTSEnums.ParallelMode.ROOT;
+        params.nThreads = 4;
+    }
+
+    private Game createGame(GameType gameType, int nPlayers) {
+        mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        for (int p = 1; p < nPlayers; p++)
+            players.add(new RandomPlayer(new Random(3023 + p)));
+        Game game = gameType == GameType.TicTacToe ?
+                gameType.createGameInstance(nPlayers, new TicTacToeGameParameters(3812)) :
+                gameType.createGameInstance(nPlayers, new HeartsParameters(3812));
+        game.reset(players);
+        return game;
+    }
+
+    private AbstractAction decide(Game game) {
+        AbstractGameState state = game.getGameState();
+        AbstractGameState observation = state.copy(state.getCurrentPlayer());
+        AbstractForwardModel fm = game.getForwardModel();
+        return mctsPlayer.getAction(observation, fm.computeAvailableActions(observation));
+    }
+
+    @Test
+    public void rootStatisticsAreMerged() {
+        Game game = createGame(GameType.TicTacToe, 2);
+        decide(game);
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        // each of the four trees gets a quarter of the budget
+        assertEquals(params.budget, root.getVisits());
+        int childVisits = 0;
+        for (AbstractAction action : root.getChildren().keySet())
+            for (SingleTreeNode child : root.getChildren().get(action))
+                if (child != null) childVisits += child.getVisits();
+        assertEquals(params.budget, childVisits);
+        assertEquals(9, root.getChildren().size());
+    }
+
+    private List<Integer> childVisits() {
+        List<Integer> retValue = new ArrayList<>();
+        mctsPlayer.getRoot(0).getChildren().values().forEach(nodes -> retValue.add(nodes == null ? 0 :
+                Arrays.stream(nodes).filter(Objects::nonNull).mapToInt(SingleTreeNode::getVisits).sum()));
+        Collections.sort(retValue);
+        return retValue;
+    }
+
+    @Test
+    public void sameSeedGivesSameSearch() {
+        // the games have different component IDs, so we compare where the moves are rather than the actions
+        Game first = createGame(GameType.TicTacToe, 2);
+        String firstAction = decide(first).getString(first.getGameState());
+        List<Integer> firstVisits = childVisits();
+
+        Game second = createGame(GameType.TicTacToe, 2);
+        assertEquals(firstAction, decide(second).getString(second.getGameState()));
+        assertEquals(firstVisits, childVisits());
+    }
+
+    @Test
+    public void ensembleDeterminisationInHearts() {
+        params.information = MCTSEnums.Information.Closed_Loop;
+        params.discardStateAfterEachIteration = false;
+        Game game = createGame(GameType.Hearts, 4);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < 30) {
+            int player = state.getCurrentPlayer();
+            AbstractGameState observation = state.copy(player);
+            List<AbstractAction> actions = fm.computeAvailableActions(observation);
+            AbstractAction action = game.getPlayers().get(player).getAction(observation, actions);
+            assertTrue(actions.contains(action));
+            if (player == 0 && actions.size() > 1) {
+                decisions++;
+                assertEquals(params.budget, mctsPlayer.getRoot(0).getVisits());
+            }
+            fm.next(state, action);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package test.players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import core.actions.SetGridValueAction;
+import core.components.Token;
+import games.GameType;
+import games.tictactoe.TicTacToeConstants;
+import games.tictactoe.TicTacToeGameParameters;
+import games.tictactoe.TicTacToeGameState;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.SingleTreeNode;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TranspositionTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+    Game game;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams(9332);
+        params.maxTreeDepth = 20;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 1000;
+        params.transpositionTableSize = 10000;
+        params.information = MCTSEnums.Information.Closed_Loop;
+        params.discardStateAfterEachIteration = false;
+        params.selectionPolicy = MCTSEnums.SelectionPolicy.ROBUST;
+    }
+
+    private void createGame() {
+        mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        players.add(new RandomPlayer(new Random(3024)));
+        game = GameType.TicTacToe.createGameInstance(2, new TicTacToeGameParameters(3812));
+        game.reset(players);
+    }
+
+    private AbstractAction move(int x, int y, int player) {
+        return new SetGridValueAction<>(((TicTacToeGameState) game.getGameState()).getGridBoard().getComponentID(),
+                x, y, TicTacToeConstants.playerMapping.get(player));
+    }
+
+    private void play(AbstractGameState state, int[]... moves) {
+        AbstractForwardModel fm = game.getForwardModel();
+        for (int[] m : moves)
+            fm.next(state, move(m[0], m[1], state.getCurrentPlayer()));
+    }
+
+    private AbstractAction search() {
+        AbstractGameState observation = game.getGameState().copy(0);
+        return mctsPlayer.getAction(observation, game.getForwardModel().computeAvailableActions(observation));
+    }
+
+    private int sharedNodes(SingleTreeNode root) {
+        int shared = 0;
+        for (SingleTreeNode node : root.allNodesInTree()) {
+            for (SingleTreeNode[] nodeArray : node.getChildren().values()) {
+                if (nodeArray == null) continue;
+                for (SingleTreeNode child : nodeArray)
+                    if (child != null && child.getParent() != node)
+                        shared++;
+            }
+        }
+        return shared;
+    }
+
+    @Test
+    public void hashIsIndependentOfMoveOrder() {
+        createGame();
+        AbstractGameState start = game.getGameState();
+        assertTrue(start.hasStateHash());
+        AbstractGameState first = start.copy();
+        AbstractGameState second = start.copy();
+        play(first, new int[]{0, 0}, new int[]{1, 1}, new int[]{2, 2});
+        play(second, new int[]{2, 2}, new int[]{1, 1}, new int[]{0, 0});
+        assertEquals(first.getStateHash(), second.getStateHash());
+        assertEquals(first.getStateHash(), first.copy(1).getStateHash());
+        assertNotEquals(start.getStateHash(), first.getStateHash());
+        // the same cells, but with the tokens swapped
+        AbstractGameState third = start.copy();
+        play(third, new int[]{1, 1}, new int[]{0, 0}, new int[]{2, 0}, new int[]{2, 2});
+        play(first, new int[]{2, 0});
+        assertNotEquals(first.getStateHash(), third.getStateHash());
+    }
+
+    @Test
+    public void closedLoopNodesAreShared() {
+        createGame();
+        search();
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        assertEquals(params.budget, root.getVisits());
+        assertTrue(sharedNodes(root) > 0);
+        // each iteration passes through exactly one child of the root, even though the children are shared
+        int childVisits = root.getChildren().values().stream().filter(Objects::nonNull)
+                .flatMap(Arrays::stream).filter(Objects::nonNull).mapToInt(SingleTreeNode::getVisits).sum();
+        assertEquals(params.budget, childVisits);
+    }
+
+    @Test
+    public void openLoopNodesAreShared() {
+        params.information = MCTSEnums.Information.Open_Loop;
+        params.discardStateAfterEachIteration = true;
+        createGame();
+        search();
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        assertEquals(params.budget, root.getVisits());
+        assertTrue(sharedNodes(root) > 0);
+    }
+
+    @Test
+    public void noSharingWhenSwitchedOff() {
+        params.transpositionTableSize = 0;
+        createGame();
+        search();
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        assertEquals(params.budget, root.getVisits());
+        assertEquals(0, sharedNodes(root));
+    }
+
+    @Test
+    public void smallTableStillSearches() {
+        params.transpositionTableSize = 5;
+        createGame();
+        search();
+        assertEquals(params.budget, mctsPlayer.getRoot(0).getVisits());
+    }
+
+    @Test
+    public void findsWinningMove() {
+        createGame();
+        // x at (0, 0) and (1, 0); o at (0, 1) and (1, 1); x to play and win at (2, 0)
+        play(game.getGameState(), new int[]{0, 0}, new int[]{0, 1}, new int[]{1, 0}, new int[]{1, 1});
+        AbstractAction action = search();
+        SetGridValueAction<Token> chosen = (SetGridValueAction<Token>) action;
+        assertEquals(2, chosen.getX());
+        assertEquals(0, chosen.getY());
+    }
+}
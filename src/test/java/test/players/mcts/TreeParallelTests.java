@@ -0,0 +1,147 @@
+package test.players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import games.Hearts.components.HeartsParameters;
+import games.tictactoe.TicTacToeGameParameters;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.SingleTreeNode;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class TreeParallelTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams(9332);
+        params.maxTreeDepth = 20;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 400;
+        params.parallelMode = MCTSEnums.ParallelMode.TREE;
+        params.nThreads = 4;
+    }
+
+    private Game createGame(GameType gameType, int nPlayers) {
+        mctsPlayer = new TestMCTSPlayer(params, null);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        for (int p = 1; p < nPlayers; p++)
+            players.add(new RandomPlayer(new Random(3023 + p)));
+        Game game = gameType == GameType.TicTacToe ?
+                gameType.createGameInstance(nPlayers, new TicTacToeGameParameters(3812)) :
+                gameType.createGameInstance(nPlayers, new HeartsParameters(3812));
+        game.reset(players);
+        return game;
+    }
+
+    private int childVisits(SingleTreeNode node) {
+        int retValue = 0;
+        for (SingleTreeNode[] nodes : node.getChildren().values())
+            if (nodes != null)
+                for (SingleTreeNode child : nodes)
+                    if (child != null) retValue += child.getVisits();
+        return retValue;
+    }
+
+    private void checkTree(SingleTreeNode root) {
+        // every iteration is backed up exactly once: it either stops at a node, or goes on to one of its children
+        assertEquals(params.budget, root.getVisits());
+        assertEquals(params.budget, childVisits(root));
+        for (SingleTreeNode node : root.allNodesInTree()) {
+            assertTrue(node.getVisits() >= childVisits(node));
+            if (node != root)
+                assertEquals(node.getParent().getDepth() + 1, node.getDepth());
+        }
+    }
+
+    @Test
+    public void sharedTreeIsConsistent() {
+        Game game = createGame(GameType.TicTacToe, 2);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        while (state.isNotTerminal()) {
+            int player = state.getCurrentPlayer();
+            AbstractGameState observation = state.copy(player);
+            List<AbstractAction> actions = fm.computeAvailableActions(observation);
+            AbstractAction action = game.getPlayers().get(player).getAction(observation, actions);
+            assertTrue(actions.contains(action));
+            if (player == 0 && actions.size() > 1)
+                checkTree(mctsPlayer.getRoot(0));
+            fm.next(state, action);
+        }
+    }
+
+    @Test
+    public void fmCallBudgetIsShared() {
+        params.budgetType = PlayerConstants.BUDGET_FM_CALLS;
+        params.budget = 2000;
+        Game game = createGame(GameType.TicTacToe, 2);
+        AbstractGameState observation = game.getGameState().copy(0);
+        mctsPlayer.getAction(observation, game.getForwardModel().computeAvailableActions(observation));
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        // every iteration uses at least one FM call, and the threads stop once the calls are used up between them
+        assertTrue(root.getVisits() > 100);
+        assertTrue(root.getVisits() < params.budget);
+        assertEquals(root.getVisits(), childVisits(root));
+    }
+
+    @Test
+    public void closedLoopHearts() {
+        params.information = MCTSEnums.Information.Closed_Loop;
+        params.discardStateAfterEachIteration = false;
+        params.budget = 200;
+        Game game = createGame(GameType.Hearts, 4);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < 20) {
+            int player = state.getCurrentPlayer();
+            AbstractGameState observation = state.copy(player);
+            List<AbstractAction> actions = fm.computeAvailableActions(observation);
+            AbstractAction action = game.getPlayers().get(player).getAction(observation, actions);
+            assertTrue(actions.contains(action));
+            if (player == 0 && actions.size() > 1) {
+                decisions++;
+                checkTree(mctsPlayer.getRoot(0));
+            }
+            fm.next(state, action);
+        }
+    }
+
+    @Test
+    public void informationSetHearts() {
+        params.information = MCTSEnums.Information.Information_Set;
+        params.budget = 200;
+        Game game = createGame(GameType.Hearts, 3);
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < 20) {
+            int player = state.getCurrentPlayer();
+            AbstractGameState observation = state.copy(player);
+            List<AbstractAction> actions = fm.computeAvailableActions(observation);
+            AbstractAction action = game.getPlayers().get(player).getAction(observation, actions);
+            assertTrue(actions.contains(action));
+            if (player == 0 && actions.size() > 1) {
+                decisions++;
+                assertEquals(params.budget, mctsPlayer.getRoot(0).getVisits());
+            }
+            fm.next(state, action);
+        }
+    }
+}
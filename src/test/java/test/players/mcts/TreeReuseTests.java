@@ -0,0 +1,203 @@
+package test.players.mcts;
+
+import core.AbstractForwardModel;
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import games.Hearts.components.HeartsParameters;
+import games.tictactoe.TicTacToeGameParameters;
+import org.junit.Before;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.mcts.MCTSEnums;
+import players.mcts.MCTSParams;
+import players.mcts.OMATreeNode;
+import players.mcts.SingleTreeNode;
+import players.simple.RandomPlayer;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+import static org.junit.Assert.*;
+
+public class TreeReuseTests {
+
+    TestMCTSPlayer mctsPlayer;
+    MCTSParams params;
+    Supplier<? extends SingleTreeNode> factory;
+
+    @Before
+    public void setup() {
+        params = new MCTSParams(9332);
+        params.maxTreeDepth = 20;
+        params.rolloutLength = 10;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 200;
+        params.reuseTree = true;
+        factory = null;
+    }
+
+    private Game createGame(GameType gameType, int nPlayers) {
+        mctsPlayer = new TestMCTSPlayer(params, factory);
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(mctsPlayer);
+        for (int p = 1; p < nPlayers; p++)
+            players.add(new RandomPlayer(new Random(3023 + p)));
+        Game game;
+        if (gameType == GameType.TicTacToe)
+            game = gameType.createGameInstance(nPlayers, new TicTacToeGameParameters(3812));
+        else if (gameType == GameType.Hearts)
+            game = gameType.createGameInstance(nPlayers, new HeartsParameters(3812));
+        else
+            game = gameType.createGameInstance(nPlayers, 3812);
+        game.reset(players);
+        return game;
+    }
+
+    private void takeAction(Game game) {
+        AbstractGameState state = game.getGameState();
+        AbstractForwardModel fm = game.getForwardModel();
+        int player = state.getCurrentPlayer();
+        AbstractGameState observation = state.copy(player);
+        AbstractAction action = game.getPlayers().get(player).getAction(observation, fm.computeAvailableActions(observation));
+        fm.next(state, action);
+    }
+
+    private void checkTreeStructure(SingleTreeNode root) {
+        assertNull(root.getParent());
+        assertEquals(0, root.getDepth());
+        for (SingleTreeNode node : root.allNodesInTree()) {
+            if (node != root)
+                assertEquals(node.getParent().getDepth() + 1, node.getDepth());
+        }
+    }
+
+    private void reusedTicTacToe(MCTSEnums.Information information) {
+        params.information = information;
+        params.discardStateAfterEachIteration = information != MCTSEnums.Information.Closed_Loop;
+        Game game = createGame(GameType.TicTacToe, 2);
+        takeAction(game);  // MCTS
+        assertEquals(params.budget, mctsPlayer.getRoot(0).getVisits());
+        takeAction(game);  // Random
+        List<AbstractAction> legal = game.getForwardModel().computeAvailableActions(game.getGameState());
+        takeAction(game);  // MCTS again, starting from the subtree for the two moves made
+        SingleTreeNode root = mctsPlayer.getRoot(0);
+        assertTrue(root.getVisits() > params.budget);
+        checkTreeStructure(root);
+        // only legal moves are left at the root
+        assertTrue(legal.containsAll(root.getChildren().keySet()));
+    }
+
+    @Test
+    public void openLoopTreeIsReused() {
+        reusedTicTacToe(MCTSEnums.Information.Open_Loop);
+    }
+
+    @Test
+    public void closedLoopTreeIsReused() {
+        reusedTicTacToe(MCTSEnums.Information.Closed_Loop);
+    }
+
+    @Test
+    public void omaParentsAboveNewRootAreDropped() {
+        params.opponentTreePolicy = MCTSEnums.OpponentTreePolicy.OMA_All;
+        reusedTicTacToe(MCTSEnums.Information.Open_Loop);
+        for (SingleTreeNode node : mctsPlayer.getRoot(0).allNodesInTree()) {
+            OMATreeNode omaParent = ((OMATreeNode) node).getOMAParent().orElse(null);
+            if (omaParent != null)
+                assertTrue(omaParent.getDepth() < node.getDepth() && node.matchingParent(n -> n == omaParent) != null);
+        }
+    }
+
+    @Test
+    public void noReuseWhenSwitchedOff() {
+        params.reuseTree = false;
+        Game game = createGame(GameType.TicTacToe, 2);
+        takeAction(game);
+        takeAction(game);
+        takeAction(game);
+        assertEquals(params.budget, mctsPlayer.getRoot(0).getVisits());
+    }
+
+    @Test
+    public void informationSetReuseInHearts() {
+        params.information = MCTSEnums.Information.Information_Set;
+        params.budget = 100;
+        Game game = createGame(GameType.Hearts, 4);
+        int decisions = 0, reused = 0;
+        while (game.getGameState().isNotTerminal() && decisions < 200) {
+            boolean mctsToAct = game.getGameState().getCurrentPlayer() == 0;
+            takeAction(game);
+            if (mctsToAct) {
+                decisions++;
+                SingleTreeNode root = mctsPlayer.getRoot(0);
+                checkTreeStructure(root);
+                if (root.getVisits() > params.budget)
+                    reused++;
+            }
+        }
+        assertTrue(reused > 0);
+    }
+
+    @Test
+    public void rootStatisticsOnlyCountLegalActions() {
+        // in Love Letter the cards drawn differ between determinisations, so some actions at the new root are no
+        // longer legal once the actual card is known
+        params.information = MCTSEnums.Information.Information_Set;
+        params.budget = 100;
+        factory = VisitCheckingNode::new;
+        VisitCheckingNode.rootsWithActionsDropped = 0;
+        for (int i = 0; i < 5 && VisitCheckingNode.rootsWithActionsDropped == 0; i++) {
+            Game game = createGame(GameType.LoveLetter, 2);
+            while (game.getGameState().isNotTerminal())
+                takeAction(game);
+        }
+        assertTrue(VisitCheckingNode.rootsWithActionsDropped > 0);
+    }
+
+    /**
+     * Checks that the visits to a node that did not go on to one of its children are unchanged when it is made the
+     * root, and so no visits through actions that have been dropped are left on it
+     */
+    static class VisitCheckingNode extends SingleTreeNode {
+        static int rootsWithActionsDropped;
+        int ownVisitsBefore = -1;
+        int actionsBefore;
+
+        private int ownVisits() {
+            int retValue = getVisits();
+            for (SingleTreeNode[] nodeArray : getChildren().values())
+                if (nodeArray != null)
+                    for (SingleTreeNode child : nodeArray)
+                        if (child != null) retValue -= child.getVisits();
+            return retValue;
+        }
+
+        @Override
+        protected void rootChanged() {
+            if (getParent() == null) {
+                ownVisitsBefore = ownVisits();
+                actionsBefore = getChildren().size();
+            }
+        }
+
+        @Override
+        protected void clear() {
+            super.clear();
+            ownVisitsBefore = -1;
+        }
+
+        @Override
+        public void mctsSearch(int budget) {
+            if (ownVisitsBefore >= 0) {
+                assertEquals(ownVisitsBefore, ownVisits());
+                if (getChildren().size() < actionsBefore)
+                    rootsWithActionsDropped++;
+                ownVisitsBefore = -1;
+            }
+            super.mctsSearch(budget);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package test.players.rhea;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.rhea.RHEAParams;
+import players.rhea.RHEAPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ClosedLoopRHEATests {
+
+    static class CountingRHEAPlayer extends RHEAPlayer {
+        int decisions, generations;
+
+        CountingRHEAPlayer(RHEAParams params) {
+            super(params);
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState stateObs, List<AbstractAction> actions) {
+            AbstractAction retValue = super._getAction(stateObs, actions);
+            decisions++;
+            generations += numIters;
+            return retValue;
+        }
+    }
+
+    private RHEAParams params(boolean closedLoop, int budget) {
+        RHEAParams params = new RHEAParams(5139);
+        params.budgetType = PlayerConstants.BUDGET_FM_CALLS;
+        params.budget = budget;
+        params.closedLoop = closedLoop;
+        return params;
+    }
+
+    private CountingRHEAPlayer rhea(boolean closedLoop, int budget) {
+        return new CountingRHEAPlayer(params(closedLoop, budget));
+    }
+
+    private Game play(GameType gameType, AbstractPlayer player, int maxDecisions) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(player);
+        for (int p = 1; p < Math.max(2, gameType.getMinPlayers()); p++)
+            players.add(new RandomPlayer(new Random(77 + p)));
+        Game game = gameType.createGameInstance(players.size(), 3318);
+        game.reset(players);
+        AbstractGameState state = game.getGameState();
+        int decisions = 0;
+        while (state.isNotTerminal() && decisions < maxDecisions) {
+            if (state.getCurrentPlayer() == 0)
+                decisions++;
+            game.oneAction();
+        }
+        return game;
+    }
+
+    @Test
+    public void closedLoopPlaysLegalGames() {
+        // RHEAPlayer throws if the action it picks is not legal
+        for (GameType gameType : new GameType[]{GameType.TicTacToe, GameType.LoveLetter, GameType.Dominion}) {
+            CountingRHEAPlayer player = rhea(true, 500);
+            Game game = play(gameType, player, 1000);
+            assertFalse(gameType.name(), game.getGameState().isNotTerminal());
+            assertTrue(player.generations > 0);
+        }
+    }
+
+    @Test
+    public void closedLoopWithShiftLeft() {
+        RHEAParams params = params(true, 500);
+        params.shiftLeft = true;
+        CountingRHEAPlayer player = new CountingRHEAPlayer(params);
+        Game game = play(GameType.LoveLetter, player, 1000);
+        assertFalse(game.getGameState().isNotTerminal());
+    }
+
+    @Test
+    public void closedLoopRunsMoreGenerationsOnTheSameBudget() {
+        CountingRHEAPlayer open = rhea(false, 2000);
+        CountingRHEAPlayer closed = rhea(true, 2000);
+        play(GameType.Dominion, open, 10);
+        play(GameType.Dominion, closed, 10);
+        assertEquals(open.decisions, closed.decisions);
+        assertTrue(closed.generations + " vs " + open.generations, closed.generations > open.generations);
+    }
+
+    @Test
+    public void closedLoopUsesTheWholeIterationBudget() {
+        // with few legal moves and a small population many generations change nothing, but all are still run
+        RHEAParams params = params(true, 0);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 50;
+        params.populationSize = 2;
+        params.eliteCount = 1;
+        params.childCount = 1;
+        CountingRHEAPlayer player = new CountingRHEAPlayer(params);
+        play(GameType.TicTacToe, player, 1000);
+        assertEquals(50 * player.decisions, player.generations);
+    }
+}
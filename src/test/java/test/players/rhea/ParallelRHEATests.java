@@ -0,0 +1,91 @@
+package test.players.rhea;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.rhea.RHEAParams;
+import players.rhea.RHEAPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParallelRHEATests {
+
+    static class BudgetCheckingRHEAPlayer extends RHEAPlayer {
+        final int budget;
+        int decisions;
+
+        BudgetCheckingRHEAPlayer(RHEAParams params) {
+            super(params);
+            budget = params.budget;
+        }
+
+        @Override
+        public AbstractAction _getAction(AbstractGameState stateObs, List<AbstractAction> actions) {
+            AbstractAction retValue = super._getAction(stateObs, actions);
+            decisions++;
+            assertTrue(numIters > 0);
+            assertTrue(fmCalls + " < " + budget, fmCalls >= budget);
+            return retValue;
+        }
+    }
+
+    private RHEAParams params(int nThreads) {
+        RHEAParams params = new RHEAParams(8814);
+        params.budgetType = PlayerConstants.BUDGET_FM_CALLS;
+        params.budget = 600;
+        params.populationSize = 12;
+        params.nThreads = nThreads;
+        return params;
+    }
+
+    private Game play(GameType gameType, AbstractPlayer player) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(player);
+        for (int p = 1; p < Math.max(2, gameType.getMinPlayers()); p++)
+            players.add(new RandomPlayer(new Random(391 + p)));
+        Game game = gameType.createGameInstance(players.size(), 5520);
+        game.reset(players);
+        game.run();
+        return game;
+    }
+
+    @Test
+    public void parallelPopulationKeepsTheBudget() {
+        for (GameType gameType : new GameType[]{GameType.LoveLetter, GameType.Dominion, GameType.SushiGo}) {
+            BudgetCheckingRHEAPlayer player = new BudgetCheckingRHEAPlayer(params(4));
+            Game game = play(gameType, player);
+            assertFalse(gameType.name(), game.getGameState().isNotTerminal());
+            assertTrue(player.decisions > 0);
+        }
+    }
+
+    @Test
+    public void parallelWithMASTAndClosedLoop() {
+        RHEAParams params = params(3);
+        params.useMAST = true;
+        params.closedLoop = true;
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 20;
+        Game game = play(GameType.LoveLetter, new RHEAPlayer(params));
+        assertFalse(game.getGameState().isNotTerminal());
+    }
+
+    @Test
+    public void moreThreadsThanIndividuals() {
+        RHEAParams params = params(16);
+        params.populationSize = 4;
+        params.eliteCount = 1;
+        params.childCount = 2;
+        Game game = play(GameType.TicTacToe, new RHEAPlayer(params));
+        assertFalse(game.getGameState().isNotTerminal());
+    }
+}
@@ -0,0 +1,64 @@
+package test.players.rmhc;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.PlayerConstants;
+import players.rmhc.RMHCParams;
+import players.rmhc.RMHCPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ParallelRMHCTests {
+
+    @Test
+    public void parallelMutationsPlayLegalGames() {
+        for (GameType gameType : new GameType[]{GameType.TicTacToe, GameType.LoveLetter, GameType.Dominion}) {
+            RMHCParams params = new RMHCParams(6102);
+            params.budgetType = PlayerConstants.BUDGET_FM_CALLS;
+            params.budget = 500;
+            params.nThreads = 4;
+            List<AbstractPlayer> players = new ArrayList<>();
+            players.add(new RMHCPlayer(params));
+            for (int p = 1; p < Math.max(2, gameType.getMinPlayers()); p++)
+                players.add(new RandomPlayer(new Random(74 + p)));
+            Game game = gameType.createGameInstance(players.size(), 2209);
+            game.reset(players);
+            game.run();
+            assertFalse(gameType.name(), game.getGameState().isNotTerminal());
+        }
+    }
+
+    @Test
+    public void iterationBudgetIsNotExceeded() {
+        RMHCParams params = new RMHCParams(6102);
+        params.budgetType = PlayerConstants.BUDGET_ITERATIONS;
+        params.budget = 10;
+        params.nThreads = 4;
+        List<Integer> iterations = new ArrayList<>();
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(new RMHCPlayer(params) {
+            @Override
+            public AbstractAction _getAction(AbstractGameState stateObs, List<AbstractAction> actions) {
+                AbstractAction retValue = super._getAction(stateObs, actions);
+                iterations.add(numIters);
+                return retValue;
+            }
+        });
+        players.add(new RandomPlayer(new Random(75)));
+        Game game = GameType.LoveLetter.createGameInstance(2, 2209);
+        game.reset(players);
+        game.run();
+        assertFalse(iterations.isEmpty());
+        for (int n : iterations)
+            assertEquals(10, n);
+    }
+}
@@ -0,0 +1,92 @@
+package test.players.simple;
+
+import core.AbstractGameState;
+import core.AbstractPlayer;
+import core.Game;
+import core.actions.AbstractAction;
+import games.GameType;
+import org.junit.Test;
+import players.simple.OSLAPlayer;
+import players.simple.RandomPlayer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OSLASamplingTests {
+
+    private OSLAPlayer osla(int samples, int nThreads) {
+        OSLAPlayer retValue = new OSLAPlayer(new Random(6571));
+        retValue.samples = samples;
+        retValue.nThreads = nThreads;
+        return retValue;
+    }
+
+    private Game play(GameType gameType, AbstractPlayer player) {
+        List<AbstractPlayer> players = new ArrayList<>();
+        players.add(player);
+        for (int p = 1; p < Math.max(2, gameType.getMinPlayers()); p++)
+            players.add(new RandomPlayer(new Random(18 + p)));
+        Game game = gameType.createGameInstance(players.size(), 4025);
+        game.reset(players);
+        game.run();
+        return game;
+    }
+
+    @Test
+    public void multiSampleOSLAPlaysLegalGames() {
+        for (GameType gameType : new GameType[]{GameType.LoveLetter, GameType.Dominion, GameType.SushiGo, GameType.TicTacToe}) {
+            for (int nThreads : new int[]{1, 3}) {
+                Game game = play(gameType, osla(6, nThreads));
+                assertFalse(gameType.name(), game.getGameState().isNotTerminal());
+            }
+        }
+    }
+
+    @Test
+    public void singleSampleOnThreads() {
+        Game game = play(GameType.LoveLetter, osla(1, 4));
+        assertFalse(game.getGameState().isNotTerminal());
+    }
+
+    @Test
+    public void resultDoesNotDependOnThreads() {
+        for (int samples : new int[]{1, 4}) {
+            for (GameType gameType : new GameType[]{GameType.Dominion, GameType.TicTacToe, GameType.SushiGo}) {
+                AbstractGameState serial = play(gameType, osla(samples, 1)).getGameState();
+                AbstractGameState parallel = play(gameType, osla(samples, 4)).getGameState();
+                assertEquals(gameType.name(), serial.getGameTick(), parallel.getGameTick());
+                for (int p = 0; p < serial.getNPlayers(); p++)
+                    assertEquals(serial.getGameScore(p), parallel.getGameScore(p), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void samplesStayWithinBudget() {
+        AtomicInteger evaluations = new AtomicInteger();
+        for (int samples : new int[]{1, 2, 3, 8}) {
+            OSLAPlayer player = new OSLAPlayer((state, playerID) -> {
+                evaluations.incrementAndGet();
+                return state.getHeuristicScore(playerID);
+            }, new Random(6571)) {
+                @Override
+                public AbstractAction _getAction(AbstractGameState gs, List<AbstractAction> actions) {
+                    evaluations.set(0);
+                    AbstractAction retValue = super._getAction(gs, actions);
+                    if (actions.size() > 1) {
+                        assertTrue(evaluations.get() <= samples * actions.size());
+                        assertTrue(evaluations.get() >= actions.size());
+                    }
+                    return retValue;
+                }
+            };
+            player.samples = samples;
+            player.nThreads = 2;
+            assertFalse(play(GameType.Dominion, player).getGameState().isNotTerminal());
+        }
+    }
+}